@@ -0,0 +1,77 @@
+package second;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Sorting the members of large JDK classes the way {@link Inspector} does, once with the
+ * comparators that ask reflection on every comparison and once with the primitive keys of {@link
+ * MemberOrder}.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar InspectorSortBenchmark -prof gc
+ * </pre>
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class InspectorSortBenchmark {
+  @Param({"java.lang.String", "java.util.Collections", "java.awt.Component", "javax.swing.JTable"})
+  public String className;
+
+  private Field[] fields;
+  private Constructor<?>[] constructors;
+  private Method[] methods;
+
+  @Setup(Level.Trial)
+  public void setup() throws ClassNotFoundException {
+    final var clazz = Class.forName(this.className);
+    this.fields = clazz.getFields();
+    this.constructors = clazz.getDeclaredConstructors();
+    this.methods = clazz.getMethods();
+
+    // both have to agree, otherwise the numbers mean nothing
+    final var expected = Arrays.stream(this.methods).sorted(Inspector::methodComparator).toList();
+    if (!expected.equals(MemberOrder.sorted(this.methods, Inspector::methodComparator))) {
+      throw new IllegalStateException("Different order for " + this.className);
+    }
+  }
+
+  @Benchmark
+  public void comparators(final Blackhole blackhole) {
+    blackhole.consume(Arrays.stream(this.fields).sorted(Inspector::fieldComparator).toList());
+    blackhole.consume(
+        Arrays.stream(this.constructors).sorted(Inspector::constructorComparator).toList());
+    blackhole.consume(Arrays.stream(this.methods).sorted(Inspector::methodComparator).toList());
+  }
+
+  @Benchmark
+  public void sortKeys(final Blackhole blackhole) {
+    blackhole.consume(MemberOrder.sorted(this.fields, Inspector::fieldComparator));
+    blackhole.consume(
+        MemberOrder.sortedConstructors(this.constructors, Inspector::constructorComparator));
+    blackhole.consume(MemberOrder.sorted(this.methods, Inspector::methodComparator));
+  }
+}
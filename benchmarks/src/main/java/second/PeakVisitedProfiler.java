@@ -0,0 +1,55 @@
+package second;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+/**
+ * Meldet die größte Besucht-Menge, die {@link UmfuelllistenBenchmark} in einer Iteration gesehen
+ * hat, als Ergebnis {@code peakVisited}. Anders als {@code @AuxCounters}, deren Werte JMH über die
+ * Iterationen summiert, wird hier über Iterationen, Threads und Forks das Maximum gebildet.
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar UmfuelllistenBenchmark \
+ *     -prof second.PeakVisitedProfiler
+ * </pre>
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+public final class PeakVisitedProfiler implements InternalProfiler {
+  private static final AtomicLong peak = new AtomicLong();
+
+  // vom Benchmark nach jeder Suche aufgerufen, auch ohne den Profiler
+  static void record(final long visited) {
+    PeakVisitedProfiler.peak.accumulateAndGet(visited, Math::max);
+  }
+
+  @Override
+  public String getDescription() {
+    return "Größte Besucht-Menge einer Iteration";
+  }
+
+  @Override
+  public void beforeIteration(
+      final BenchmarkParams benchmarkParams, final IterationParams iterationParams) {
+    PeakVisitedProfiler.peak.set(0);
+  }
+
+  @Override
+  public Collection<? extends Result> afterIteration(
+      final BenchmarkParams benchmarkParams,
+      final IterationParams iterationParams,
+      final IterationResult result) {
+    return List.of(
+        new ScalarResult(
+            "peakVisited", PeakVisitedProfiler.peak.get(), "Zustände", AggregationPolicy.MAX));
+  }
+}
@@ -0,0 +1,75 @@
+package second;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Durchsatz der Suchverfahren aus {@link PourNetwork} für kleine, mittlere und pathologische
+ * Kapazitäten. Die Allokationsrate liefert {@code -prof gc}, die größte Besucht-Menge liefert
+ * {@link PeakVisitedProfiler} (bei allen Verfahren die Größe am Ende einer Suche, da die Menge
+ * nur wächst).
+ *
+ * <pre>
+ * java -jar benchmarks/target/benchmarks.jar UmfuelllistenBenchmark -prof gc \
+ *     -prof second.PeakVisitedProfiler
+ * </pre>
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class UmfuelllistenBenchmark {
+  // JMH trennt Parameterwerte an Kommas, deshalb durch Leerzeichen getrennt
+  @Param({"10 7 5 4 3", "60 37 25 14 9", "200 131 97 53 29"})
+  public String capacities;
+
+  @Param({"tree", "packed", "bitmap", "parallel"})
+  public String mode;
+
+  private PourNetwork network;
+  private PackedStateCodec packedCodec;
+  private MixedRadixStateCodec mixedRadixCodec;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final var values = this.capacities.split(" ");
+    final var capacities = new int[values.length];
+    for (var i = 0; i < values.length; ++i) {
+      capacities[i] = Integer.parseInt(values[i]);
+    }
+    this.network = PourNetwork.umfuelllisten(capacities);
+    this.packedCodec = this.network.packedCodec();
+    this.mixedRadixCodec = this.network.mixedRadixCodec();
+  }
+
+  @Benchmark
+  public long search() {
+    final var stats = new SearchStats();
+    final long visited = switch (this.mode) {
+      case "tree" -> this.network.reachableTree(stats).size();
+      case "packed" -> this.network.reachablePacked(this.packedCodec, stats).length;
+      case "bitmap" -> this.network.reachableBitmap(this.mixedRadixCodec, false, stats).count();
+      case "parallel" -> this.network.reachableParallel(
+          this.packedCodec, Runtime.getRuntime().availableProcessors(), stats).length;
+      default -> throw new IllegalArgumentException("Unbekannter Modus: " + this.mode);
+    };
+    PeakVisitedProfiler.record(visited);
+    return visited;
+  }
+}
@@ -0,0 +1,429 @@
+package second;
+
+import java.io.PrintStream;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Compares the public API of two versions of a library, e.g. two jars, class by class and member
+ * by member, and reports what was added, removed or changed:
+ *
+ * <pre>
+ * + class com.example.NewClass
+ * - class com.example.OldClass
+ * ~ class com.example.Changed
+ *     ~ public class -&gt; public final class
+ *     - implements java.io.Serializable
+ *     + field public static final int LIMIT
+ *     - method public void close()
+ *     ~ method public int size(): return type int -&gt; long
+ *     ~ method public void run(): modifiers public -&gt; public synchronized
+ *     ~ method public void stop(): + annotation @java.lang.Deprecated(forRemoval=false, since="")
+ * </pre>
+ *
+ * <p>Classes are matched by binary name, fields by name and type, constructors by parameter types
+ * and methods by name, parameter types and return type, each through a hash index of the old
+ * version. Members left over are matched once more without the type, so a changed field or return
+ * type shows up as a change. A member whose parameter types changed is reported as removed and
+ * added. Within a class fields come before constructors and methods, each in the order {@link
+ * Inspector} renders them; classes come in sorted order.
+ *
+ * <p>Both versions are read with their own {@link ClassFileBackend} by default, so nothing is
+ * loaded and the two versions cannot clash. The classes are compared on a pool of worker threads.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+final class ApiDiff {
+
+  private final ClassSource oldSource;
+
+  private final ClassSource newSource;
+
+  // null to use reflection
+  private final ClassFileBackend oldBackend;
+  private final ClassFileBackend newBackend;
+
+  private final int workers;
+
+  // a field, constructor or method, reduced to what is compared
+  private record Member(
+      String kind,
+      String signature,
+      String key,
+      int modifiers,
+      String name,
+      String type,
+      String[] parameters,
+      List<String> annotations) {}
+
+  // a line of the report about a member
+  private record Line(Member member, String text) {}
+
+  ApiDiff(
+      final ClassSource oldSource,
+      final ClassSource newSource,
+      final int workers,
+      final boolean classFiles) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Invalid number of workers: " + workers);
+    }
+    this.oldSource = oldSource;
+    this.newSource = newSource;
+    this.workers = workers;
+    this.oldBackend = classFiles ? new ClassFileBackend(oldSource) : null;
+    this.newBackend = classFiles ? new ClassFileBackend(newSource) : null;
+  }
+
+  // write the report and return the number of classes that differ
+  int run(final PrintStream out) throws InterruptedException {
+    final var oldNames = this.oldSource.classNames();
+    final var newNames = this.newSource.classNames();
+    final var oldIndex = new HashSet<>(oldNames);
+    final var newIndex = new HashSet<>(newNames);
+
+    // all class names in sorted order, both lists are sorted
+    final var names = new ArrayList<String>(oldNames.size() + newNames.size());
+    for (int i = 0, j = 0; i < oldNames.size() || j < newNames.size(); ) {
+      final var cmp =
+          i == oldNames.size()
+              ? 1
+              : j == newNames.size() ? -1 : oldNames.get(i).compareTo(newNames.get(j));
+      names.add(cmp <= 0 ? oldNames.get(i) : newNames.get(j));
+      i += cmp <= 0 ? 1 : 0;
+      j += cmp >= 0 ? 1 : 0;
+    }
+
+    final var pool = Executors.newFixedThreadPool(this.workers);
+    try {
+      final var results = new ArrayList<Future<List<String>>>(names.size());
+      for (final var name : names) {
+        if (oldIndex.contains(name) && newIndex.contains(name)) {
+          results.add(pool.submit(() -> this.compare(name)));
+        } else {
+          results.add(null);
+        }
+      }
+
+      var differences = 0;
+      for (var i = 0; i < names.size(); ++i) {
+        final var name = names.get(i);
+        if (results.get(i) == null) {
+          ++differences;
+          out.println((oldIndex.contains(name) ? "- class " : "+ class ") + name);
+          continue;
+        }
+        try {
+          final var lines = results.get(i).get();
+          if (!lines.isEmpty()) {
+            ++differences;
+            out.println("~ class " + name);
+            for (final var line : lines) {
+              out.println("    " + line);
+            }
+          }
+        } catch (final ExecutionException e) {
+          out.println("Failed: " + name + " (" + e.getCause() + ")");
+        }
+      }
+      return differences;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  // the differences of a class that exists in both versions, empty if there are none
+  private List<String> compare(final String className) throws Exception {
+    final var before = this.model(this.oldSource, this.oldBackend, className);
+    final var after = this.model(this.newSource, this.newBackend, className);
+    final var lines = new ArrayList<String>();
+
+    final var head = ApiDiff.head(before);
+    if (!head.equals(ApiDiff.head(after))) {
+      lines.add("~ " + head + " -> " + ApiDiff.head(after));
+    }
+    final var superBefore = before.superclass() == null ? null : before.superclass().name();
+    final var superAfter = after.superclass() == null ? null : after.superclass().name();
+    if (!Objects.equals(superBefore, superAfter)) {
+      lines.add("~ extends " + superBefore + " -> " + superAfter);
+    }
+    ApiDiff.interfaces(before.interfaces(), after.interfaces(), "- implements ", lines);
+    ApiDiff.interfaces(after.interfaces(), before.interfaces(), "+ implements ", lines);
+
+    ApiDiff.members(ApiDiff.fields(before), ApiDiff.fields(after), lines);
+    ApiDiff.members(
+        ApiDiff.executables("constructor", before.constructors()),
+        ApiDiff.executables("constructor", after.constructors()),
+        lines);
+    ApiDiff.members(
+        ApiDiff.executables("method", before.methods()),
+        ApiDiff.executables("method", after.methods()),
+        lines);
+    return lines;
+  }
+
+  private ClassModel model(
+      final ClassSource source, final ClassFileBackend backend, final String className)
+      throws Exception {
+    return backend == null ? Inspector.model(source.load(className)) : backend.model(className);
+  }
+
+  private static String head(final ClassModel model) {
+    final var modifiers = Modifier.toString(model.modifiers());
+    return modifiers.isEmpty() ? model.kind() : modifiers + ' ' + model.kind();
+  }
+
+  // the interfaces of one version that the other one does not have
+  private static void interfaces(
+      final List<ClassModel.Type> interfaces,
+      final List<ClassModel.Type> others,
+      final String prefix,
+      final List<String> lines) {
+    final var names = new HashSet<String>();
+    for (final var other : others) {
+      names.add(other.name());
+    }
+    for (final var interf : interfaces) {
+      if (!names.contains(interf.name())) {
+        lines.add(prefix + interf.name());
+      }
+    }
+  }
+
+  // added, removed and changed members, in Inspector order
+  private static void members(
+      final List<Member> before, final List<Member> after, final List<String> lines) {
+    // members with the same signature and type first, bridge methods differ only in the latter
+    final var index = new HashMap<String, Member>(before.size() * 2);
+    for (final var member : before) {
+      index.putIfAbsent(member.key(), member);
+    }
+    final var matches = new IdentityHashMap<Member, Member>();
+    for (final var member : after) {
+      final var old = index.remove(member.key());
+      if (old != null) {
+        matches.put(member, old);
+      }
+    }
+
+    // then the remaining ones by signature alone, their type changed
+    final var signatures = new HashMap<String, Member>();
+    for (final var member : before) {
+      if (index.get(member.key()) == member) {
+        signatures.putIfAbsent(member.signature(), member);
+      }
+    }
+    for (final var member : after) {
+      if (!matches.containsKey(member)) {
+        final var old = signatures.remove(member.signature());
+        if (old != null) {
+          index.remove(old.key());
+          matches.put(member, old);
+        }
+      }
+    }
+
+    final var changed = new ArrayList<Line>();
+    for (final var member : after) {
+      final var old = matches.get(member);
+      if (old == null) {
+        changed.add(new Line(member, "+ " + ApiDiff.describe(member)));
+        continue;
+      }
+
+      final var changes = new ArrayList<String>();
+      if (old.modifiers() != member.modifiers()) {
+        changes.add(
+            "modifiers "
+                + ApiDiff.modifiers(old.modifiers())
+                + " -> "
+                + ApiDiff.modifiers(member.modifiers()));
+      }
+      if (!Objects.equals(old.type(), member.type())) {
+        changes.add(
+            (member.kind().equals("field") ? "type " : "return type ")
+                + ApiDiff.typeName(old.type())
+                + " -> "
+                + ApiDiff.typeName(member.type()));
+      }
+      for (final var annotation : old.annotations()) {
+        if (!member.annotations().contains(annotation)) {
+          changes.add("- annotation " + annotation);
+        }
+      }
+      for (final var annotation : member.annotations()) {
+        if (!old.annotations().contains(annotation)) {
+          changes.add("+ annotation " + annotation);
+        }
+      }
+      if (!changes.isEmpty()) {
+        final var line = "~ " + ApiDiff.describe(member) + ": " + String.join(", ", changes);
+        changed.add(new Line(member, line));
+      }
+    }
+
+    // what is left in the index is gone
+    for (final var member : before) {
+      if (index.get(member.key()) == member) {
+        changed.add(new Line(member, "- " + ApiDiff.describe(member)));
+      }
+    }
+
+    // List.sort is stable, so repeated members keep their order
+    changed.sort((a, b) -> ApiDiff.order(a.member(), b.member()));
+    for (final var line : changed) {
+      lines.add(line.text());
+    }
+  }
+
+  // the order Inspector renders members in: static first, then by modifiers, name, field or
+  // return type, number of parameters and parameter types
+  private static int order(final Member a, final Member b) {
+    final var aStatic = Modifier.isStatic(a.modifiers());
+    final var bStatic = Modifier.isStatic(b.modifiers());
+    if (aStatic != bStatic) {
+      return Boolean.compare(bStatic, aStatic);
+    }
+    if (a.modifiers() != b.modifiers()) {
+      return Integer.compare(a.modifiers(), b.modifiers());
+    }
+    var cmp = a.name().compareTo(b.name());
+    if (cmp != 0) {
+      return cmp;
+    }
+    // constructors have no type, fields no parameters
+    if (a.type() != null) {
+      cmp = a.type().compareTo(b.type());
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    if (a.parameters() == null) {
+      return 0;
+    }
+    if (a.parameters().length != b.parameters().length) {
+      return Integer.compare(a.parameters().length, b.parameters().length);
+    }
+    for (var i = 0; i < a.parameters().length; ++i) {
+      cmp = a.parameters()[i].compareTo(b.parameters()[i]);
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  private static String modifiers(final int modifiers) {
+    final var string = Modifier.toString(modifiers);
+    return string.isEmpty() ? "none" : string;
+  }
+
+  private static List<Member> fields(final ClassModel model) {
+    final var members = new ArrayList<Member>(model.fields().size());
+    final var seen = new HashMap<String, Integer>();
+    for (final var field : model.fields()) {
+      members.add(
+          new Member(
+              "field",
+              field.name(),
+              ApiDiff.unique(field.name() + ':' + field.type().name(), seen),
+              field.modifiers(),
+              field.name(),
+              field.type().name(),
+              null,
+              List.of()));
+    }
+    return members;
+  }
+
+  private static List<Member> executables(
+      final String kind, final List<ClassModel.Executable> executables) {
+    final var members = new ArrayList<Member>(executables.size());
+    final var seen = new HashMap<String, Integer>();
+    for (final var executable : executables) {
+      final var parameters = new String[executable.parameters().size()];
+      final var signature = new StringBuilder(executable.name()).append('(');
+      for (var i = 0; i < parameters.length; ++i) {
+        parameters[i] = executable.parameters().get(i).type().name();
+        signature.append(i > 0 ? "," : "").append(parameters[i]);
+      }
+      final var annotations = new ArrayList<String>(executable.annotations().size());
+      for (final var annotation : executable.annotations()) {
+        annotations.add(annotation.text());
+      }
+      final var returnType = executable.returnType();
+      final var withParameters = signature.append(')').toString();
+      members.add(
+          new Member(
+              kind,
+              withParameters,
+              ApiDiff.unique(
+                  returnType == null ? withParameters : withParameters + ':' + returnType.name(),
+                  seen),
+              executable.modifiers(),
+              executable.name(),
+              returnType == null ? null : returnType.name(),
+              parameters,
+              annotations));
+    }
+    return members;
+  }
+
+  // the same field can be inherited from several interfaces, repetitions are numbered so they
+  // are matched in order
+  private static String unique(final String key, final Map<String, Integer> seen) {
+    final var count = seen.merge(key, 1, Integer::sum);
+    return count == 1 ? key : key + '#' + count;
+  }
+
+  // like "method public static int max(int, int)"
+  private static String describe(final Member member) {
+    final var sb = new StringBuilder(member.kind()).append(' ');
+    final var modifiers = Modifier.toString(member.modifiers());
+    if (!modifiers.isEmpty()) {
+      sb.append(modifiers).append(' ');
+    }
+    if (member.type() != null) {
+      sb.append(ApiDiff.typeName(member.type())).append(' ');
+    }
+    sb.append(member.name());
+    if (member.parameters() != null) {
+      sb.append('(');
+      for (var i = 0; i < member.parameters().length; ++i) {
+        sb.append(i > 0 ? ", " : "").append(ApiDiff.typeName(member.parameters()[i]));
+      }
+      sb.append(')');
+    }
+    return sb.toString();
+  }
+
+  // "[Ljava.lang.String;" as "java.lang.String[]", like Class.getTypeName()
+  private static String typeName(final String name) {
+    if (name == null || !name.startsWith("[")) {
+      return name;
+    }
+    final var dimensions = name.lastIndexOf('[') + 1;
+    final var component =
+        switch (name.charAt(dimensions)) {
+          case 'Z' -> "boolean";
+          case 'B' -> "byte";
+          case 'C' -> "char";
+          case 'S' -> "short";
+          case 'I' -> "int";
+          case 'J' -> "long";
+          case 'F' -> "float";
+          case 'D' -> "double";
+          default -> name.substring(dimensions + 1, name.length() - 1);
+        };
+    return component + "[]".repeat(dimensions);
+  }
+}
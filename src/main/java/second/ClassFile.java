@@ -0,0 +1,261 @@
+package second;
+
+/**
+ * The parts of a class file that {@link ClassFileBackend} needs, read straight from the bytes
+ * without loading the class. Strings from the constant pool are only decoded when asked for;
+ * annotations stay in the byte array and are read by offset.
+ *
+ * <p>A truncated or corrupt class file is reported with a {@link ClassFormatError}, like the JVM
+ * does when it loads one.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+final class ClassFile {
+
+  static final int ACC_SUPER = 0x0020;
+  static final int ACC_MANDATED = 0x8000;
+  static final int ACC_SYNTHETIC = 0x1000;
+  static final int ACC_ANNOTATION = 0x2000;
+  static final int ACC_ENUM = 0x4000;
+
+  private static final int MAGIC = 0xCAFEBABE;
+
+  private final byte[] bytes;
+
+  // offset of every constant pool entry, right behind its tag
+  private final int[] constants;
+
+  // decoded Utf8 entries
+  private final String[] strings;
+
+  final int access;
+
+  // binary names like "java.util.Map$Entry"
+  final String name;
+  final String superName;
+  final String[] interfaces;
+
+  // generic signature of the class, null if it has none
+  String signature;
+
+  // the InnerClasses entry for the class itself, innerAccess is -1 if there is none
+  int innerAccess = -1;
+  String innerName;
+  String outerName;
+
+  // declared inside a method or initializer
+  boolean local;
+
+  final Member[] fields;
+  final Member[] methods;
+
+  /** A field or method. */
+  static final class Member {
+    final int access;
+    final String name;
+    final String descriptor;
+
+    // generic signature, null if it has none
+    String signature;
+
+    // from the MethodParameters attribute, null if there is none
+    String[] parameterNames;
+    int[] parameterAccess;
+
+    // offsets of the RuntimeVisibleAnnotations and AnnotationDefault contents, -1 if missing
+    int annotations = -1;
+    int annotationDefault = -1;
+
+    Member(final int access, final String name, final String descriptor) {
+      this.access = access;
+      this.name = name;
+      this.descriptor = descriptor;
+    }
+  }
+
+  ClassFile(final byte[] bytes) {
+    this.bytes = bytes;
+    if (this.u4(0) != ClassFile.MAGIC) {
+      throw new ClassFormatError("Not a class file");
+    }
+
+    // constant pool
+    final var count = this.u2(8);
+    this.constants = new int[count];
+    this.strings = new String[count];
+    var offset = 10;
+    for (var i = 1; i < count; ++i) {
+      final var tag = this.u1(offset);
+      this.constants[i] = offset + 1;
+      offset +=
+          switch (tag) {
+            case 1 -> 3 + this.u2(offset + 1);
+            case 7, 8, 16, 19, 20 -> 3;
+            case 15 -> 4;
+            case 3, 4, 9, 10, 11, 12, 17, 18 -> 5;
+            case 5, 6 -> 9;
+            default -> throw new ClassFormatError("Unknown constant pool tag: " + tag);
+          };
+      // long and double take two entries
+      if (tag == 5 || tag == 6) {
+        ++i;
+      }
+    }
+
+    this.access = this.u2(offset);
+    this.name = this.className(this.u2(offset + 2));
+    this.superName = this.className(this.u2(offset + 4));
+    this.interfaces = new String[this.u2(offset + 6)];
+    offset += 8;
+    for (var i = 0; i < this.interfaces.length; ++i, offset += 2) {
+      this.interfaces[i] = this.className(this.u2(offset));
+    }
+
+    this.fields = new Member[this.u2(offset)];
+    offset = this.members(offset + 2, this.fields);
+    this.methods = new Member[this.u2(offset)];
+    offset = this.members(offset + 2, this.methods);
+
+    // class attributes
+    final var attributes = this.u2(offset);
+    offset += 2;
+    for (var i = 0; i < attributes; ++i) {
+      final var attribute = this.utf8(this.u2(offset));
+      final var start = offset + 6;
+      switch (attribute) {
+        case "Signature" -> this.signature = this.utf8(this.u2(start));
+        case "EnclosingMethod" -> this.local = true;
+        case "InnerClasses" -> this.innerClasses(start);
+        default -> {}
+      }
+      offset = start + this.u4(offset + 2);
+    }
+  }
+
+  // read fields or methods, returns the offset behind them
+  private int members(final int start, final Member[] members) {
+    var offset = start;
+    for (var i = 0; i < members.length; ++i) {
+      final var member =
+          new Member(
+              this.u2(offset), this.utf8(this.u2(offset + 2)), this.utf8(this.u2(offset + 4)));
+      final var attributes = this.u2(offset + 6);
+      offset += 8;
+      for (var j = 0; j < attributes; ++j) {
+        final var attribute = this.utf8(this.u2(offset));
+        final var content = offset + 6;
+        switch (attribute) {
+          case "Signature" -> member.signature = this.utf8(this.u2(content));
+          case "RuntimeVisibleAnnotations" -> member.annotations = content;
+          case "AnnotationDefault" -> member.annotationDefault = content;
+          case "MethodParameters" -> {
+            member.parameterNames = new String[this.u1(content)];
+            member.parameterAccess = new int[member.parameterNames.length];
+            for (var k = 0; k < member.parameterNames.length; ++k) {
+              final var index = this.u2(content + 1 + k * 4);
+              member.parameterNames[k] = index == 0 ? null : this.utf8(index);
+              member.parameterAccess[k] = this.u2(content + 3 + k * 4);
+            }
+          }
+          default -> {}
+        }
+        offset = content + this.u4(offset + 2);
+      }
+      members[i] = member;
+    }
+    return offset;
+  }
+
+  // find the entry describing this class itself
+  private void innerClasses(final int start) {
+    final var count = this.u2(start);
+    for (var i = 0; i < count; ++i) {
+      final var entry = start + 2 + i * 8;
+      final var inner = this.u2(entry);
+      if (inner != 0 && this.name.equals(this.className(inner))) {
+        final var outer = this.u2(entry + 2);
+        final var innerName = this.u2(entry + 4);
+        this.outerName = outer == 0 ? null : this.className(outer);
+        this.innerName = innerName == 0 ? null : this.utf8(innerName);
+        this.innerAccess = this.u2(entry + 6);
+        return;
+      }
+    }
+  }
+
+  int u1(final int offset) {
+    this.check(offset, 1);
+    return this.bytes[offset] & 0xFF;
+  }
+
+  int u2(final int offset) {
+    this.check(offset, 2);
+    return (this.bytes[offset] & 0xFF) << 8 | this.bytes[offset + 1] & 0xFF;
+  }
+
+  int u4(final int offset) {
+    return this.u2(offset) << 16 | this.u2(offset + 2);
+  }
+
+  // a read past the end of the bytes, the class file is truncated or an offset in it is wrong
+  private void check(final int offset, final int length) {
+    if (offset < 0 || offset > this.bytes.length - length) {
+      throw new ClassFormatError("Truncated class file at offset " + offset);
+    }
+  }
+
+  // CONSTANT_Integer, also used for byte, char, short and boolean
+  int intConstant(final int index) {
+    return this.u4(this.constants[index]);
+  }
+
+  long longConstant(final int index) {
+    return (long) this.u4(this.constants[index]) << 32
+        | this.u4(this.constants[index] + 4) & 0xFFFFFFFFL;
+  }
+
+  float floatConstant(final int index) {
+    return Float.intBitsToFloat(this.intConstant(index));
+  }
+
+  double doubleConstant(final int index) {
+    return Double.longBitsToDouble(this.longConstant(index));
+  }
+
+  // binary name of a CONSTANT_Class, null for index 0
+  String className(final int index) {
+    if (index == 0) {
+      return null;
+    }
+    return this.utf8(this.u2(this.constants[index])).replace('/', '.');
+  }
+
+  // decode a CONSTANT_Utf8 in the modified UTF-8 of class files
+  String utf8(final int index) {
+    var string = this.strings[index];
+    if (string != null) {
+      return string;
+    }
+
+    final var start = this.constants[index] + 2;
+    final var end = start + this.u2(this.constants[index]);
+    final var chars = new char[end - start];
+    var length = 0;
+    this.check(start, end - start);
+    for (var i = start; i < end; ) {
+      final var b = this.bytes[i++] & 0xFF;
+      if (b < 0x80) {
+        chars[length++] = (char) b;
+      } else if (b < 0xE0) {
+        chars[length++] = (char) ((b & 0x1F) << 6 | this.u1(i++) & 0x3F);
+      } else {
+        chars[length++] =
+            (char) ((b & 0x0F) << 12 | (this.u1(i++) & 0x3F) << 6 | this.u1(i++) & 0x3F);
+      }
+    }
+    string = new String(chars, 0, length);
+    this.strings[index] = string;
+    return string;
+  }
+}
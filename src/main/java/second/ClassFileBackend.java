@@ -0,0 +1,999 @@
+package second;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds the {@link ClassModel} of a class from class files instead of reflection, so nothing is
+ * loaded, no static initializer runs and missing dependencies only cost the parts that need them
+ * (a missing supertype contributes no members, a missing annotation type is left out).
+ *
+ * <p>The model is the same as the one {@link Inspector#model(Class)} builds: public fields and
+ * methods including inherited ones, with overridden methods removed like {@link
+ * Class#getMethods()} does, all declared constructors, and parameter names from the {@code
+ * MethodParameters} attribute or {@code argN}. Annotations are rendered like their {@code
+ * toString()}.
+ *
+ * <p>With {@code generics} types are rendered from the generic signatures the way {@link
+ * Inspector#type(java.lang.reflect.Type, ReflectionCache)} renders the generic types of
+ * reflection, e.g. {@code Map<K, List<? extends V>>}, and classes, constructors and methods get
+ * the type parameters declared at the start of their signature.
+ *
+ * <p>Parsed class files and referenced types are shared between calls and threads, so one backend
+ * should be used for a whole batch.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+final class ClassFileBackend {
+
+  // what Class.getModifiers(), Field.getModifiers() and Method.getModifiers() keep
+  private static final int CLASS_MODIFIERS = 0x7611 & ~ClassFile.ACC_SUPER;
+  private static final int INNER_CLASS_MODIFIERS = 0x761F & ~ClassFile.ACC_SUPER;
+  private static final int FIELD_MODIFIERS = 0x50DF;
+  private static final int METHOD_MODIFIERS = 0x1DFF;
+
+  private static final String OBJECT = "Ljava/lang/Object;";
+
+  // same order as Inspector.fieldComparator
+  private static final Comparator<ClassModel.Field> fieldOrder =
+      (a, b) -> {
+        final var memberSorting =
+            ClassFileBackend.memberOrder(a.modifiers(), a.name(), b.modifiers(), b.name());
+        if (memberSorting != 0) {
+          return memberSorting;
+        }
+        return a.type().name().compareTo(b.type().name());
+      };
+
+  // same order as Inspector.constructorComparator
+  private static final Comparator<ClassModel.Executable> constructorOrder =
+      (a, b) -> {
+        if (a.modifiers() != b.modifiers()) {
+          return Integer.compare(a.modifiers(), b.modifiers());
+        }
+        return ClassFileBackend.parameterOrder(a.parameters(), b.parameters());
+      };
+
+  // same order as Inspector.methodComparator
+  private static final Comparator<ClassModel.Executable> methodOrder =
+      (a, b) -> {
+        final var memberSorting =
+            ClassFileBackend.memberOrder(a.modifiers(), a.name(), b.modifiers(), b.name());
+        if (memberSorting != 0) {
+          return memberSorting;
+        }
+        final var cmp = a.returnType().name().compareTo(b.returnType().name());
+        if (cmp != 0) {
+          return cmp;
+        }
+        return ClassFileBackend.parameterOrder(a.parameters(), b.parameters());
+      };
+
+  private final ClassSource source;
+
+  // parsed class files by binary name, empty for classes that do not exist
+  private final Map<String, Optional<ClassFile>> classFiles = new ConcurrentHashMap<>();
+
+  // referenced types by descriptor
+  private final Map<String, ClassModel.Type> types = new ConcurrentHashMap<>();
+
+  // rendered generic types by descriptor and signature
+  private final Map<String, ClassModel.Type> genericTypes = new ConcurrentHashMap<>();
+
+  private final boolean generics;
+
+  // every class is assignable to these, including itself
+  private final Map<String, Set<String>> supertypes = new ConcurrentHashMap<>();
+
+  private final Map<String, List<Declared>> publicFields = new ConcurrentHashMap<>();
+
+  private final Map<String, List<Declared>> publicMethods = new ConcurrentHashMap<>();
+
+  private final Map<String, AnnotationType> annotationTypes = new ConcurrentHashMap<>();
+
+  // a field or method together with the class file that declares it
+  private record Declared(ClassFile owner, ClassFile.Member member) {}
+
+  // members of an annotation type and their default values, rendered
+  private record AnnotationType(Set<String> members, Map<String, String> defaults) {}
+
+  ClassFileBackend(final ClassSource source) {
+    this(source, false);
+  }
+
+  ClassFileBackend(final ClassSource source, final boolean generics) {
+    this.source = source;
+    this.generics = generics;
+  }
+
+  // number of class files read and kept so far
+  int classFiles() {
+    return this.classFiles.size();
+  }
+
+  // the model of a class, read from its class file
+  ClassModel model(final String className) throws ClassNotFoundException, IOException {
+    final var file = this.classFile(className);
+    if (file == null) {
+      throw new ClassNotFoundException(className);
+    }
+
+    final var fields = new ArrayList<ClassModel.Field>();
+    for (final var field : this.publicFields(file)) {
+      fields.add(
+          new ClassModel.Field(
+              field.member().access & ClassFileBackend.FIELD_MODIFIERS,
+              field.member().name,
+              this.type(field.member().descriptor, field.member().signature)));
+    }
+    fields.sort(ClassFileBackend.fieldOrder);
+
+    final var constructors = new ArrayList<ClassModel.Executable>();
+    for (final var method : file.methods) {
+      if (method.name.equals("<init>")) {
+        constructors.add(
+            new ClassModel.Executable(
+                method.access & ClassFileBackend.METHOD_MODIFIERS,
+                this.typeParameters(method.signature),
+                className,
+                null,
+                this.parameters(method),
+                List.of()));
+      }
+    }
+    constructors.sort(ClassFileBackend.constructorOrder);
+
+    final var methods = new ArrayList<ClassModel.Executable>();
+    for (final var method : this.publicMethods(file)) {
+      final var descriptor = method.member().descriptor;
+      final var signature = method.member().signature;
+      methods.add(
+          new ClassModel.Executable(
+              method.member().access & ClassFileBackend.METHOD_MODIFIERS,
+              this.typeParameters(signature),
+              method.member().name,
+              this.type(
+                  descriptor.substring(descriptor.indexOf(')') + 1),
+                  signature == null ? null : signature.substring(signature.indexOf(')') + 1)),
+              this.parameters(method.member()),
+              this.annotations(method.owner(), method.member().annotations)));
+    }
+    methods.sort(ClassFileBackend.methodOrder);
+
+    // nested classes take their modifiers from the InnerClasses attribute
+    final var modifiers =
+        file.innerAccess >= 0
+            ? file.innerAccess & ClassFileBackend.INNER_CLASS_MODIFIERS
+            : file.access & ClassFileBackend.CLASS_MODIFIERS;
+    final String kind;
+    if (Modifier.isInterface(modifiers)) {
+      kind = "interface";
+    } else if ((modifiers & ClassFile.ACC_ENUM) != 0 && "java.lang.Enum".equals(file.superName)) {
+      kind = "enum";
+    } else if ((modifiers & ClassFile.ACC_ANNOTATION) != 0) {
+      kind = "annotation";
+    } else {
+      kind = "class";
+    }
+
+    // the class signature holds the type parameters, the superclass and the interfaces
+    final var supertypes = this.generics ? ClassFileBackend.supertypeSignatures(file) : null;
+    final var interfaces = new ArrayList<ClassModel.Type>();
+    for (var i = 0; i < file.interfaces.length; ++i) {
+      interfaces.add(
+          supertypes == null
+              ? this.classType(file.interfaces[i])
+              : this.type(ClassFileBackend.descriptor(file.interfaces[i]), supertypes.get(i + 1)));
+    }
+    // like Class.getSuperclass(), interfaces have none
+    final var superclass =
+        file.superName == null || Modifier.isInterface(file.access)
+            ? null
+            : supertypes == null
+                ? this.classType(file.superName)
+                : this.type(ClassFileBackend.descriptor(file.superName), supertypes.get(0));
+
+    return new ClassModel(
+        className,
+        ClassFileBackend.packageName(className),
+        modifiers,
+        kind,
+        ClassFileBackend.simpleName(className, file),
+        this.typeParameters(file.signature),
+        interfaces,
+        superclass,
+        fields,
+        constructors,
+        methods);
+  }
+
+  // static first, then by modifiers, then by name
+  private static int memberOrder(
+      final int aMod, final String aName, final int bMod, final String bName) {
+    final var aStatic = Modifier.isStatic(aMod);
+    final var bStatic = Modifier.isStatic(bMod);
+    if (aStatic != bStatic) {
+      return Boolean.compare(bStatic, aStatic);
+    }
+    if (aMod != bMod) {
+      return Integer.compare(aMod, bMod);
+    }
+    return aName.compareTo(bName);
+  }
+
+  // by number of parameters, then by parameter types
+  private static int parameterOrder(
+      final List<ClassModel.Parameter> a, final List<ClassModel.Parameter> b) {
+    if (a.size() != b.size()) {
+      return Integer.compare(a.size(), b.size());
+    }
+    for (var i = 0; i < a.size(); ++i) {
+      final var cmp = a.get(i).type().name().compareTo(b.get(i).type().name());
+      if (cmp != 0) {
+        return cmp;
+      }
+    }
+    return 0;
+  }
+
+  // the parsed class file, null if there is none
+  private ClassFile classFile(final String className) throws IOException {
+    var file = this.classFiles.get(className);
+    if (file == null) {
+      final var bytes = this.source.classFile(className);
+      file = bytes == null ? Optional.empty() : Optional.of(new ClassFile(bytes));
+      this.classFiles.put(className, file);
+    }
+    return file.orElse(null);
+  }
+
+  // like Class.getFields(): own, then from interfaces, then from the superclass
+  private List<Declared> publicFields(final ClassFile file) throws IOException {
+    var fields = this.publicFields.get(file.name);
+    if (fields != null) {
+      return fields;
+    }
+
+    final var result = new LinkedHashMap<String, Declared>();
+    for (final var field : file.fields) {
+      if (Modifier.isPublic(field.access)) {
+        final var key = file.name + ' ' + field.name + ' ' + field.descriptor;
+        result.put(key, new Declared(file, field));
+      }
+    }
+
+    final var supertypes = new ArrayList<>(List.of(file.interfaces));
+    if (file.superName != null && !Modifier.isInterface(file.access)) {
+      supertypes.add(file.superName);
+    }
+    for (final var supertype : supertypes) {
+      final var superFile = this.classFile(supertype);
+      if (superFile != null) {
+        for (final var field : this.publicFields(superFile)) {
+          result.putIfAbsent(
+              field.owner().name + ' ' + field.member().name + ' ' + field.member().descriptor,
+              field);
+        }
+      }
+    }
+
+    fields = List.copyOf(result.values());
+    this.publicFields.put(file.name, fields);
+    return fields;
+  }
+
+  // like Class.getMethods(): own, then from the superclass, then non-static ones from the
+  // interfaces, without the methods that are overridden by another one
+  private List<Declared> publicMethods(final ClassFile file) throws IOException {
+    var methods = this.publicMethods.get(file.name);
+    if (methods != null) {
+      return methods;
+    }
+
+    // by name and parameter types
+    final var result = new LinkedHashMap<String, List<Declared>>();
+    for (final var method : file.methods) {
+      if (Modifier.isPublic(method.access) && !method.name.startsWith("<")) {
+        this.merge(result, new Declared(file, method));
+      }
+    }
+
+    if (file.superName != null && !Modifier.isInterface(file.access)) {
+      final var superFile = this.classFile(file.superName);
+      if (superFile != null) {
+        for (final var method : this.publicMethods(superFile)) {
+          this.merge(result, method);
+        }
+      }
+    }
+
+    for (final var interf : file.interfaces) {
+      final var interfFile = this.classFile(interf);
+      if (interfFile != null) {
+        for (final var method : this.publicMethods(interfFile)) {
+          // static interface methods are not inherited
+          if (!Modifier.isStatic(method.member().access)) {
+            this.merge(result, method);
+          }
+        }
+      }
+    }
+
+    methods = new ArrayList<>();
+    for (final var list : result.values()) {
+      methods.addAll(list);
+    }
+    methods = List.copyOf(methods);
+    this.publicMethods.put(file.name, methods);
+    return methods;
+  }
+
+  // add a method unless an existing one overrides it, dropping the ones it overrides itself
+  private void merge(final Map<String, List<Declared>> methods, final Declared method)
+      throws IOException {
+    final var descriptor = method.member().descriptor;
+    final var end = descriptor.indexOf(')');
+    final var list =
+        methods.computeIfAbsent(
+            method.member().name + descriptor.substring(0, end + 1), key -> new ArrayList<>());
+    final var isInterface = Modifier.isInterface(method.owner().access);
+
+    for (final var iterator = list.iterator(); iterator.hasNext(); ) {
+      final var existing = iterator.next();
+      // only the same return type counts, the others are kept side by side
+      if (!existing.member().descriptor.equals(descriptor)) {
+        continue;
+      }
+
+      final var existingIsInterface = Modifier.isInterface(existing.owner().access);
+      if (isInterface == existingIsInterface) {
+        if (this.supertypes(existing.owner()).contains(method.owner().name)) {
+          return;
+        }
+        if (this.supertypes(method.owner()).contains(existing.owner().name)) {
+          iterator.remove();
+        }
+      } else if (isInterface) {
+        return;
+      } else {
+        iterator.remove();
+      }
+    }
+    list.add(method);
+  }
+
+  private Set<String> supertypes(final ClassFile file) throws IOException {
+    var supertypes = this.supertypes.get(file.name);
+    if (supertypes != null) {
+      return supertypes;
+    }
+
+    final var result = new HashSet<String>();
+    result.add(file.name);
+    final var direct = new ArrayList<>(List.of(file.interfaces));
+    if (file.superName != null) {
+      direct.add(file.superName);
+    }
+    for (final var supertype : direct) {
+      final var superFile = this.classFile(supertype);
+      if (superFile != null) {
+        result.addAll(this.supertypes(superFile));
+      } else {
+        result.add(supertype);
+      }
+    }
+
+    supertypes = Set.copyOf(result);
+    this.supertypes.put(file.name, supertypes);
+    return supertypes;
+  }
+
+  // parameter types from the descriptor, names from MethodParameters or argN like reflection
+  private List<ClassModel.Parameter> parameters(final ClassFile.Member method)
+      throws IOException {
+    final var descriptor = method.descriptor;
+    final var types = new ArrayList<ClassModel.Type>();
+    for (var i = 1; descriptor.charAt(i) != ')'; ) {
+      final var end = ClassFileBackend.endOfDescriptor(descriptor, i);
+      types.add(this.type(descriptor.substring(i, end)));
+      i = end;
+    }
+
+    final var names = method.parameterNames;
+    if (this.generics && method.signature != null) {
+      this.genericParameters(method, types);
+    }
+    final var parameters = new ArrayList<ClassModel.Parameter>(types.size());
+    for (var i = 0; i < types.size(); ++i) {
+      final var name =
+          names != null && names.length == types.size() && names[i] != null && !names[i].isEmpty()
+              ? names[i]
+              : "arg" + i;
+      parameters.add(new ClassModel.Parameter(types.get(i), name));
+    }
+    return parameters;
+  }
+
+  // replace the erased parameter types by generic ones like
+  // Executable.getAllGenericParameterTypes() does: synthetic and mandated parameters have no
+  // signature, without MethodParameters the signature is only used if it has all parameters
+  private void genericParameters(final ClassFile.Member method, final List<ClassModel.Type> types)
+      throws IOException {
+    final var signatures = new ArrayList<String>();
+    final var signature = method.signature;
+    var i = signature.charAt(0) == '<' ? ClassFileBackend.endOfTypeArguments(signature, 0) : 0;
+    for (++i; signature.charAt(i) != ')'; ) {
+      final var end = ClassFileBackend.endOfSignature(signature, i);
+      signatures.add(signature.substring(i, end));
+      i = end;
+    }
+
+    final var access = method.parameterAccess;
+    if (access != null && access.length == types.size()) {
+      for (int j = 0, k = 0; j < types.size() && k < signatures.size(); ++j) {
+        if ((access[j] & (ClassFile.ACC_SYNTHETIC | ClassFile.ACC_MANDATED)) == 0) {
+          types.set(j, this.genericType(types.get(j), signatures.get(k++)));
+        }
+      }
+    } else if (signatures.size() == types.size()) {
+      for (var j = 0; j < types.size(); ++j) {
+        types.set(j, this.genericType(types.get(j), signatures.get(j)));
+      }
+    }
+  }
+
+  // the superclass and interface signatures of a generic class, null if it is not generic
+  private static List<String> supertypeSignatures(final ClassFile file) {
+    final var signature = file.signature;
+    if (signature == null) {
+      return null;
+    }
+    final var signatures = new ArrayList<String>();
+    var i = signature.charAt(0) == '<' ? ClassFileBackend.endOfTypeArguments(signature, 0) : 0;
+    while (i < signature.length()) {
+      final var end = ClassFileBackend.endOfSignature(signature, i);
+      signatures.add(signature.substring(i, end));
+      i = end;
+    }
+    return signatures.size() == file.interfaces.length + 1 ? signatures : null;
+  }
+
+  // the type parameters at the start of a class or method signature like
+  // "<K:Ljava/lang/Object;V::Ljava/lang/Comparable<-TV;>;>", rendered like
+  // Inspector does with reflection; empty without generics
+  private List<ClassModel.Type> typeParameters(final String signature) throws IOException {
+    if (!this.generics || signature == null || signature.charAt(0) != '<') {
+      return List.of();
+    }
+    final var result = new ArrayList<ClassModel.Type>();
+    var i = 1;
+    while (signature.charAt(i) != '>') {
+      final var colon = signature.indexOf(':', i);
+      final var name = signature.substring(i, colon);
+
+      // the class bound may be empty, the interface bounds each start with another ':'
+      i = signature.charAt(colon + 1) == ':' ? colon + 1 : colon;
+      final var bounds = new ArrayList<Integer>();
+      while (signature.charAt(i) == ':') {
+        bounds.add(i + 1);
+        i = ClassFileBackend.endOfSignature(signature, i + 1);
+      }
+
+      final var rendered = new StringBuilder(name);
+      final var imports = new TreeSet<String>();
+      // a lone Object bound is left out like reflection's Object bound is
+      if (bounds.size() > 1 || !signature.startsWith(ClassFileBackend.OBJECT, bounds.get(0))) {
+        for (var j = 0; j < bounds.size(); ++j) {
+          rendered.append(j > 0 ? " & " : " extends ");
+          this.render(signature, bounds.get(j), rendered, imports);
+        }
+      }
+      result.add(new ClassModel.Type(name, rendered.toString(), List.copyOf(imports)));
+    }
+    return result;
+  }
+
+  // end of the field descriptor starting at start
+  private static int endOfDescriptor(final String descriptor, final int start) {
+    var i = start;
+    while (descriptor.charAt(i) == '[') {
+      ++i;
+    }
+    return descriptor.charAt(i) == 'L' ? descriptor.indexOf(';', i) + 1 : i + 1;
+  }
+
+  // the type of a field descriptor like "I", "[J" or "Ljava/lang/String;"
+  private ClassModel.Type type(final String descriptor) throws IOException {
+    var type = this.types.get(descriptor);
+    if (type != null) {
+      return type;
+    }
+
+    type =
+        switch (descriptor.charAt(0)) {
+          case '[' -> {
+            final var component = this.type(descriptor.substring(1));
+            yield new ClassModel.Type(
+                descriptor.replace('/', '.'), component.simpleName() + "[]", component.imports());
+          }
+          case 'L' -> this.classType(ClassFileBackend.className(descriptor));
+          default -> {
+            final var name = ClassFileBackend.primitive(descriptor.charAt(0));
+            yield new ClassModel.Type(name, name, List.of());
+          }
+        };
+    this.types.put(descriptor, type);
+    return type;
+  }
+
+  // the type of a descriptor, rendered from the signature if generics are shown and it has one
+  private ClassModel.Type type(final String descriptor, final String signature)
+      throws IOException {
+    final var type = this.type(descriptor);
+    return this.generics && signature != null ? this.genericType(type, signature) : type;
+  }
+
+  // the erased type rendered from a signature like "Ljava/util/Map<TK;[TV;>;", the erasure keeps
+  // the name used for sorting
+  private ClassModel.Type genericType(final ClassModel.Type erasure, final String signature)
+      throws IOException {
+    // type variables erase to different types in different classes
+    final var key = erasure.name() + ' ' + signature;
+    var type = this.genericTypes.get(key);
+    if (type != null) {
+      return type;
+    }
+
+    final var rendered = new StringBuilder();
+    final var imports = new TreeSet<String>();
+    this.render(signature, 0, rendered, imports);
+    type = new ClassModel.Type(erasure.name(), rendered.toString(), List.copyOf(imports));
+    this.genericTypes.put(key, type);
+    return type;
+  }
+
+  // render the type signature starting at start, return its end
+  private int render(
+      final String signature, final int start, final StringBuilder out, final Set<String> imports)
+      throws IOException {
+    switch (signature.charAt(start)) {
+      case '[' -> {
+        final var end = this.render(signature, start + 1, out, imports);
+        out.append("[]");
+        return end;
+      }
+      case 'T' -> {
+        final var end = signature.indexOf(';', start);
+        out.append(signature, start + 1, end);
+        return end + 1;
+      }
+      case 'L' -> {
+        // "Lpkg/Outer<TT;>.Inner<TU;>;" is pkg.Outer$Inner, only the arguments of the class
+        // itself are shown
+        final var name = new StringBuilder();
+        var arguments = -1;
+        var i = start + 1;
+        while (signature.charAt(i) != ';') {
+          final var c = signature.charAt(i);
+          if (c == '<') {
+            arguments = i;
+            i = ClassFileBackend.endOfTypeArguments(signature, i);
+            continue;
+          }
+          if (c == '.') {
+            arguments = -1;
+          }
+          name.append(c == '/' ? '.' : c == '.' ? '$' : c);
+          ++i;
+        }
+
+        final var type = this.classType(name.toString());
+        imports.addAll(type.imports());
+        out.append(type.simpleName());
+        if (arguments >= 0) {
+          this.renderArguments(signature, arguments, out, imports);
+        }
+        return i + 1;
+      }
+      default -> {
+        out.append(ClassFileBackend.primitive(signature.charAt(start)));
+        return start + 1;
+      }
+    }
+  }
+
+  // render the type arguments starting at the '<'
+  private void renderArguments(
+      final String signature, final int start, final StringBuilder out, final Set<String> imports)
+      throws IOException {
+    out.append('<');
+    var i = start + 1;
+    while (signature.charAt(i) != '>') {
+      if (i > start + 1) {
+        out.append(", ");
+      }
+      switch (signature.charAt(i)) {
+        case '*' -> {
+          out.append('?');
+          ++i;
+        }
+        case '+' -> {
+          // reflection has Object as upper bound of every wildcard, "? extends Object" is "?"
+          if (signature.startsWith(ClassFileBackend.OBJECT, i + 1)) {
+            out.append('?');
+            i += 1 + ClassFileBackend.OBJECT.length();
+          } else {
+            out.append("? extends ");
+            i = this.render(signature, i + 1, out, imports);
+          }
+        }
+        case '-' -> {
+          out.append("? super ");
+          i = this.render(signature, i + 1, out, imports);
+        }
+        default -> i = this.render(signature, i, out, imports);
+      }
+    }
+    out.append('>');
+  }
+
+  // end of the type parameters or arguments starting at the '<'
+  private static int endOfTypeArguments(final String signature, final int start) {
+    var depth = 0;
+    for (var i = start; ; ++i) {
+      final var c = signature.charAt(i);
+      if (c == '<') {
+        ++depth;
+      } else if (c == '>' && --depth == 0) {
+        return i + 1;
+      }
+    }
+  }
+
+  private static String descriptor(final String className) {
+    return 'L' + className.replace('.', '/') + ';';
+  }
+
+  // the type of a class or interface given by its binary name
+  private ClassModel.Type classType(final String className) throws IOException {
+    final var descriptor = 'L' + className.replace('.', '/') + ';';
+    var type = this.types.get(descriptor);
+    if (type != null) {
+      return type;
+    }
+
+    final var imports = new TreeSet<String>();
+    this.addImport(className, imports);
+    type =
+        new ClassModel.Type(
+            className,
+            ClassFileBackend.simpleName(className, this.classFile(className)),
+            List.copyOf(imports));
+    this.types.put(descriptor, type);
+    return type;
+  }
+
+  // the import for a class and for the plain class bounds of its type parameters
+  private void addImport(final String className, final Set<String> imports) throws IOException {
+    final var file = this.classFile(className);
+    final var simpleName = ClassFileBackend.simpleName(className, file);
+    if (!imports.add(ClassFileBackend.packageName(className) + '.' + simpleName)) {
+      return;
+    }
+    if (file == null || file.signature == null || !file.signature.startsWith("<")) {
+      return;
+    }
+
+    // <T:Ljava/lang/Object;U::Ljava/lang/Comparable<TU;>;>...
+    final var signature = file.signature;
+    var i = 1;
+    while (signature.charAt(i) != '>') {
+      i = signature.indexOf(':', i);
+      // the class bound may be empty, the interface bounds each start with another ':'
+      if (signature.charAt(i + 1) == ':') {
+        ++i;
+      }
+      while (signature.charAt(i) == ':') {
+        final var start = i + 1;
+        i = ClassFileBackend.endOfSignature(signature, start);
+        final var bound = signature.substring(start, i);
+        // parameterized types, type variables and arrays are not imported
+        if (bound.charAt(0) == 'L' && bound.indexOf('<') < 0) {
+          final var name = bound.substring(1, bound.length() - 1);
+          this.addImport(name.replace('.', '$').replace('/', '.'), imports);
+        }
+      }
+    }
+  }
+
+  // end of the reference type signature starting at start
+  private static int endOfSignature(final String signature, final int start) {
+    var i = start;
+    while (signature.charAt(i) == '[') {
+      ++i;
+    }
+    switch (signature.charAt(i)) {
+      case 'L' -> {
+        var depth = 0;
+        for (; ; ++i) {
+          final var c = signature.charAt(i);
+          if (c == '<') {
+            ++depth;
+          } else if (c == '>') {
+            --depth;
+          } else if (c == ';' && depth == 0) {
+            return i + 1;
+          }
+        }
+      }
+      case 'T' -> {
+        return signature.indexOf(';', i) + 1;
+      }
+      default -> {
+        return i + 1;
+      }
+    }
+  }
+
+  private static String primitive(final char descriptor) {
+    return switch (descriptor) {
+      case 'B' -> "byte";
+      case 'C' -> "char";
+      case 'D' -> "double";
+      case 'F' -> "float";
+      case 'I' -> "int";
+      case 'J' -> "long";
+      case 'S' -> "short";
+      case 'Z' -> "boolean";
+      case 'V' -> "void";
+      default -> throw new ClassFormatError("Invalid descriptor: " + descriptor);
+    };
+  }
+
+  private static String packageName(final String className) {
+    final var dot = className.lastIndexOf('.');
+    return dot < 0 ? "" : className.substring(0, dot);
+  }
+
+  // like Class.getSimpleName(), file may be null for a class that cannot be found
+  private static String simpleName(final String className, final ClassFile file) {
+    if (file != null && (file.outerName != null || file.local)) {
+      return file.innerName == null ? "" : file.innerName;
+    }
+    return className.substring(className.lastIndexOf('.') + 1);
+  }
+
+  // like Class.getCanonicalName()
+  private String canonicalName(final String className) throws IOException {
+    final var file = this.classFile(className);
+    if (file == null) {
+      return className.replace('$', '.');
+    }
+    if (file.local) {
+      return null;
+    }
+    if (file.outerName != null) {
+      final var outer = this.canonicalName(file.outerName);
+      return outer == null ? null : outer + '.' + file.innerName;
+    }
+    return className;
+  }
+
+  // the annotations in a RuntimeVisibleAnnotations attribute, without the ones whose type is
+  // missing
+  private List<ClassModel.Annotation> annotations(final ClassFile file, final int offset)
+      throws IOException {
+    if (offset < 0) {
+      return List.of();
+    }
+
+    final var reader = new AnnotationReader(file, offset);
+    final var count = reader.u2();
+    final var annotations = new ArrayList<ClassModel.Annotation>(count);
+    for (var i = 0; i < count; ++i) {
+      final var descriptor = file.utf8(reader.u2());
+      final var text = reader.annotation(descriptor);
+      if (this.annotationType(ClassFileBackend.className(descriptor)) != null) {
+        annotations.add(new ClassModel.Annotation(text, this.type(descriptor)));
+      }
+    }
+    return annotations;
+  }
+
+  // "Ljava/lang/Deprecated;" to "java.lang.Deprecated"
+  private static String className(final String descriptor) {
+    return descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+  }
+
+  // members and defaults of an annotation type, null if it cannot be found
+  private AnnotationType annotationType(final String className) throws IOException {
+    var type = this.annotationTypes.get(className);
+    if (type != null) {
+      return type;
+    }
+
+    final var file = this.classFile(className);
+    if (file == null) {
+      return null;
+    }
+
+    final var members = new HashSet<String>();
+    // filled like sun.reflect.annotation.AnnotationType, so that the members come out in the
+    // same order as in Annotation.toString()
+    final var defaults = new HashMap<String, String>(0);
+    for (final var method : file.methods) {
+      if (Modifier.isPublic(method.access)
+          && Modifier.isAbstract(method.access)
+          && (method.access & ClassFile.ACC_SYNTHETIC) == 0
+          && method.descriptor.startsWith("()")) {
+        members.add(method.name);
+        if (method.annotationDefault >= 0) {
+          defaults.put(method.name, new AnnotationReader(file, method.annotationDefault).value());
+        }
+      }
+    }
+
+    type = new AnnotationType(members, defaults);
+    this.annotationTypes.put(className, type);
+    return type;
+  }
+
+  // renders annotations and element values like Annotation.toString() while reading them
+  private final class AnnotationReader {
+    private final ClassFile file;
+    private int offset;
+
+    AnnotationReader(final ClassFile file, final int offset) {
+      this.file = file;
+      this.offset = offset;
+    }
+
+    int u2() {
+      final var value = this.file.u2(this.offset);
+      this.offset += 2;
+      return value;
+    }
+
+    // the pairs of an annotation whose type descriptor was already read
+    String annotation(final String descriptor) throws IOException {
+      final var className = ClassFileBackend.className(descriptor);
+      final var type = ClassFileBackend.this.annotationType(className);
+      final var values =
+          type == null
+              ? new LinkedHashMap<String, String>()
+              : new LinkedHashMap<>(type.defaults());
+
+      final var count = this.u2();
+      for (var i = 0; i < count; ++i) {
+        final var name = this.file.utf8(this.u2());
+        final var value = this.value();
+        // members that are no longer present in the annotation type are ignored
+        if (type == null || type.members().contains(name)) {
+          values.put(name, value);
+        }
+      }
+
+      final var canonicalName = ClassFileBackend.this.canonicalName(className);
+      final var sb = new StringBuilder(128);
+      sb.append('@').append(canonicalName == null ? "<no canonical name>" : canonicalName);
+      sb.append('(');
+      var first = true;
+      for (final var entry : values.entrySet()) {
+        if (!first) {
+          sb.append(", ");
+        }
+        if (values.size() != 1 || !entry.getKey().equals("value")) {
+          sb.append(entry.getKey()).append('=');
+        }
+        sb.append(entry.getValue());
+        first = false;
+      }
+      return sb.append(')').toString();
+    }
+
+    // an element_value
+    String value() throws IOException {
+      final var tag = (char) this.file.u1(this.offset++);
+      return switch (tag) {
+        case 'B' -> String.format("(byte)0x%02x", (byte) this.file.intConstant(this.u2()));
+        case 'C' -> '\'' + ClassFileBackend.quote((char) this.file.intConstant(this.u2())) + '\'';
+        case 'D' -> ClassFileBackend.toSourceString(this.file.doubleConstant(this.u2()));
+        case 'F' -> ClassFileBackend.toSourceString(this.file.floatConstant(this.u2()));
+        case 'I' -> Integer.toString(this.file.intConstant(this.u2()));
+        case 'J' -> this.file.longConstant(this.u2()) + "L";
+        case 'S' -> Short.toString((short) this.file.intConstant(this.u2()));
+        case 'Z' -> Boolean.toString(this.file.intConstant(this.u2()) != 0);
+        case 's' -> {
+          final var string = this.file.utf8(this.u2());
+          final var sb = new StringBuilder(string.length() + 2).append('"');
+          for (var i = 0; i < string.length(); ++i) {
+            sb.append(ClassFileBackend.quote(string.charAt(i)));
+          }
+          yield sb.append('"').toString();
+        }
+        case 'e' -> {
+          this.u2();
+          yield this.file.utf8(this.u2());
+        }
+        case 'c' -> ClassFileBackend.this.classLiteral(this.file.utf8(this.u2()));
+        case '@' -> this.annotation(this.file.utf8(this.u2()));
+        case '[' -> {
+          final var count = this.u2();
+          final var sb = new StringBuilder().append('{');
+          for (var i = 0; i < count; ++i) {
+            if (i > 0) {
+              sb.append(", ");
+            }
+            sb.append(this.value());
+          }
+          yield sb.append('}').toString();
+        }
+        default -> throw new ClassFormatError("Invalid element value tag: " + tag);
+      };
+    }
+  }
+
+  // a class value in an annotation, like "java.lang.String[].class"
+  private String classLiteral(final String descriptor) throws IOException {
+    var dimensions = 0;
+    while (descriptor.charAt(dimensions) == '[') {
+      ++dimensions;
+    }
+    final var component = descriptor.substring(dimensions);
+    final var name =
+        component.charAt(0) == 'L'
+            ? this.canonicalName(ClassFileBackend.className(component))
+            : ClassFileBackend.primitive(component.charAt(0));
+    if (name == null) {
+      return "<no canonical name>.class";
+    }
+    return name + "[]".repeat(dimensions) + ".class";
+  }
+
+  private static String toSourceString(final double d) {
+    if (Double.isFinite(d)) {
+      return Double.toString(d);
+    }
+    if (Double.isInfinite(d)) {
+      return d < 0 ? "-1.0/0.0" : "1.0/0.0";
+    }
+    return "0.0/0.0";
+  }
+
+  private static String toSourceString(final float f) {
+    if (Float.isFinite(f)) {
+      return Float.toString(f) + "f";
+    }
+    if (Float.isInfinite(f)) {
+      return f < 0 ? "-1.0f/0.0f" : "1.0f/0.0f";
+    }
+    return "0.0f/0.0f";
+  }
+
+  // escape a character like Annotation.toString() does
+  private static String quote(final char c) {
+    return switch (c) {
+      case '\b' -> "\\b";
+      case '\f' -> "\\f";
+      case '\n' -> "\\n";
+      case '\r' -> "\\r";
+      case '\t' -> "\\t";
+      case '\'' -> "\\'";
+      case '"' -> "\\\"";
+      case '\\' -> "\\\\";
+      default -> c >= ' ' && c <= '~' ? String.valueOf(c) : String.format("\\u%04x", (int) c);
+    };
+  }
+}
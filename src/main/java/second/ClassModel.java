@@ -0,0 +1,58 @@
+package second;
+
+import java.util.List;
+
+/**
+ * Everything {@link Inspector} renders for one class, independent of where it was read from:
+ * reflection on a loaded class ({@link Inspector#model(Class)}) or the class file itself
+ * ({@link ClassFileBackend}). Fields, constructors and methods are already in Inspector order.
+ *
+ * @param name as returned by {@link Class#getName()}
+ * @param kind "class", "interface", "enum" or "annotation"
+ * @param typeParameters declarations like {@code K extends Comparable<? super K>} named after
+ *     their type variable, empty without generics
+ * @param superclass null for interfaces and {@code java.lang.Object}
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+record ClassModel(
+    String name,
+    String packageName,
+    int modifiers,
+    String kind,
+    String simpleName,
+    List<ClassModel.Type> typeParameters,
+    List<ClassModel.Type> interfaces,
+    ClassModel.Type superclass,
+    List<ClassModel.Field> fields,
+    List<ClassModel.Executable> constructors,
+    List<ClassModel.Executable> methods) {
+
+  /**
+   * A referenced type.
+   *
+   * @param name as returned by {@link Class#getName()}, used for sorting
+   * @param imports everything to import when the type is used
+   */
+  record Type(String name, String simpleName, List<String> imports) {}
+
+  record Field(int modifiers, String name, Type type) {}
+
+  record Parameter(Type type, String name) {}
+
+  /**
+   * A constructor ({@code returnType} is null) or a method.
+   *
+   * @param typeParameters declared like the ones of the class
+   */
+  record Executable(
+      int modifiers,
+      List<Type> typeParameters,
+      String name,
+      Type returnType,
+      List<Parameter> parameters,
+      List<Annotation> annotations) {}
+
+  /** @param text as returned by {@link java.lang.annotation.Annotation#toString()} */
+  record Annotation(String text, Type type) {}
+}
@@ -0,0 +1,348 @@
+package second;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary form of a {@link ClassModel} that can be read back without loss, so a model can
+ * be stored once and rendered or compared later without the class.
+ *
+ * <p>Every string is stored once in a string table and every type once in a type table; the class
+ * itself only refers to them by index. All numbers are unsigned varints (7 bits per byte, low bits
+ * first):
+ *
+ * <pre>
+ * "ICM" 2                       magic and version
+ * strings  count, then per string: byte length, UTF-8 bytes
+ * types    count, then per type: name, simpleName, import count, imports (string indices)
+ * class    name, package, modifiers, kind, simpleName (strings), type parameter count, type
+ *          parameters (type indices), superclass (type index + 1, 0 for none), interface count,
+ *          interfaces (type indices)
+ * fields   count, then per field: modifiers, name, type
+ * constructors and methods
+ *          count, then per executable: modifiers, type parameter count, type parameters, name,
+ *          return type (type index + 1, 0 for constructors), parameter count, per parameter:
+ *          type, name, annotation count, per annotation: text, type
+ * </pre>
+ *
+ * <p>{@link #read(InputStream)} reads the whole stream and throws an {@link IOException} for
+ * counts larger than the remaining input and indices outside the tables, so a corrupt file cannot
+ * allocate huge arrays or fail with a runtime exception.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+final class ClassModelBinary {
+
+  private static final int MAGIC = 'I' << 24 | 'C' << 16 | 'M' << 8 | 2;
+
+  // index of every string and type in the tables
+  private final Map<String, Integer> strings = new HashMap<>();
+  private final Map<ClassModel.Type, Integer> types = new IdentityHashMap<>();
+  private final List<String> stringTable = new ArrayList<>();
+  private final List<ClassModel.Type> typeTable = new ArrayList<>();
+
+  private ClassModelBinary() {}
+
+  static void write(final ClassModel model, final OutputStream out) throws IOException {
+    new ClassModelBinary().writeModel(model, new DataOutputStream(out));
+  }
+
+  static ClassModel read(final InputStream in) throws IOException {
+    // in memory, so every count can be checked against what is left
+    final var data = new DataInputStream(new ByteArrayInputStream(in.readAllBytes()));
+    if (data.readInt() != ClassModelBinary.MAGIC) {
+      throw new IOException("Not a class model");
+    }
+
+    final var strings = new String[ClassModelBinary.readCount(data)];
+    for (var i = 0; i < strings.length; ++i) {
+      final var bytes = new byte[ClassModelBinary.readCount(data)];
+      data.readFully(bytes);
+      strings[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    final var types = new ClassModel.Type[ClassModelBinary.readCount(data)];
+    for (var i = 0; i < types.length; ++i) {
+      final var name = ClassModelBinary.readIndex(data, strings);
+      final var simpleName = ClassModelBinary.readIndex(data, strings);
+      final var imports = new String[ClassModelBinary.readCount(data)];
+      for (var j = 0; j < imports.length; ++j) {
+        imports[j] = ClassModelBinary.readIndex(data, strings);
+      }
+      types[i] = new ClassModel.Type(name, simpleName, List.of(imports));
+    }
+
+    final var name = ClassModelBinary.readIndex(data, strings);
+    final var packageName = ClassModelBinary.readIndex(data, strings);
+    final var modifiers = ClassModelBinary.readInt(data);
+    final var kind = ClassModelBinary.readIndex(data, strings);
+    final var simpleName = ClassModelBinary.readIndex(data, strings);
+    final var typeParameters = ClassModelBinary.readTypes(data, types);
+    final var superclass = ClassModelBinary.readOptionalType(data, types);
+    final var interfaces = ClassModelBinary.readTypes(data, types);
+
+    final var fields = new ClassModel.Field[ClassModelBinary.readCount(data)];
+    for (var i = 0; i < fields.length; ++i) {
+      fields[i] =
+          new ClassModel.Field(
+              ClassModelBinary.readInt(data),
+              ClassModelBinary.readIndex(data, strings),
+              ClassModelBinary.readIndex(data, types));
+    }
+
+    return new ClassModel(
+        name,
+        packageName,
+        modifiers,
+        kind,
+        simpleName,
+        typeParameters,
+        interfaces,
+        superclass,
+        List.of(fields),
+        ClassModelBinary.readExecutables(data, strings, types),
+        ClassModelBinary.readExecutables(data, strings, types));
+  }
+
+  private static List<ClassModel.Executable> readExecutables(
+      final DataInputStream data, final String[] strings, final ClassModel.Type[] types)
+      throws IOException {
+    final var executables = new ClassModel.Executable[ClassModelBinary.readCount(data)];
+    for (var i = 0; i < executables.length; ++i) {
+      final var modifiers = ClassModelBinary.readInt(data);
+      final var typeParameters = ClassModelBinary.readTypes(data, types);
+      final var name = ClassModelBinary.readIndex(data, strings);
+      final var returnType = ClassModelBinary.readOptionalType(data, types);
+      final var parameters = new ClassModel.Parameter[ClassModelBinary.readCount(data)];
+      for (var j = 0; j < parameters.length; ++j) {
+        parameters[j] =
+            new ClassModel.Parameter(
+                ClassModelBinary.readIndex(data, types), ClassModelBinary.readIndex(data, strings));
+      }
+      final var annotations = new ClassModel.Annotation[ClassModelBinary.readCount(data)];
+      for (var j = 0; j < annotations.length; ++j) {
+        annotations[j] =
+            new ClassModel.Annotation(
+                ClassModelBinary.readIndex(data, strings), ClassModelBinary.readIndex(data, types));
+      }
+      executables[i] =
+          new ClassModel.Executable(
+              modifiers,
+              typeParameters,
+              name,
+              returnType,
+              List.of(parameters),
+              List.of(annotations));
+    }
+    return List.of(executables);
+  }
+
+  private static List<ClassModel.Type> readTypes(
+      final DataInputStream data, final ClassModel.Type[] types) throws IOException {
+    final var result = new ClassModel.Type[ClassModelBinary.readCount(data)];
+    for (var i = 0; i < result.length; ++i) {
+      result[i] = ClassModelBinary.readIndex(data, types);
+    }
+    return List.of(result);
+  }
+
+  private static ClassModel.Type readOptionalType(
+      final DataInputStream data, final ClassModel.Type[] types) throws IOException {
+    final var index = ClassModelBinary.readInt(data);
+    if (index == 0) {
+      return null;
+    }
+    ClassModelBinary.checkIndex(index - 1, types);
+    return types[index - 1];
+  }
+
+  // a count of entries that take at least one byte each
+  private static int readCount(final DataInputStream data) throws IOException {
+    final var count = ClassModelBinary.readInt(data);
+    if (count < 0 || count > data.available()) {
+      throw new IOException("Corrupt class model: " + count + " entries");
+    }
+    return count;
+  }
+
+  private static <T> T readIndex(final DataInputStream data, final T[] table) throws IOException {
+    final var index = ClassModelBinary.readInt(data);
+    ClassModelBinary.checkIndex(index, table);
+    return table[index];
+  }
+
+  private static void checkIndex(final int index, final Object[] table) throws IOException {
+    if (index < 0 || index >= table.length) {
+      throw new IOException("Corrupt class model: index " + index + " of " + table.length);
+    }
+  }
+
+  private static int readInt(final DataInputStream data) throws IOException {
+    var value = 0;
+    for (var shift = 0; shift < 35; shift += 7) {
+      final var b = data.read();
+      if (b < 0) {
+        throw new EOFException();
+      }
+      value |= (b & 0x7F) << shift;
+      if (b < 0x80) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed number");
+  }
+
+  private void writeModel(final ClassModel model, final DataOutputStream out) throws IOException {
+    // fill both tables first, the class refers to them by index
+    this.string(model.name());
+    this.string(model.packageName());
+    this.string(model.kind());
+    this.string(model.simpleName());
+    for (final var parameter : model.typeParameters()) {
+      this.type(parameter);
+    }
+    if (model.superclass() != null) {
+      this.type(model.superclass());
+    }
+    for (final var interf : model.interfaces()) {
+      this.type(interf);
+    }
+    for (final var field : model.fields()) {
+      this.string(field.name());
+      this.type(field.type());
+    }
+    this.collect(model.constructors());
+    this.collect(model.methods());
+
+    out.writeInt(ClassModelBinary.MAGIC);
+    ClassModelBinary.writeInt(out, this.stringTable.size());
+    for (final var string : this.stringTable) {
+      final var bytes = string.getBytes(StandardCharsets.UTF_8);
+      ClassModelBinary.writeInt(out, bytes.length);
+      out.write(bytes);
+    }
+    ClassModelBinary.writeInt(out, this.typeTable.size());
+    for (final var type : this.typeTable) {
+      ClassModelBinary.writeInt(out, this.strings.get(type.name()));
+      ClassModelBinary.writeInt(out, this.strings.get(type.simpleName()));
+      ClassModelBinary.writeInt(out, type.imports().size());
+      for (final var imp : type.imports()) {
+        ClassModelBinary.writeInt(out, this.strings.get(imp));
+      }
+    }
+
+    ClassModelBinary.writeInt(out, this.strings.get(model.name()));
+    ClassModelBinary.writeInt(out, this.strings.get(model.packageName()));
+    ClassModelBinary.writeInt(out, model.modifiers());
+    ClassModelBinary.writeInt(out, this.strings.get(model.kind()));
+    ClassModelBinary.writeInt(out, this.strings.get(model.simpleName()));
+    this.writeTypes(out, model.typeParameters());
+    this.writeOptionalType(out, model.superclass());
+    this.writeTypes(out, model.interfaces());
+
+    ClassModelBinary.writeInt(out, model.fields().size());
+    for (final var field : model.fields()) {
+      ClassModelBinary.writeInt(out, field.modifiers());
+      ClassModelBinary.writeInt(out, this.strings.get(field.name()));
+      ClassModelBinary.writeInt(out, this.types.get(field.type()));
+    }
+    this.writeExecutables(out, model.constructors());
+    this.writeExecutables(out, model.methods());
+    out.flush();
+  }
+
+  private void collect(final List<ClassModel.Executable> executables) {
+    for (final var executable : executables) {
+      for (final var parameter : executable.typeParameters()) {
+        this.type(parameter);
+      }
+      this.string(executable.name());
+      if (executable.returnType() != null) {
+        this.type(executable.returnType());
+      }
+      for (final var parameter : executable.parameters()) {
+        this.type(parameter.type());
+        this.string(parameter.name());
+      }
+      for (final var annotation : executable.annotations()) {
+        this.string(annotation.text());
+        this.type(annotation.type());
+      }
+    }
+  }
+
+  private void writeExecutables(
+      final DataOutputStream out, final List<ClassModel.Executable> executables)
+      throws IOException {
+    ClassModelBinary.writeInt(out, executables.size());
+    for (final var executable : executables) {
+      ClassModelBinary.writeInt(out, executable.modifiers());
+      this.writeTypes(out, executable.typeParameters());
+      ClassModelBinary.writeInt(out, this.strings.get(executable.name()));
+      this.writeOptionalType(out, executable.returnType());
+      ClassModelBinary.writeInt(out, executable.parameters().size());
+      for (final var parameter : executable.parameters()) {
+        ClassModelBinary.writeInt(out, this.types.get(parameter.type()));
+        ClassModelBinary.writeInt(out, this.strings.get(parameter.name()));
+      }
+      ClassModelBinary.writeInt(out, executable.annotations().size());
+      for (final var annotation : executable.annotations()) {
+        ClassModelBinary.writeInt(out, this.strings.get(annotation.text()));
+        ClassModelBinary.writeInt(out, this.types.get(annotation.type()));
+      }
+    }
+  }
+
+  private void writeTypes(final DataOutputStream out, final List<ClassModel.Type> types)
+      throws IOException {
+    ClassModelBinary.writeInt(out, types.size());
+    for (final var type : types) {
+      ClassModelBinary.writeInt(out, this.types.get(type));
+    }
+  }
+
+  private void writeOptionalType(final DataOutputStream out, final ClassModel.Type type)
+      throws IOException {
+    ClassModelBinary.writeInt(out, type == null ? 0 : this.types.get(type) + 1);
+  }
+
+  private static void writeInt(final DataOutputStream out, final int value) throws IOException {
+    var rest = value;
+    while ((rest & ~0x7F) != 0) {
+      out.write(rest & 0x7F | 0x80);
+      rest >>>= 7;
+    }
+    out.write(rest);
+  }
+
+  // add to the string table if new
+  private void string(final String string) {
+    if (this.strings.putIfAbsent(string, this.stringTable.size()) == null) {
+      this.stringTable.add(string);
+    }
+  }
+
+  // add to the type table if new, the same type object is only stored once
+  private void type(final ClassModel.Type type) {
+    if (this.types.putIfAbsent(type, this.typeTable.size()) == null) {
+      this.typeTable.add(type);
+      this.string(type.name());
+      this.string(type.simpleName());
+      for (final var imp : type.imports()) {
+        this.string(imp);
+      }
+    }
+  }
+}
@@ -0,0 +1,149 @@
+package second;
+
+import java.io.IOException;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+/**
+ * Writes a {@link ClassModel} as one line of JSON, so other tools can read the shape of a class
+ * without parsing the Java-like text of {@link Inspector}. Members come in Inspector order, types
+ * are given by their binary name like {@code java.util.Map$Entry} or {@code [I}:
+ *
+ * <pre>
+ * {"name":"java.util.AbstractMap","package":"java.util","modifiers":"public abstract",
+ *  "kind":"class","simpleName":"AbstractMap","superclass":"java.lang.Object",
+ *  "interfaces":["java.util.Map"],"fields":[{"modifiers":"...","name":"...","type":"..."}],
+ *  "constructors":[{"modifiers":"...","parameters":[{"type":"...","name":"..."}]}],
+ *  "methods":[{"modifiers":"...","name":"...","returnType":"...","parameters":[...],
+ *              "annotations":[{"type":"...","text":"..."}]}]}
+ * </pre>
+ *
+ * <p>Everything is written straight to the output, no intermediate strings are built except for
+ * {@link Modifier#toString(int)}. A missing superclass is {@code null}.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+final class ClassModelJson {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private ClassModelJson() {}
+
+  static void write(final ClassModel model, final Appendable out) throws IOException {
+    out.append("{\"name\":");
+    ClassModelJson.string(model.name(), out);
+    out.append(",\"package\":");
+    ClassModelJson.string(model.packageName(), out);
+    out.append(",\"modifiers\":");
+    ClassModelJson.string(Modifier.toString(model.modifiers()), out);
+    out.append(",\"kind\":");
+    ClassModelJson.string(model.kind(), out);
+    out.append(",\"simpleName\":");
+    ClassModelJson.string(model.simpleName(), out);
+    out.append(",\"superclass\":");
+    if (model.superclass() == null) {
+      out.append("null");
+    } else {
+      ClassModelJson.string(model.superclass().name(), out);
+    }
+
+    out.append(",\"interfaces\":[");
+    final var interfaces = model.interfaces();
+    for (var i = 0; i < interfaces.size(); ++i) {
+      if (i > 0) {
+        out.append(',');
+      }
+      ClassModelJson.string(interfaces.get(i).name(), out);
+    }
+
+    out.append("],\"fields\":[");
+    final var fields = model.fields();
+    for (var i = 0; i < fields.size(); ++i) {
+      final var field = fields.get(i);
+      out.append(i > 0 ? ",{\"modifiers\":" : "{\"modifiers\":");
+      ClassModelJson.string(Modifier.toString(field.modifiers()), out);
+      out.append(",\"name\":");
+      ClassModelJson.string(field.name(), out);
+      out.append(",\"type\":");
+      ClassModelJson.string(field.type().name(), out);
+      out.append('}');
+    }
+
+    out.append("],\"constructors\":");
+    ClassModelJson.executables(model.constructors(), out);
+    out.append(",\"methods\":");
+    ClassModelJson.executables(model.methods(), out);
+    out.append("}\n");
+  }
+
+  private static void executables(
+      final List<ClassModel.Executable> executables, final Appendable out) throws IOException {
+    out.append('[');
+    for (var i = 0; i < executables.size(); ++i) {
+      final var executable = executables.get(i);
+      out.append(i > 0 ? ",{\"modifiers\":" : "{\"modifiers\":");
+      ClassModelJson.string(Modifier.toString(executable.modifiers()), out);
+
+      // constructors all have the name of the class
+      if (executable.returnType() != null) {
+        out.append(",\"name\":");
+        ClassModelJson.string(executable.name(), out);
+        out.append(",\"returnType\":");
+        ClassModelJson.string(executable.returnType().name(), out);
+      }
+
+      out.append(",\"parameters\":[");
+      final var parameters = executable.parameters();
+      for (var j = 0; j < parameters.size(); ++j) {
+        out.append(j > 0 ? ",{\"type\":" : "{\"type\":");
+        ClassModelJson.string(parameters.get(j).type().name(), out);
+        out.append(",\"name\":");
+        ClassModelJson.string(parameters.get(j).name(), out);
+        out.append('}');
+      }
+      out.append(']');
+
+      final var annotations = executable.annotations();
+      if (!annotations.isEmpty()) {
+        out.append(",\"annotations\":[");
+        for (var j = 0; j < annotations.size(); ++j) {
+          out.append(j > 0 ? ",{\"type\":" : "{\"type\":");
+          ClassModelJson.string(annotations.get(j).type().name(), out);
+          out.append(",\"text\":");
+          ClassModelJson.string(annotations.get(j).text(), out);
+          out.append('}');
+        }
+        out.append(']');
+      }
+      out.append('}');
+    }
+    out.append(']');
+  }
+
+  // a quoted JSON string, plain runs are appended as ranges of the original string
+  static void string(final CharSequence s, final Appendable out) throws IOException {
+    out.append('"');
+    var start = 0;
+    for (var i = 0; i < s.length(); ++i) {
+      final var c = s.charAt(i);
+      if (c >= 0x20 && c != '"' && c != '\\') {
+        continue;
+      }
+      out.append(s, start, i);
+      switch (c) {
+        case '"' -> out.append("\\\"");
+        case '\\' -> out.append("\\\\");
+        case '\n' -> out.append("\\n");
+        case '\r' -> out.append("\\r");
+        case '\t' -> out.append("\\t");
+        default -> out.append("\\u00")
+            .append(ClassModelJson.HEX[c >> 4])
+            .append(ClassModelJson.HEX[c & 0xF]);
+      }
+      start = i + 1;
+    }
+    out.append(s, start, s.length());
+    out.append('"');
+  }
+}
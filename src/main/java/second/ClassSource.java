@@ -0,0 +1,256 @@
+package second;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.jar.JarFile;
+import java.util.zip.CRC32;
+
+/**
+ * A set of classes to inspect in one go: every class in a jar, in a directory of class files, or
+ * every class on the class path (including the JDK modules) whose package starts with a prefix.
+ *
+ * <p>Classes are loaded without running their static initializers. Anonymous and local classes
+ * as well as {@code module-info} and {@code package-info} are skipped.
+ *
+ * <p>The classes of a jar or directory are taken from it even if the class path has a class of the
+ * same name, e.g. an older version of the same library or the inspector itself; only the classes it
+ * does not contain come from the class path.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+final class ClassSource implements AutoCloseable {
+
+  // binary class names in sorted order
+  private final List<String> classNames;
+
+  private final ClassLoader loader;
+
+  // our own loader for jars and directories, null when the application loader is used
+  private final URLClassLoader ownLoader;
+
+  // size and CRC of the classes found in jars, taken from the jar directory
+  private final Map<String, Long> jarHashes;
+
+  private ClassSource(
+      final List<String> classNames,
+      final ClassLoader loader,
+      final URLClassLoader ownLoader,
+      final Map<String, Long> jarHashes) {
+    this.classNames = classNames;
+    this.loader = loader;
+    this.ownLoader = ownLoader;
+    this.jarHashes = jarHashes;
+  }
+
+  // a jar file, a directory of class files or a package prefix like "java.util"
+  static ClassSource open(final String source) throws IOException {
+    final var path = Path.of(source);
+    final var jarHashes = new HashMap<String, Long>();
+    if (Files.isDirectory(path) || Files.isRegularFile(path)) {
+      final var names = new TreeSet<String>();
+      if (Files.isDirectory(path)) {
+        ClassSource.scanDirectory(path, path, names);
+      } else {
+        ClassSource.scanJar(path, "", names, jarHashes);
+      }
+      final var loader =
+          new ChildFirstLoader(path.toUri().toURL(), ClassSource.class.getClassLoader());
+      return new ClassSource(List.copyOf(names), loader, loader, jarHashes);
+    }
+
+    final var names = new TreeSet<String>();
+    final var prefix = source.endsWith(".") ? source.substring(0, source.length() - 1) : source;
+    final var directory = prefix.replace('.', '/');
+
+    // the application class path
+    for (final var entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      if (entry.isEmpty()) {
+        continue;
+      }
+      final var root = Path.of(entry);
+      if (Files.isDirectory(root)) {
+        final var start = root.resolve(directory);
+        if (Files.isDirectory(start)) {
+          ClassSource.scanDirectory(root, start, names);
+        }
+      } else if (Files.isRegularFile(root)) {
+        ClassSource.scanJar(root, directory, names, jarHashes);
+      }
+    }
+
+    // the JDK modules
+    final var modules = FileSystems.getFileSystem(URI.create("jrt:/")).getPath("/modules");
+    try (final var stream = Files.list(modules)) {
+      for (final var module : stream.toList()) {
+        final var start = module.resolve(directory);
+        if (Files.isDirectory(start)) {
+          ClassSource.scanDirectory(module, start, names);
+        }
+      }
+    }
+
+    return new ClassSource(
+        List.copyOf(names), ClassSource.class.getClassLoader(), null, jarHashes);
+  }
+
+  // the application class path without any classes to enumerate, for looking up single classes
+  static ClassSource classPath() {
+    return new ClassSource(List.of(), ClassSource.class.getClassLoader(), null, Map.of());
+  }
+
+  // all class names in sorted order
+  List<String> classNames() {
+    return this.classNames;
+  }
+
+  // load a class without initializing it
+  Class<?> load(final String className) throws ClassNotFoundException {
+    return Class.forName(className, false, this.loader);
+  }
+
+  // the bytes of a class file without loading the class, null if there is no such class
+  byte[] classFile(final String className) throws IOException {
+    try (final var in = this.loader.getResourceAsStream(className.replace('.', '/') + ".class")) {
+      return in == null ? null : in.readAllBytes();
+    }
+  }
+
+  // identifies the bytes of a class file: size and CRC from the jar directory for classes in jars,
+  // so they are not read, otherwise computed from the bytes; 0 if there is no such class
+  long contentHash(final String className) throws IOException {
+    final var hash = this.jarHashes.get(className);
+    if (hash != null) {
+      return hash;
+    }
+    final var bytes = this.classFile(className);
+    if (bytes == null) {
+      return 0;
+    }
+    final var crc = new CRC32();
+    crc.update(bytes);
+    return ClassSource.contentHash(bytes.length, crc.getValue());
+  }
+
+  private static long contentHash(final long size, final long crc) {
+    return size << 32 | crc;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (this.ownLoader != null) {
+      this.ownLoader.close();
+    }
+  }
+
+  // collect all class files below start, named relative to root
+  private static void scanDirectory(final Path root, final Path start, final TreeSet<String> names)
+      throws IOException {
+    try (final var files = Files.walk(start)) {
+      for (final var file : files.filter(Files::isRegularFile).toList()) {
+        final var separator = file.getFileSystem().getSeparator();
+        final var relative = root.relativize(file).toString().replace(separator, "/");
+        ClassSource.addClassFile(relative, names);
+      }
+    }
+  }
+
+  // collect all class files in a jar whose path starts with directory
+  private static void scanJar(
+      final Path jar,
+      final String directory,
+      final TreeSet<String> names,
+      final Map<String, Long> hashes)
+      throws IOException {
+    try (final var file = new JarFile(jar.toFile())) {
+      final var entries = file.entries();
+      while (entries.hasMoreElements()) {
+        final var entry = entries.nextElement();
+        final var name = entry.getName();
+        if (!entry.isDirectory() && (directory.isEmpty() || name.startsWith(directory + '/'))) {
+          final var className = ClassSource.addClassFile(name, names);
+          // the first jar on the class path wins, like for the class loader
+          if (className != null && entry.getCrc() >= 0) {
+            hashes.putIfAbsent(
+                className, ClassSource.contentHash(entry.getSize(), entry.getCrc()));
+          }
+        }
+      }
+    }
+  }
+
+  // add the class name for a path like "java/util/Map$Entry.class", returns it or null if the
+  // path was skipped
+  private static String addClassFile(final String path, final TreeSet<String> names) {
+    if (!path.endsWith(".class") || path.startsWith("META-INF/")) {
+      return null;
+    }
+    final var className = path.substring(0, path.length() - ".class".length()).replace('/', '.');
+    if (className.endsWith("module-info") || className.endsWith("package-info")) {
+      return null;
+    }
+
+    // anonymous and local classes have a digit right after a '$'
+    for (var i = className.indexOf('$'); i >= 0; i = className.indexOf('$', i + 1)) {
+      if (i + 1 < className.length() && Character.isDigit(className.charAt(i + 1))) {
+        return null;
+      }
+    }
+    names.add(className);
+    return className;
+  }
+
+  /**
+   * Looks up classes and class files in its own jar or directory first and asks the parent only
+   * for the rest, the other way around than usual. Classes of the JDK always come from the parent,
+   * they cannot be defined by any other loader.
+   */
+  private static final class ChildFirstLoader extends URLClassLoader {
+
+    static {
+      ClassLoader.registerAsParallelCapable();
+    }
+
+    ChildFirstLoader(final URL url, final ClassLoader parent) {
+      super(new URL[] {url}, parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(final String name, final boolean resolve)
+        throws ClassNotFoundException {
+      if (name.startsWith("java.")) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (this.getClassLoadingLock(name)) {
+        var type = this.findLoadedClass(name);
+        if (type == null) {
+          try {
+            type = this.findClass(name);
+          } catch (final ClassNotFoundException e) {
+            return super.loadClass(name, resolve);
+          }
+        }
+        if (resolve) {
+          this.resolveClass(type);
+        }
+        return type;
+      }
+    }
+
+    @Override
+    public URL getResource(final String name) {
+      final var own = this.findResource(name);
+      return own != null ? own : super.getResource(name);
+    }
+  }
+}
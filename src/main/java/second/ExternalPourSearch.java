@@ -0,0 +1,330 @@
+package second;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Breitensuche im externen Speicher für Zustandsräume, die nicht einmal gepackt in den Heap passen.
+ * Alle Zwischenergebnisse liegen als Dateien sortierter {@code long}-Codes auf der Platte und
+ * werden über Memory-Mapping gelesen, im Heap liegt nur ein Puffer fester Größe.
+ *
+ * <p>Pro Ebene werden die Nachfolger der aktuellen Ebene in den Puffer gesammelt; ist er voll,
+ * wird er sortiert, von Duplikaten befreit und als Lauf weggeschrieben. Danach werden alle Läufe
+ * gemischt und dabei mit der sortierten Datei aller bisher besuchten Zustände abgeglichen: was
+ * dort fehlt, ist die nächste Ebene, und beides zusammen die neue Besucht-Datei. Am Ende ist die
+ * Besucht-Datei bereits die sortierte Ergebnisliste.
+ *
+ * <p>Jeder offene Lauf belegt einen Dateideskriptor und ein eingeblendetes Fenster. Deshalb werden
+ * höchstens {@value #MERGE_WIDTH} Läufe auf einmal gemischt; sind es mehr, werden sie vorher in
+ * Durchgängen zu größeren Läufen zusammengefasst.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+final class ExternalPourSearch implements AutoCloseable {
+  // so viel wird beim Lesen auf einmal eingeblendet
+  private static final int WINDOW_SIZE = 1 << 26;
+  private static final int WRITE_BUFFER_SIZE = 1 << 20;
+  // so viele Läufe werden höchstens gleichzeitig geöffnet
+  static final int MERGE_WIDTH = 64;
+
+  private final PourNetwork network;
+  private final PackedStateCodec codec;
+  private final Path directory;
+  private final long[] buffer;
+  private Path visited;
+  private long count;
+  private int files;
+
+  /**
+   * @param memory Heap in Byte, den der Sammelpuffer höchstens belegen darf
+   * @param parent Verzeichnis, in dem ein eigenes Verzeichnis für die Zwischendateien angelegt
+   *     wird, {@code null} für das temporäre Verzeichnis des Systems
+   */
+  ExternalPourSearch(
+      final PourNetwork network,
+      final PackedStateCodec codec,
+      final long memory,
+      final Path parent) throws IOException {
+    this.network = network;
+    this.codec = codec;
+
+    // mindestens so groß, dass die Nachfolger eines Zustands immer hineinpassen
+    final var size = Math.min(memory / Long.BYTES, Integer.MAX_VALUE - 8);
+    this.buffer = new long[(int) Math.max(network.pours(), size)];
+
+    this.directory = parent == null
+        ? Files.createTempDirectory("umfuellen")
+        : Files.createTempDirectory(parent, "umfuellen");
+  }
+
+  // sucht alle erreichbaren Zustände und liefert die Datei mit allen Codes aufsteigend sortiert
+  Path run(final SearchStats stats) throws IOException {
+    final var allocated = SearchStats.allocatedBytes();
+    final var initial = this.codec.encode(this.network.initial());
+    this.visited = this.write("visited-", new long[] {initial}, 1);
+    var level = this.write("level-", new long[] {initial}, 1);
+    this.count = 1;
+
+    final var kernel = this.network.kernel(this.codec);
+    final var successors = new long[this.network.pours()];
+    while (Files.size(level) > 0) {
+      // Nachfolger der Ebene in sortierte Läufe schreiben
+      var runs = new ArrayList<Path>();
+      var n = 0;
+      try (final var reader = new Reader(level)) {
+        while (reader.hasNext()) {
+          final var found = kernel.expand(reader.next(), successors, null);
+          if (n + found > this.buffer.length) {
+            runs.add(this.writeRun(n));
+            n = 0;
+          }
+          System.arraycopy(successors, 0, this.buffer, n, found);
+          n += found;
+        }
+      }
+      if (n > 0) {
+        runs.add(this.writeRun(n));
+      }
+      Files.delete(level);
+
+      while (runs.size() > ExternalPourSearch.MERGE_WIDTH) {
+        runs = this.mergeRuns(runs);
+      }
+      level = this.merge(runs);
+      for (final var run : runs) {
+        Files.delete(run);
+      }
+    }
+    Files.delete(level);
+
+    stats.add(kernel, allocated);
+    return this.visited;
+  }
+
+  // Anzahl der gefundenen Zustände, nach run()
+  long count() {
+    return this.count;
+  }
+
+  // löscht alle Zwischendateien samt Verzeichnis, auch nach einem Abbruch
+  @Override
+  public void close() throws IOException {
+    try (final var files = Files.list(this.directory)) {
+      for (final var file : files.toList()) {
+        Files.delete(file);
+      }
+    }
+    Files.delete(this.directory);
+  }
+
+  // die Läufe mischen und gegen die Besucht-Datei abgleichen, liefert die neue Ebene
+  private Path merge(final List<Path> runs) throws IOException {
+    final var readers = new ArrayList<Reader>();
+    final var nextVisited = this.directory.resolve("visited-" + this.files++);
+    final var nextLevel = this.directory.resolve("level-" + this.files++);
+
+    try (final var old = new Reader(this.visited);
+         final var visitedOut = new Writer(nextVisited);
+         final var levelOut = new Writer(nextLevel)) {
+      final var queue = ExternalPourSearch.open(runs, readers);
+      var last = -1L;
+      while (!queue.isEmpty()) {
+        final var reader = queue.poll();
+        final var code = reader.next();
+        if (reader.hasNext()) {
+          queue.add(reader);
+        }
+
+        // Duplikate zwischen den Läufen überspringen
+        if (code == last) {
+          continue;
+        }
+        last = code;
+
+        // alle kleineren besuchten Zustände übernehmen
+        while (old.hasNext() && old.peek() < code) {
+          visitedOut.add(old.next());
+        }
+        if (old.hasNext() && old.peek() == code) {
+          continue;
+        }
+
+        visitedOut.add(code);
+        levelOut.add(code);
+        ++this.count;
+      }
+      while (old.hasNext()) {
+        visitedOut.add(old.next());
+      }
+    } finally {
+      for (final var reader : readers) {
+        reader.close();
+      }
+    }
+
+    Files.delete(this.visited);
+    this.visited = nextVisited;
+    return nextLevel;
+  }
+
+  // ein Durchgang: je MERGE_WIDTH Läufe zu einem zusammenfassen, die alten Läufe löschen
+  private ArrayList<Path> mergeRuns(final List<Path> runs) throws IOException {
+    final var merged = new ArrayList<Path>();
+    for (var i = 0; i < runs.size(); i += ExternalPourSearch.MERGE_WIDTH) {
+      final var group = runs.subList(i, Math.min(i + ExternalPourSearch.MERGE_WIDTH, runs.size()));
+      final var readers = new ArrayList<Reader>();
+      final var file = this.directory.resolve("run-" + this.files++);
+      try (final var out = new Writer(file)) {
+        final var queue = ExternalPourSearch.open(group, readers);
+        var last = -1L;
+        while (!queue.isEmpty()) {
+          final var reader = queue.poll();
+          final var code = reader.next();
+          if (reader.hasNext()) {
+            queue.add(reader);
+          }
+          if (code != last) {
+            out.add(code);
+            last = code;
+          }
+        }
+      } finally {
+        for (final var reader : readers) {
+          reader.close();
+        }
+      }
+      for (final var run : group) {
+        Files.delete(run);
+      }
+      merged.add(file);
+    }
+    return merged;
+  }
+
+  // öffnet die Läufe, die Leser landen auch bei einem Fehler zum Schließen in readers
+  private static PriorityQueue<Reader> open(final List<Path> runs, final List<Reader> readers)
+      throws IOException {
+    final var queue = new PriorityQueue<Reader>(Comparator.comparingLong(Reader::peek));
+    for (final var run : runs) {
+      final var reader = new Reader(run);
+      readers.add(reader);
+      if (reader.hasNext()) {
+        queue.add(reader);
+      }
+    }
+    return queue;
+  }
+
+  // die ersten n Einträge des Puffers sortiert und ohne Duplikate als Lauf schreiben
+  private Path writeRun(final int n) throws IOException {
+    Arrays.sort(this.buffer, 0, n);
+    var unique = 0;
+    for (var i = 0; i < n; ++i) {
+      if (unique == 0 || this.buffer[unique - 1] != this.buffer[i]) {
+        this.buffer[unique++] = this.buffer[i];
+      }
+    }
+    return this.write("run-", this.buffer, unique);
+  }
+
+  private Path write(final String prefix, final long[] values, final int n) throws IOException {
+    final var file = this.directory.resolve(prefix + this.files++);
+    try (final var out = new Writer(file)) {
+      for (var i = 0; i < n; ++i) {
+        out.add(values[i]);
+      }
+    }
+    return file;
+  }
+
+  // liest Codes aus einer Datei, jeweils ein Fenster davon ist eingeblendet
+  static final class Reader implements AutoCloseable {
+    private final FileChannel channel;
+    private final long size;
+    private long windowStart;
+    private MappedByteBuffer window;
+
+    Reader(final Path file) throws IOException {
+      this.channel = FileChannel.open(file, StandardOpenOption.READ);
+      this.size = this.channel.size();
+      this.map(0);
+    }
+
+    boolean hasNext() {
+      return this.windowStart + this.window.position() < this.size;
+    }
+
+    long peek() {
+      return this.window.getLong(this.window.position());
+    }
+
+    long next() throws IOException {
+      final var value = this.window.getLong();
+      if (!this.window.hasRemaining() && this.hasNext()) {
+        this.map(this.windowStart + this.window.position());
+      }
+      return value;
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.channel.close();
+    }
+
+    private void map(final long start) throws IOException {
+      this.windowStart = start;
+      final var length = Math.min(ExternalPourSearch.WINDOW_SIZE, this.size - start);
+      this.window = this.channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+      this.window.order(ByteOrder.nativeOrder());
+    }
+  }
+
+  // schreibt Codes gepuffert in eine Datei
+  private static final class Writer implements AutoCloseable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer
+        .allocateDirect(ExternalPourSearch.WRITE_BUFFER_SIZE)
+        .order(ByteOrder.nativeOrder());
+
+    Writer(final Path file) throws IOException {
+      this.channel = FileChannel.open(
+          file,
+          StandardOpenOption.CREATE,
+          StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    void add(final long value) throws IOException {
+      if (!this.buffer.hasRemaining()) {
+        this.flush();
+      }
+      this.buffer.putLong(value);
+    }
+
+    @Override
+    public void close() throws IOException {
+      this.flush();
+      this.channel.close();
+    }
+
+    private void flush() throws IOException {
+      this.buffer.flip();
+      while (this.buffer.hasRemaining()) {
+        this.channel.write(this.buffer);
+      }
+      this.buffer.clear();
+    }
+  }
+}
@@ -0,0 +1,214 @@
+package second;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Fingerprints of the classes of the last batch run, kept next to the output so that the next run
+ * only renders the classes that changed.
+ *
+ * <p>The file is memory-mapped and searched in place. On open only the sizes are checked, an index
+ * whose entries or supertypes do not fit the file is ignored and rebuilt:
+ *
+ * <pre>
+ * "ICX" 1        magic and version
+ * count          int
+ * entries        count times, sorted by name hash:
+ *                name hash (long), content hash (long), fingerprint (long),
+ *                offset into the supertypes (int), number of supertypes (int)
+ * supertypes     name hashes (long) of the direct supertypes of each class
+ * </pre>
+ *
+ * <p>The content hash identifies the bytes of the class file. The fingerprint also covers the
+ * rendering options and the fingerprints of the supertypes, whose public members are rendered as
+ * well; the supertypes are kept so an unchanged class does not have to be read again to find
+ * them. Classes are identified by a 64-bit hash of their name only.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+final class FingerprintIndex {
+
+  static final String FILE_NAME = ".inspector-index";
+
+  private static final int MAGIC = 'I' << 24 | 'C' << 16 | 'X' << 8 | 1;
+
+  private static final int HEADER = 8;
+
+  private static final int ENTRY = 32;
+
+  private static final long[] NO_SUPERTYPES = {};
+
+  // empty for a missing or unreadable index
+  private final ByteBuffer buffer;
+
+  private final int count;
+
+  private FingerprintIndex(final ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.count = buffer.capacity() < FingerprintIndex.HEADER ? 0 : buffer.getInt(4);
+  }
+
+  // map the index in a directory, an empty index if there is none or it is not valid
+  static FingerprintIndex open(final Path directory) throws IOException {
+    final var file = directory.resolve(FingerprintIndex.FILE_NAME);
+    try (final var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (FingerprintIndex.isValid(buffer)) {
+        return new FingerprintIndex(buffer);
+      }
+    } catch (final NoSuchFileException e) {
+      // first run
+    }
+    return new FingerprintIndex(ByteBuffer.allocate(0));
+  }
+
+  // true if all entries and the supertypes they refer to are inside the file
+  private static boolean isValid(final ByteBuffer buffer) {
+    if (buffer.capacity() < FingerprintIndex.HEADER
+        || buffer.getInt(0) != FingerprintIndex.MAGIC) {
+      return false;
+    }
+    final var count = buffer.getInt(4);
+    final var start = FingerprintIndex.HEADER + (long) count * FingerprintIndex.ENTRY;
+    if (count < 0 || buffer.capacity() < start) {
+      return false;
+    }
+    final var supertypes = (buffer.capacity() - start) / 8;
+    for (var entry = 0; entry < count; ++entry) {
+      final var position = FingerprintIndex.HEADER + entry * FingerprintIndex.ENTRY;
+      final var offset = buffer.getInt(position + 24);
+      final var length = buffer.getInt(position + 28);
+      if (offset < 0 || length < 0 || (long) offset + length > supertypes) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  // position of the entry of a class, -1 if there is none
+  int find(final long nameHash) {
+    var low = 0;
+    var high = this.count - 1;
+    while (low <= high) {
+      final var middle = (low + high) >>> 1;
+      final var position = FingerprintIndex.HEADER + middle * FingerprintIndex.ENTRY;
+      final var hash = this.buffer.getLong(position);
+      if (hash < nameHash) {
+        low = middle + 1;
+      } else if (hash > nameHash) {
+        high = middle - 1;
+      } else {
+        return middle;
+      }
+    }
+    return -1;
+  }
+
+  long contentHash(final int entry) {
+    return this.buffer.getLong(FingerprintIndex.HEADER + entry * FingerprintIndex.ENTRY + 8);
+  }
+
+  long fingerprint(final int entry) {
+    return this.buffer.getLong(FingerprintIndex.HEADER + entry * FingerprintIndex.ENTRY + 16);
+  }
+
+  long[] supertypes(final int entry) {
+    final var position = FingerprintIndex.HEADER + entry * FingerprintIndex.ENTRY;
+    final var offset = this.buffer.getInt(position + 24);
+    final var supertypes = new long[this.buffer.getInt(position + 28)];
+    final var start = FingerprintIndex.HEADER + this.count * FingerprintIndex.ENTRY;
+    for (var i = 0; i < supertypes.length; ++i) {
+      supertypes[i] = this.buffer.getLong(start + (offset + i) * 8);
+    }
+    return supertypes.length == 0 ? FingerprintIndex.NO_SUPERTYPES : supertypes;
+  }
+
+  // 64-bit FNV-1a of a class name
+  static long nameHash(final String className) {
+    var hash = 0xCBF29CE484222325L;
+    for (var i = 0; i < className.length(); ++i) {
+      hash = (hash ^ className.charAt(i)) * 0x100000001B3L;
+    }
+    return hash;
+  }
+
+  // combine two hashes, the order matters
+  static long mix(final long hash, final long value) {
+    var h = (hash ^ value) * 0x9E3779B97F4A7C15L;
+    h ^= h >>> 32;
+    return h * 0xBF58476D1CE4E5B9L;
+  }
+
+  /** Collects the entries of a new index. */
+  static final class Builder {
+    private long[] nameHashes = new long[1024];
+    private long[] contentHashes = new long[1024];
+    private long[] fingerprints = new long[1024];
+    private long[][] supertypes = new long[1024][];
+    private int size;
+
+    void add(
+        final long nameHash,
+        final long contentHash,
+        final long fingerprint,
+        final long[] supertypes) {
+      if (this.size == this.nameHashes.length) {
+        final var capacity = this.size * 2;
+        this.nameHashes = Arrays.copyOf(this.nameHashes, capacity);
+        this.contentHashes = Arrays.copyOf(this.contentHashes, capacity);
+        this.fingerprints = Arrays.copyOf(this.fingerprints, capacity);
+        this.supertypes = Arrays.copyOf(this.supertypes, capacity);
+      }
+      this.nameHashes[this.size] = nameHash;
+      this.contentHashes[this.size] = contentHash;
+      this.fingerprints[this.size] = fingerprint;
+      this.supertypes[this.size] = supertypes;
+      ++this.size;
+    }
+
+    // write the index into a directory, replacing the old one in one step
+    void write(final Path directory) throws IOException {
+      // the positions sorted by name hash
+      final var sorted = new Integer[this.size];
+      Arrays.setAll(sorted, i -> i);
+      Arrays.sort(sorted, (a, b) -> Long.compare(this.nameHashes[a], this.nameHashes[b]));
+
+      final var file = directory.resolve(FingerprintIndex.FILE_NAME);
+      final var temporary = directory.resolve(FingerprintIndex.FILE_NAME + ".tmp");
+      try (final var out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        out.writeInt(FingerprintIndex.MAGIC);
+        out.writeInt(this.size);
+        var offset = 0;
+        for (final var i : sorted) {
+          out.writeLong(this.nameHashes[i]);
+          out.writeLong(this.contentHashes[i]);
+          out.writeLong(this.fingerprints[i]);
+          out.writeInt(offset);
+          out.writeInt(this.supertypes[i].length);
+          offset += this.supertypes[i].length;
+        }
+        for (final var i : sorted) {
+          for (final var supertype : this.supertypes[i]) {
+            out.writeLong(supertype);
+          }
+        }
+      }
+      Files.move(
+          temporary,
+          file,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    }
+  }
+}
@@ -0,0 +1,130 @@
+package second;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Decodes dropped images on background threads, only at the resolution they are shown at.
+ * <p>
+ * The reader is asked to skip rows and columns ({@link ImageReadParam#setSourceSubsampling})
+ * so a photo of 6000x4000 pixels dropped into a cell of 600x400 pixels is decoded as
+ * 600x400 pixels straight away, instead of decoding all of it and scaling it down after.
+ * <p>
+ * Decoded images are cached by path and modification time, so dropping the same file again
+ * does not decode it again unless it changed or is now shown larger. The cache holds at
+ * most {@link #maxCachedPixels} pixels, the least recently used images are dropped first.
+ *
+ * @author Frank Mayer 215965, Antonia Friese 215937, René Ott 215471
+ * @version 1.1
+ */
+class ImageImporter {
+    // 128 MiB of int pixels
+    private static final long maxCachedPixels = 32L << 20;
+
+    private final ExecutorService executor;
+    // decoded images by file and modification time, least recently used first
+    private final LinkedHashMap<Key, Decoded> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedPixels;
+
+    ImageImporter(int threads) {
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            var thread = new Thread(runnable, "image import");
+            // do not keep the application alive
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Decode an image in the background, at least as large as the given size if the file is
+     * large enough. The future fails if the file cannot be read or is not an image.
+     */
+    CompletableFuture<BufferedImage> load(Path file, int width, int height) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.decode(file, Math.max(width, 1), Math.max(height, 1));
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, this.executor);
+    }
+
+    private BufferedImage decode(Path file, int width, int height) throws IOException {
+        var key = new Key(file.toAbsolutePath(), Files.getLastModifiedTime(file).toMillis());
+        synchronized (this.cache) {
+            var cached = this.cache.get(key);
+            if (cached != null && cached.covers(width, height)) {
+                return cached.image();
+            }
+        }
+
+        try (var in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) {
+                throw new IOException("Cannot read " + file);
+            }
+            var readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                throw new IOException("Not an image: " + file);
+            }
+            var reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+
+                // read every n-th pixel, as many as still cover the requested size
+                var subsampling = Math.max(1,
+                    Math.min(reader.getWidth(0) / width, reader.getHeight(0) / height)
+                );
+                var param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                var image = reader.read(0, param);
+                this.put(key, new Decoded(image, subsampling == 1));
+                return image;
+            }
+            finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void put(Key key, Decoded decoded) {
+        synchronized (this.cache) {
+            var old = this.cache.put(key, decoded);
+            if (old != null) {
+                this.cachedPixels -= old.pixels();
+            }
+            this.cachedPixels += decoded.pixels();
+
+            // drop the least recently used images, but keep the one just decoded
+            var entries = this.cache.values().iterator();
+            while (this.cachedPixels > ImageImporter.maxCachedPixels && this.cache.size() > 1) {
+                this.cachedPixels -= entries.next().pixels();
+                entries.remove();
+            }
+        }
+    }
+
+    private record Key(Path file, long modified) {
+    }
+
+    // a decoded image, complete if it was decoded at full resolution
+    private record Decoded(BufferedImage image, boolean complete) {
+        // good enough to be shown at that size
+        boolean covers(int width, int height) {
+            return this.complete || this.image.getWidth() >= width && this.image.getHeight() >= height;
+        }
+
+        long pixels() {
+            return (long) this.image.getWidth() * this.image.getHeight();
+        }
+    }
+}
@@ -1,15 +1,24 @@
 package second;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.Member;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
+import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
@@ -21,7 +30,49 @@ public class Inspector {
 
   private static final String indent = "    ";
 
+  // reflection results shared by all instances
+  private static final ReflectionCache cache = new ReflectionCache(4096);
+
   public static void main(final String[] args) {
+    // --batch=<jar, directory or package prefix> renders all classes into --out=<directory>
+    final var batch = Inspector.option(args, "batch", null);
+    if (batch != null) {
+      Inspector.batch(args, batch);
+      return;
+    }
+
+    // --serve=<port or socket path> answers requests until a client asks for shutdown
+    final var serve = Inspector.option(args, "serve", null);
+    if (serve != null) {
+      try {
+        new InspectorServer(InspectorServer.address(serve)).run(System.err);
+      } catch (final IOException | IllegalArgumentException e) {
+        System.err.println("Server failed: " + e.getMessage());
+      }
+      return;
+    }
+
+    // --old=<jar, directory or package prefix> --new=<...> reports the API differences
+    final var oldSource = Inspector.option(args, "old", null);
+    if (oldSource != null) {
+      Inspector.diff(args, oldSource);
+      return;
+    }
+
+    // --backend=classfile reads class files instead of loading the classes
+    // --generics shows type arguments
+    final var generics = Inspector.isGenerics(args);
+    final ClassFileBackend backend;
+    try {
+      backend =
+          Inspector.isClassFileBackend(args)
+              ? new ClassFileBackend(ClassSource.classPath(), generics)
+              : null;
+    } catch (final IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      return;
+    }
+
     String className;
     try (var scanner = new Scanner(System.in)) {
       while (true) {
@@ -34,17 +85,129 @@ public class Inspector {
 
         // inspect class
         try {
-          final var clazz = Class.forName(className);
-          final var inspector = new Inspector(clazz);
+          final var inspector =
+              backend == null
+                  ? new Inspector(Class.forName(className), generics)
+                  : new Inspector(backend.model(className));
           System.out.println("\n");
-          System.out.println(inspector);
+          inspector.render(System.out);
+          System.out.println();
         } catch (final ClassNotFoundException e) {
           System.out.println("Class not found: " + className);
+        } catch (final IOException | IllegalArgumentException | LinkageError e) {
+          System.out.println("Cannot read class " + className + ": " + e.getMessage());
         }
       }
     }
   }
 
+  // render all classes of a source in parallel, one file per class
+  private static void batch(final String[] args, final String source) {
+    final var out = Path.of(Inspector.option(args, "out", "inspector"));
+    try (final var classes = ClassSource.open(source)) {
+      final var workers =
+          Integer.parseInt(
+              Inspector.option(
+                  args, "workers", Integer.toString(Runtime.getRuntime().availableProcessors())));
+      final var generics = Inspector.isGenerics(args);
+      final var backend =
+          Inspector.isClassFileBackend(args) ? new ClassFileBackend(classes, generics) : null;
+      // --format=json or --format=binary writes the model instead of Java-like text
+      final var format = Inspector.format(args);
+      // --incremental only renders the classes that changed since the last run into out
+      final var inspectorBatch =
+          new InspectorBatch(
+              classes,
+              out,
+              workers,
+              backend,
+              format,
+              generics,
+              Arrays.asList(args).contains("--incremental"));
+      final var failed = inspectorBatch.run(System.out);
+      if (inspectorBatch.unchanged() > 0) {
+        System.out.printf(
+            "Rendered %d of %d classes into %s (%d unchanged)%n",
+            classes.classNames().size() - failed - inspectorBatch.unchanged(),
+            classes.classNames().size(),
+            out,
+            inspectorBatch.unchanged());
+      } else {
+        System.out.printf(
+            "Rendered %d of %d classes into %s%n",
+            classes.classNames().size() - failed, classes.classNames().size(), out);
+      }
+      // --stats shows how much the shared reflection cache saved
+      if (Arrays.asList(args).contains("--stats")) {
+        System.err.println(Inspector.cache);
+      }
+    } catch (final IOException | IllegalArgumentException e) {
+      System.err.println("Batch failed: " + e.getMessage());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // compare two versions, the class file backend is the default here
+  private static void diff(final String[] args, final String oldSource) {
+    final var newSource = Inspector.option(args, "new", null);
+    if (newSource == null) {
+      System.err.println("Missing --new=<jar, directory or package prefix>");
+      return;
+    }
+    try (final var before = ClassSource.open(oldSource);
+        final var after = ClassSource.open(newSource)) {
+      final var workers =
+          Integer.parseInt(
+              Inspector.option(
+                  args, "workers", Integer.toString(Runtime.getRuntime().availableProcessors())));
+      final var classFiles = Inspector.isClassFileBackend(args, "classfile");
+      final var differences = new ApiDiff(before, after, workers, classFiles).run(System.out);
+      System.err.printf("%d classes differ%n", differences);
+    } catch (final IOException | IllegalArgumentException e) {
+      System.err.println("Diff failed: " + e.getMessage());
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  static boolean isClassFileBackend(final String[] args) {
+    return Inspector.isClassFileBackend(args, "reflection");
+  }
+
+  private static boolean isClassFileBackend(final String[] args, final String fallback) {
+    final var backend = Inspector.option(args, "backend", fallback);
+    if (!backend.equals("reflection") && !backend.equals("classfile")) {
+      throw new IllegalArgumentException("Unknown backend: " + backend);
+    }
+    return backend.equals("classfile");
+  }
+
+  static boolean isGenerics(final String[] args) {
+    return Arrays.asList(args).contains("--generics");
+  }
+
+  private static InspectorBatch.Format format(final String[] args) {
+    final var format = Inspector.option(args, "format", "java");
+    for (final var value : InspectorBatch.Format.values()) {
+      if (value.name().equalsIgnoreCase(format)) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Unknown format: " + format);
+  }
+
+  // value of an option like --name=value, otherwise the fallback
+  static String option(final String[] args, final String name, final String fallback) {
+    final var prefix = "--" + name + '=';
+    for (final var arg : args) {
+      if (arg.startsWith(prefix)) {
+        return arg.substring(prefix.length());
+      }
+    }
+    return fallback;
+  }
+
   // sort members
   private static int memberComparator(final Member a, final Member b) {
     // static first
@@ -66,7 +229,7 @@ public class Inspector {
   }
 
   // sort parameters
-  private static int fieldComparator(final Field a, final Field b) {
+  static int fieldComparator(final Field a, final Field b) {
     final var memberSorting = Inspector.memberComparator(a, b);
     if (memberSorting != 0) {
       return memberSorting;
@@ -80,7 +243,7 @@ public class Inspector {
   }
 
   // sort constructor methods
-  private static int constructorComparator(final Constructor<?> a, final Constructor<?> b) {
+  static int constructorComparator(final Constructor<?> a, final Constructor<?> b) {
     // sort by publicity first (public, protected, private)
     final var aMod = a.getModifiers();
     final var bMod = b.getModifiers();
@@ -112,7 +275,7 @@ public class Inspector {
   }
 
   // sort methods
-  private static int methodComparator(final Method a, final Method b) {
+  static int methodComparator(final Method a, final Method b) {
     final var memberSorting = Inspector.memberComparator(a, b);
     if (memberSorting != 0) {
       return memberSorting;
@@ -149,190 +312,225 @@ public class Inspector {
     return 0;
   }
 
-  // store needed imports by other methods
-  private final SortedSet<String> imports = new TreeSet<>();
-
-  // the class to inspect
-  private final Class<?> clazz;
+  // the model of a loaded class, from the shared cache
+  static ClassModel model(final Class<?> clazz) {
+    return Inspector.model(clazz, false);
+  }
 
-  // store the stringified version of the class for later use
-  private String string;
+  // with generics the types are rendered with their type arguments, like List<String>
+  static ClassModel model(final Class<?> clazz, final boolean generics) {
+    return Inspector.cache.model(clazz, generics);
+  }
 
-  public Inspector(final Class<?> clazz) {
-    this.clazz = clazz;
+  // shared by all instances, e.g. to watch the hit rate
+  public static ReflectionCache cache() {
+    return Inspector.cache;
   }
 
-  // build java like code using reflection
-  @Override
-  public String toString() {
-    if (this.string != null) {
-      return this.string;
+  // build the model of a loaded class using reflection, referenced types come from the cache
+  static ClassModel reflect(
+      final Class<?> clazz, final ReflectionCache cache, final boolean generics) {
+
+    final var fields = new ArrayList<ClassModel.Field>();
+    for (final var field : MemberOrder.sorted(clazz.getFields(), Inspector::fieldComparator)) {
+      fields.add(
+          new ClassModel.Field(
+              field.getModifiers(),
+              field.getName(),
+              cache.type(generics ? field.getGenericType() : field.getType())));
     }
 
-    final StringBuilder sb = new StringBuilder();
-
-    sb.append(this.getPackage()).append('\n');
-
-    final var fields = this.getFields();
-    final var constructors = this.getConstructors();
-    final var methods = this.getMethods();
+    final var constructors = new ArrayList<ClassModel.Executable>();
+    for (final var constructor :
+        MemberOrder.sortedConstructors(
+            clazz.getDeclaredConstructors(), Inspector::constructorComparator)) {
+      constructors.add(
+          new ClassModel.Executable(
+              constructor.getModifiers(),
+              Inspector.typeParameters(constructor.getTypeParameters(), cache, generics),
+              constructor.getName(),
+              null,
+              Inspector.parameters(constructor.getParameters(), cache, generics),
+              List.of()));
+    }
 
-    // create class head
-    final var headSB = new StringBuilder();
-    headSB.append(Modifier.toString(this.clazz.getModifiers()));
-    if (this.clazz.isInterface()) {
-      headSB.append(" interface ");
-    } else if (this.clazz.isEnum()) {
-      headSB.append(" enum ");
-    } else if (this.clazz.isAnnotation()) {
-      headSB.append(" annotation ");
-    } else {
-      headSB.append(" class ");
-    }
-    headSB.append(this.clazz.getSimpleName());
-
-    final var interfaces = this.clazz.getInterfaces();
-    if (interfaces.length > 0) {
-      headSB.append(" implements ");
-      for (var i = 0; i < interfaces.length; ++i) {
-        final var interf = interfaces[i];
-        this.addImport(interf);
-        headSB.append(interf.getSimpleName());
-        if (i < interfaces.length - 1) {
-          headSB.append(", ");
-        }
+    final var methods = new ArrayList<ClassModel.Executable>();
+    for (final var method : MemberOrder.sorted(clazz.getMethods(), Inspector::methodComparator)) {
+      final var annotations = new ArrayList<ClassModel.Annotation>();
+      for (final var annotation : method.getAnnotations()) {
+        annotations.add(
+            new ClassModel.Annotation(
+                annotation.toString(), cache.type(annotation.annotationType())));
       }
+      methods.add(
+          new ClassModel.Executable(
+              method.getModifiers(),
+              Inspector.typeParameters(method.getTypeParameters(), cache, generics),
+              method.getName(),
+              cache.type(generics ? method.getGenericReturnType() : method.getReturnType()),
+              Inspector.parameters(method.getParameters(), cache, generics),
+              annotations));
     }
 
-    final var superclass = this.clazz.getSuperclass();
-    if (superclass != null) {
-      this.addImport(superclass);
-      headSB.append(" extends ").append(superclass.getSimpleName());
+    final String kind;
+    if (clazz.isInterface()) {
+      kind = "interface";
+    } else if (clazz.isEnum()) {
+      kind = "enum";
+    } else if (clazz.isAnnotation()) {
+      kind = "annotation";
+    } else {
+      kind = "class";
     }
 
-    headSB.append(" {\n\n");
-
-    // end of head
-
-    // add imports
-    // get imports at the end because the other methods may add some
-    // dependencies to the imports
-    sb.append(this.getImports()).append("\n\n");
-
-    // add previously created stuff
-    sb.append(headSB);
-    sb.append(Inspector.indent + "// Fields\n").append(fields).append('\n');
-    sb.append(Inspector.indent + "// Constructors\n").append(constructors).append('\n');
-    sb.append(Inspector.indent + "// Methods\n").append(methods).append('\n');
-    sb.append('}');
-
-    return this.string = sb.toString();
-  }
-
-  // get the package name for the class
-  private String getPackage() {
-    return "package " + this.clazz.getPackage().getName() + ";\n";
+    final var interfaces = new ArrayList<ClassModel.Type>();
+    for (final var interf : generics ? clazz.getGenericInterfaces() : clazz.getInterfaces()) {
+      interfaces.add(cache.type(interf));
+    }
+    final Type superclass = generics ? clazz.getGenericSuperclass() : clazz.getSuperclass();
+
+    return new ClassModel(
+        clazz.getName(),
+        clazz.getPackage().getName(),
+        clazz.getModifiers(),
+        kind,
+        clazz.getSimpleName(),
+        Inspector.typeParameters(clazz.getTypeParameters(), cache, generics),
+        interfaces,
+        superclass == null ? null : cache.type(superclass),
+        fields,
+        constructors,
+        methods);
   }
 
-  // get all needed imports
-  private String getImports() {
-    final var sb = new StringBuilder();
-    for (final var imp : this.imports) {
-      sb.append("import " + imp + ";\n");
+  private static List<ClassModel.Parameter> parameters(
+      final Parameter[] parameters, final ReflectionCache cache, final boolean generics) {
+    final var result = new ArrayList<ClassModel.Parameter>(parameters.length);
+    for (final var parameter : parameters) {
+      final var type =
+          cache.type(generics ? parameter.getParameterizedType() : parameter.getType());
+      result.add(new ClassModel.Parameter(type, parameter.getName()));
     }
-    return sb.toString();
+    return result;
   }
 
-  // get all constructors
-  private String getConstructors() {
-    final var sb = new StringBuilder();
-    final var className = this.clazz.getSimpleName();
-    final var constructors =
-        Arrays.stream(this.clazz.getDeclaredConstructors())
-            .sorted(Inspector::constructorComparator)
-            .toList();
-    for (final var constructor : constructors) {
-      sb.append(Inspector.indent);
-
-      final var mod = Modifier.toString(constructor.getModifiers());
-      if (!mod.isEmpty()) {
-        sb.append(mod).append(' ');
-      }
-
-      sb.append(className).append('(');
-      final Parameter[] parameters = constructor.getParameters();
-      for (var i = 0; i < parameters.length; ++i) {
-        this.addImport(parameters[i].getType());
-        final Parameter parameter = parameters[i];
-        sb.append(parameter.getType().getSimpleName() + ' ' + parameter.getName());
-        if (i < parameters.length - 1) {
-          sb.append(", ");
+  // declarations like <K, V extends Comparable<? super V>>, a lone Object bound is left out like
+  // in source code
+  private static List<ClassModel.Type> typeParameters(
+      final TypeVariable<?>[] variables, final ReflectionCache cache, final boolean generics) {
+    if (!generics || variables.length == 0) {
+      return List.of();
+    }
+    final var result = new ArrayList<ClassModel.Type>(variables.length);
+    for (final var variable : variables) {
+      final var imports = new TreeSet<String>();
+      final var rendered = new StringBuilder(variable.getName());
+      final var bounds = variable.getBounds();
+      if (bounds.length > 1 || bounds[0] != Object.class) {
+        for (var i = 0; i < bounds.length; ++i) {
+          final var bound = cache.type(bounds[i]);
+          imports.addAll(bound.imports());
+          rendered.append(i > 0 ? " & " : " extends ").append(bound.simpleName());
         }
       }
-      sb.append(");\n");
+      result.add(
+          new ClassModel.Type(variable.getName(), rendered.toString(), List.copyOf(imports)));
     }
-    return sb.toString();
+    return result;
   }
 
-  // get all methods
-  private String getMethods() {
-    final var sb = new StringBuilder();
-    final var methods =
-        Arrays.stream(this.clazz.getMethods()).sorted(Inspector::methodComparator).toList();
-    for (final var method : methods) {
-      final var ano = method.getAnnotations();
-      if (ano.length > 0) {
-        for (final var annotation : ano) {
-          sb.append(Inspector.indent).append(Inspector.indent).append(annotation).append('\n');
-          this.addImport(annotation.annotationType());
-        }
-      }
-      this.addImport(method.getReturnType());
-      sb.append(Inspector.indent);
+  // simple name and imports of a referenced type
+  static ClassModel.Type type(final Class<?> t) {
+    final var imports = new TreeSet<String>();
+    Inspector.addImport(t, imports);
+    return new ClassModel.Type(t.getName(), t.getSimpleName(), List.copyOf(imports));
+  }
 
-      final var mod = Modifier.toString(method.getModifiers());
-      if (!mod.isEmpty()) {
-        sb.append(mod).append(' ');
-      }
+  // a generic type rendered like in source code, e.g. Map<K, List<? extends V>>; the name is the
+  // one of the erasure, so members sort the same way with and without generics
+  static ClassModel.Type type(final Type t, final ReflectionCache cache) {
+    final var imports = new TreeSet<String>();
+    final var rendered = new StringBuilder();
+    Inspector.render(t, cache, rendered, imports);
+    return new ClassModel.Type(
+        Inspector.erasure(t).getName(), rendered.toString(), List.copyOf(imports));
+  }
 
-      sb.append(method.getReturnType().getSimpleName())
-          .append(' ')
-          .append(method.getName())
-          .append('(');
-
-      final Parameter[] parameters = method.getParameters();
-      for (int i = 0; i < parameters.length; i++) {
-        final Parameter parameter = parameters[i];
-        sb.append(parameter.getType().getSimpleName()).append(' ').append(parameter.getName());
-        if (i < parameters.length - 1) {
-          sb.append(", ");
+  private static void render(
+      final Type t,
+      final ReflectionCache cache,
+      final StringBuilder out,
+      final Set<String> imports) {
+    // the parts come from the cache, so each one is only rendered once
+    if (t instanceof ParameterizedType) {
+      final var parameterized = (ParameterizedType) t;
+      final var raw = cache.type(parameterized.getRawType());
+      imports.addAll(raw.imports());
+      out.append(raw.simpleName());
+      final var arguments = parameterized.getActualTypeArguments();
+      if (arguments.length > 0) {
+        out.append('<');
+        for (var i = 0; i < arguments.length; ++i) {
+          if (i > 0) {
+            out.append(", ");
+          }
+          final var argument = cache.type(arguments[i]);
+          imports.addAll(argument.imports());
+          out.append(argument.simpleName());
         }
+        out.append('>');
+      }
+    } else if (t instanceof GenericArrayType) {
+      final var array = (GenericArrayType) t;
+      final var component = cache.type(array.getGenericComponentType());
+      imports.addAll(component.imports());
+      out.append(component.simpleName()).append("[]");
+    } else if (t instanceof WildcardType) {
+      final var wildcard = (WildcardType) t;
+      final var lower = wildcard.getLowerBounds();
+      final var upper = wildcard.getUpperBounds();
+      final Type bound;
+      if (lower.length > 0) {
+        out.append("? super ");
+        bound = lower[0];
+      } else if (upper.length > 0 && upper[0] != Object.class) {
+        out.append("? extends ");
+        bound = upper[0];
+      } else {
+        out.append('?');
+        return;
       }
-      sb.append(");\n");
+      final var type = cache.type(bound);
+      imports.addAll(type.imports());
+      out.append(type.simpleName());
+    } else if (t instanceof TypeVariable) {
+      out.append(((TypeVariable<?>) t).getName());
+    } else {
+      final var type = cache.type((Class<?>) t);
+      imports.addAll(type.imports());
+      out.append(type.simpleName());
     }
-
-    return sb.toString();
   }
 
-  // get all fields
-  private String getFields() {
-    final var sb = new StringBuilder();
-    final var fields =
-        Arrays.stream(this.clazz.getFields()).sorted(Inspector::fieldComparator).toList();
-    for (final Field field : fields) {
-      this.addImport(field.getType());
-      final var mod = Modifier.toString(field.getModifiers());
-      sb.append(Inspector.indent);
-      if (!mod.isEmpty()) {
-        sb.append(mod).append(' ');
-      }
-      sb.append(field.getType().getSimpleName()).append(' ').append(field.getName()).append(";\n");
+  // the class a generic type erases to, like Field.getType() for Field.getGenericType()
+  private static Class<?> erasure(final Type t) {
+    if (t instanceof ParameterizedType) {
+      return (Class<?>) ((ParameterizedType) t).getRawType();
+    }
+    if (t instanceof GenericArrayType) {
+      return Inspector.erasure(((GenericArrayType) t).getGenericComponentType()).arrayType();
+    }
+    if (t instanceof WildcardType) {
+      return Inspector.erasure(((WildcardType) t).getUpperBounds()[0]);
     }
-    return sb.toString();
+    if (t instanceof TypeVariable) {
+      return Inspector.erasure(((TypeVariable<?>) t).getBounds()[0]);
+    }
+    return (Class<?>) t;
   }
 
   // add dependency to the imports
-  private void addImport(final Class<?> t) {
+  private static void addImport(final Class<?> t, final Set<String> imports) {
     // primitive values
     if (t.isPrimitive()) {
       return;
@@ -340,35 +538,240 @@ public class Inspector {
 
     // array
     if (t.isArray()) {
-      this.addImport(t.getComponentType());
+      Inspector.addImport(t.getComponentType(), imports);
       return;
     }
 
-    this.addImport(t.getPackageName() + '.' + t.getSimpleName());
+    // bounds that refer back to this class were already added
+    if (!imports.add(t.getPackageName() + '.' + t.getSimpleName())) {
+      return;
+    }
 
     // generic
     for (final var genT : t.getTypeParameters()) {
       for (final var bound : genT.getBounds()) {
-        this.addImport(bound);
+        Inspector.addImport(bound, imports);
       }
     }
   }
 
   // add dependency to the imports
-  private void addImport(final String type) {
-    this.imports.add(type);
-  }
-
-  // add dependency to the imports
-  private void addImport(final Type t) {
+  private static void addImport(final Type t, final Set<String> imports) {
     if (t instanceof Class) {
-      this.addImport((Class<?>) t);
+      Inspector.addImport((Class<?>) t, imports);
     }
 
     if (t instanceof WildcardType) {
       for (final var bound : ((WildcardType) t).getUpperBounds()) {
-        this.addImport(bound);
+        Inspector.addImport(bound, imports);
+      }
+    }
+  }
+
+  // what to render
+  private final ClassModel model;
+
+  // store the stringified version of the class for later use
+  private String string;
+
+  public Inspector(final Class<?> clazz) {
+    this(Inspector.model(clazz));
+  }
+
+  // with generics types are shown with their type arguments, like Map<K, List<V>>
+  public Inspector(final Class<?> clazz, final boolean generics) {
+    this(Inspector.model(clazz, generics));
+  }
+
+  Inspector(final ClassModel model) {
+    this.model = model;
+  }
+
+  // build java like code from the model
+  @Override
+  public String toString() {
+    if (this.string != null) {
+      return this.string;
+    }
+
+    final var sb = new StringBuilder();
+    try {
+      this.render(sb);
+    } catch (final IOException e) {
+      // a StringBuilder does not throw
+      throw new UncheckedIOException(e);
+    }
+    return this.string = sb.toString();
+  }
+
+  /**
+   * Writes the same text as {@link #toString()} straight to {@code out}, e.g. a buffered file
+   * writer, without building the whole text in memory first. The imports are collected from the
+   * model beforehand, so everything is written in a single pass and nothing is cached.
+   */
+  public void render(final Appendable out) throws IOException {
+    out.append("package ").append(this.model.packageName()).append(";\n").append('\n');
+
+    for (final var imp : this.getImports()) {
+      out.append("import ").append(imp).append(";\n");
+    }
+    out.append("\n\n");
+
+    this.renderHead(out);
+    out.append(Inspector.indent + "// Fields\n");
+    this.renderFields(out);
+    out.append('\n');
+    out.append(Inspector.indent + "// Constructors\n");
+    this.renderConstructors(out);
+    out.append('\n');
+    out.append(Inspector.indent + "// Methods\n");
+    this.renderMethods(out);
+    out.append('\n');
+    out.append('}');
+  }
+
+  // get all needed imports, the same types the sections below print with their simple name
+  // (except for method parameters)
+  private SortedSet<String> getImports() {
+    final var imports = new TreeSet<String>();
+    for (final var parameter : this.model.typeParameters()) {
+      imports.addAll(parameter.imports());
+    }
+    for (final var interf : this.model.interfaces()) {
+      imports.addAll(interf.imports());
+    }
+    if (this.model.superclass() != null) {
+      imports.addAll(this.model.superclass().imports());
+    }
+    for (final var field : this.model.fields()) {
+      imports.addAll(field.type().imports());
+    }
+    for (final var constructor : this.model.constructors()) {
+      for (final var parameter : constructor.typeParameters()) {
+        imports.addAll(parameter.imports());
+      }
+      for (final var parameter : constructor.parameters()) {
+        imports.addAll(parameter.type().imports());
+      }
+    }
+    for (final var method : this.model.methods()) {
+      for (final var annotation : method.annotations()) {
+        imports.addAll(annotation.type().imports());
+      }
+      for (final var parameter : method.typeParameters()) {
+        imports.addAll(parameter.imports());
+      }
+      imports.addAll(method.returnType().imports());
+    }
+    return imports;
+  }
+
+  // create class head
+  private void renderHead(final Appendable out) throws IOException {
+    out.append(Modifier.toString(this.model.modifiers()));
+    out.append(' ').append(this.model.kind()).append(' ');
+    out.append(this.model.simpleName());
+    Inspector.renderTypeParameters(out, this.model.typeParameters());
+
+    final var interfaces = this.model.interfaces();
+    if (!interfaces.isEmpty()) {
+      out.append(" implements ");
+      for (var i = 0; i < interfaces.size(); ++i) {
+        out.append(interfaces.get(i).simpleName());
+        if (i < interfaces.size() - 1) {
+          out.append(", ");
+        }
+      }
+    }
+
+    final var superclass = this.model.superclass();
+    if (superclass != null) {
+      out.append(" extends ").append(superclass.simpleName());
+    }
+
+    out.append(" {\n\n");
+  }
+
+  // write all constructors
+  private void renderConstructors(final Appendable out) throws IOException {
+    final var className = this.model.simpleName();
+    for (final var constructor : this.model.constructors()) {
+      out.append(Inspector.indent);
+
+      final var mod = Modifier.toString(constructor.modifiers());
+      if (!mod.isEmpty()) {
+        out.append(mod).append(' ');
+      }
+      if (!constructor.typeParameters().isEmpty()) {
+        Inspector.renderTypeParameters(out, constructor.typeParameters());
+        out.append(' ');
+      }
+
+      out.append(className).append('(');
+      Inspector.renderParameters(out, constructor.parameters());
+      out.append(");\n");
+    }
+  }
+
+  // write all methods
+  private void renderMethods(final Appendable out) throws IOException {
+    for (final var method : this.model.methods()) {
+      for (final var annotation : method.annotations()) {
+        out.append(Inspector.indent + Inspector.indent).append(annotation.text()).append('\n');
+      }
+      out.append(Inspector.indent);
+
+      final var mod = Modifier.toString(method.modifiers());
+      if (!mod.isEmpty()) {
+        out.append(mod).append(' ');
+      }
+      if (!method.typeParameters().isEmpty()) {
+        Inspector.renderTypeParameters(out, method.typeParameters());
+        out.append(' ');
+      }
+
+      out.append(method.returnType().simpleName()).append(' ').append(method.name()).append('(');
+      Inspector.renderParameters(out, method.parameters());
+      out.append(");\n");
+    }
+  }
+
+  // like <K, V extends Comparable<? super V>>, nothing if there are none
+  private static void renderTypeParameters(
+      final Appendable out, final List<ClassModel.Type> typeParameters) throws IOException {
+    if (typeParameters.isEmpty()) {
+      return;
+    }
+    out.append('<');
+    for (var i = 0; i < typeParameters.size(); ++i) {
+      if (i > 0) {
+        out.append(", ");
+      }
+      out.append(typeParameters.get(i).simpleName());
+    }
+    out.append('>');
+  }
+
+  private static void renderParameters(
+      final Appendable out, final List<ClassModel.Parameter> parameters) throws IOException {
+    for (var i = 0; i < parameters.size(); ++i) {
+      final var parameter = parameters.get(i);
+      out.append(parameter.type().simpleName()).append(' ').append(parameter.name());
+      if (i < parameters.size() - 1) {
+        out.append(", ");
+      }
+    }
+  }
+
+  // write all fields
+  private void renderFields(final Appendable out) throws IOException {
+    for (final var field : this.model.fields()) {
+      final var mod = Modifier.toString(field.modifiers());
+      out.append(Inspector.indent);
+      if (!mod.isEmpty()) {
+        out.append(mod).append(' ');
       }
+      out.append(field.type().simpleName()).append(' ').append(field.name()).append(";\n");
     }
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,277 @@
+package second;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Renders every class of a {@link ClassSource} with {@link Inspector} on a pool of worker threads
+ * and writes one file per class, e.g. {@code java/util/Map$Entry.java} below the output directory.
+ *
+ * <p>Classes are handed to the pool in sorted order and the results are reported in that same
+ * order, so the log and the written files do not depend on the number of workers.
+ *
+ * <p>Besides the Java-like text the classes can be written as JSON ({@link ClassModelJson}) or in
+ * the binary form of {@link ClassModelBinary}.
+ *
+ * <p>An incremental batch keeps a {@link FingerprintIndex} in the output directory and only renders
+ * the classes whose fingerprint changed since the last run or whose file is missing. The
+ * fingerprint covers the class file, the format and options, and the fingerprints of the
+ * supertypes from the same source, since their public members are rendered too. Supertypes from
+ * elsewhere, e.g. the JDK for a jar, are not covered, and the files of removed classes are left
+ * behind.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+final class InspectorBatch {
+
+  /** What to write for each class. */
+  enum Format {
+    JAVA(".java"),
+    JSON(".json"),
+    BINARY(".icm");
+
+    final String extension;
+
+    Format(final String extension) {
+      this.extension = extension;
+    }
+  }
+
+  private final ClassSource source;
+
+  private final Path out;
+
+  private final int workers;
+
+  // reads the class files instead of loading the classes, null to use reflection
+  private final ClassFileBackend backend;
+
+  private final Format format;
+
+  // render types with their type arguments, only used with reflection, a backend knows it itself
+  private final boolean generics;
+
+  // skip classes that did not change since the last run
+  private final boolean incremental;
+
+  // classes skipped by the last run
+  private int unchanged;
+
+  InspectorBatch(
+      final ClassSource source,
+      final Path out,
+      final int workers,
+      final ClassFileBackend backend,
+      final Format format,
+      final boolean generics,
+      final boolean incremental) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Invalid number of workers: " + workers);
+    }
+    this.source = source;
+    this.out = out;
+    this.workers = workers;
+    this.backend = backend;
+    this.format = format;
+    this.generics = generics;
+    this.incremental = incremental;
+  }
+
+  // render all classes, log one line per rendered class and return the number of failed classes
+  int run(final PrintStream log) throws IOException, InterruptedException {
+    Files.createDirectories(this.out);
+    final var classNames = this.source.classNames();
+    final var fingerprints = this.incremental ? new Fingerprints() : null;
+    final var index = this.incremental ? FingerprintIndex.open(this.out) : null;
+
+    final var pool = Executors.newFixedThreadPool(this.workers);
+    try {
+      // null for classes that did not change
+      final var results = new ArrayList<Future<String>>();
+      this.unchanged = 0;
+      for (var i = 0; i < classNames.size(); ++i) {
+        final var className = classNames.get(i);
+        if (fingerprints != null && fingerprints.isUnchanged(i, index, this.file(className))) {
+          results.add(null);
+          ++this.unchanged;
+        } else {
+          results.add(pool.submit(() -> this.render(className)));
+        }
+      }
+
+      var failed = 0;
+      final var next = fingerprints == null ? null : new FingerprintIndex.Builder();
+      for (var i = 0; i < results.size(); ++i) {
+        try {
+          if (results.get(i) != null) {
+            log.println(results.get(i).get());
+          }
+          if (next != null) {
+            fingerprints.add(i, next);
+          }
+        } catch (final ExecutionException e) {
+          // not in the next index, so it is tried again
+          ++failed;
+          log.println("Failed: " + classNames.get(i) + " (" + e.getCause() + ")");
+        }
+      }
+      if (next != null) {
+        next.write(this.out);
+      }
+      return failed;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  // number of classes the last run skipped because they did not change
+  int unchanged() {
+    return this.unchanged;
+  }
+
+  private Path file(final String className) {
+    return this.out.resolve(className.replace('.', '/') + this.format.extension);
+  }
+
+  // render one class straight into its own file and return the written path, errors like a
+  // missing dependency end up in the future
+  private String render(final String className) throws Exception {
+    final var model =
+        this.backend == null
+            ? Inspector.model(this.source.load(className), this.generics)
+            : this.backend.model(className);
+    final var file = this.file(className);
+    Files.createDirectories(file.getParent());
+    if (this.format == Format.BINARY) {
+      try (final var stream = new BufferedOutputStream(Files.newOutputStream(file))) {
+        ClassModelBinary.write(model, stream);
+      }
+      return file.toString();
+    }
+    try (final var writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+      if (this.format == Format.JSON) {
+        ClassModelJson.write(model, writer);
+      } else {
+        new Inspector(model).render(writer);
+      }
+    }
+    return file.toString();
+  }
+
+  /** The fingerprints of all classes of the source, computed on first use. */
+  private final class Fingerprints {
+
+    // position of each class in the source by the hash of its name
+    private final Map<Long, Integer> positions = new HashMap<>();
+
+    private final long[] nameHashes;
+
+    private final long[] contentHashes;
+
+    // 0 until computed
+    private final long[] fingerprints;
+
+    private final long[][] supertypes;
+
+    // format and options, a class rendered differently gets a different fingerprint
+    private final long options;
+
+    Fingerprints() {
+      final var classNames = InspectorBatch.this.source.classNames();
+      this.nameHashes = new long[classNames.size()];
+      this.contentHashes = new long[classNames.size()];
+      this.fingerprints = new long[classNames.size()];
+      this.supertypes = new long[classNames.size()][];
+      for (var i = 0; i < classNames.size(); ++i) {
+        this.nameHashes[i] = FingerprintIndex.nameHash(classNames.get(i));
+        this.positions.put(this.nameHashes[i], i);
+      }
+      var options = FingerprintIndex.nameHash(InspectorBatch.this.format.name());
+      options = FingerprintIndex.mix(options, InspectorBatch.this.generics ? 1 : 0);
+      this.options = FingerprintIndex.mix(options, InspectorBatch.this.backend == null ? 0 : 1);
+    }
+
+    // true if the class has the same fingerprint as in the index and its file is still there
+    boolean isUnchanged(final int position, final FingerprintIndex index, final Path file)
+        throws IOException {
+      // computed for every class, the next index needs it
+      final var fingerprint = this.fingerprint(position, index);
+      final var entry = index.find(this.nameHashes[position]);
+      return entry >= 0 && fingerprint == index.fingerprint(entry) && Files.exists(file);
+    }
+
+    // add a class to the next index
+    void add(final int position, final FingerprintIndex.Builder builder) {
+      builder.add(
+          this.nameHashes[position],
+          this.contentHashes[position],
+          this.fingerprints[position],
+          this.supertypes[position]);
+    }
+
+    private long fingerprint(final int position, final FingerprintIndex index)
+        throws IOException {
+      if (this.fingerprints[position] != 0) {
+        return this.fingerprints[position];
+      }
+      final var className = InspectorBatch.this.source.classNames().get(position);
+      final var contentHash = InspectorBatch.this.source.contentHash(className);
+      this.contentHashes[position] = contentHash;
+
+      // the supertypes only have to be read from the class file if it changed
+      final var entry = index.find(this.nameHashes[position]);
+      this.supertypes[position] =
+          entry >= 0 && index.contentHash(entry) == contentHash
+              ? index.supertypes(entry)
+              : this.readSupertypes(className);
+
+      // marks the class as in progress, a cycle cannot recurse forever
+      this.fingerprints[position] = 1;
+      var fingerprint = FingerprintIndex.mix(this.options, contentHash);
+      for (final var supertype : this.supertypes[position]) {
+        final var superPosition = this.positions.get(supertype);
+        if (superPosition != null) {
+          fingerprint =
+              FingerprintIndex.mix(fingerprint, this.fingerprint(superPosition, index));
+        }
+      }
+      // 0 and 1 are taken
+      this.fingerprints[position] = fingerprint == 0 || fingerprint == 1 ? 2 : fingerprint;
+      return this.fingerprints[position];
+    }
+
+    // name hashes of the superclass and interfaces, none if the class file cannot be read
+    private long[] readSupertypes(final String className) throws IOException {
+      final var bytes = InspectorBatch.this.source.classFile(className);
+      if (bytes == null) {
+        return new long[0];
+      }
+      final ClassFile file;
+      try {
+        file = new ClassFile(bytes);
+      } catch (final RuntimeException | ClassFormatError e) {
+        // rendering will fail and report it
+        return new long[0];
+      }
+      final var supertypes = new long[file.interfaces.length + (file.superName == null ? 0 : 1)];
+      for (var i = 0; i < file.interfaces.length; ++i) {
+        supertypes[i] = FingerprintIndex.nameHash(file.interfaces[i]);
+      }
+      if (file.superName != null) {
+        supertypes[file.interfaces.length] = FingerprintIndex.nameHash(file.superName);
+      }
+      return supertypes;
+    }
+  }
+}
@@ -0,0 +1,364 @@
+package second;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Answers inspection requests over a local socket, so tools do not have to start a JVM per class.
+ * Opened class sources, class file backends and the reflection cache of {@link Inspector} stay warm
+ * between requests and are shared by all clients.
+ *
+ * <p>The server listens on a loopback TCP port or on a Unix domain socket. A client sends one
+ * request per line and gets one line of JSON back:
+ *
+ * <pre>
+ * inspect java.util.List               {"ok":true,"micros":412,"text":"package java.util;..."}
+ * inspect java.util.List --format=json {"ok":true,"micros":97,"model":{"name":"java.util...}}
+ * inspect Foo --source=lib/foo.jar     {"ok":false,"micros":51,"error":"Class not found: Foo"}
+ * stats                                {"ok":true,"requests":3,"errors":1,...}
+ * quit                                 closes the connection
+ * shutdown                             stops the server
+ * </pre>
+ *
+ * <p>{@code inspect} takes the options of the command line: {@code --source=<jar, directory or
+ * package prefix>} (the class path by default), {@code --backend=classfile}, {@code --generics}
+ * and {@code --format=json}. {@code stats} reports the number of requests and errors, the latency
+ * of the requests (mean, maximum and percentiles, the latter rounded up to a power of two
+ * microseconds) and the state of the caches.
+ *
+ * <p>Each client is served by its own thread of a cached pool. The {@value #MAX_SOURCES} sources
+ * used last stay open; a source pushed out by another one is closed once no request uses it.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+final class InspectorServer {
+
+  // most sources kept open, opening another one closes the least recently used one
+  private static final int MAX_SOURCES = 16;
+
+  private final SocketAddress address;
+
+  // opened sources by their name, "" for the class path, least recently used first
+  private final LinkedHashMap<String, OpenSource> sources = new LinkedHashMap<>(16, 0.75f, true);
+
+  private final AtomicLong requests = new AtomicLong();
+
+  private final AtomicLong errors = new AtomicLong();
+
+  private final AtomicLong totalMicros = new AtomicLong();
+
+  private final AtomicLong maxMicros = new AtomicLong();
+
+  // number of requests per latency, bucket b holds latencies below 2^b microseconds
+  private final AtomicLongArray latencies = new AtomicLongArray(64);
+
+  private ServerSocketChannel server;
+
+  InspectorServer(final SocketAddress address) {
+    this.address = address;
+  }
+
+  // a port number for a loopback TCP port, anything else is the path of a Unix domain socket
+  static SocketAddress address(final String value) {
+    if (!value.isEmpty() && value.chars().allMatch(Character::isDigit)) {
+      return new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(value));
+    }
+    return UnixDomainSocketAddress.of(value);
+  }
+
+  // serve clients until a client asks for shutdown
+  void run(final PrintStream log) throws IOException {
+    final var unix = this.address instanceof UnixDomainSocketAddress;
+    final ExecutorService pool = Executors.newCachedThreadPool();
+    var bound = false;
+    final var family = unix ? StandardProtocolFamily.UNIX : StandardProtocolFamily.INET;
+    try (final var server = ServerSocketChannel.open(family)) {
+      server.bind(this.address);
+      bound = true;
+      synchronized (this) {
+        this.server = server;
+      }
+      log.println("Listening on " + server.getLocalAddress());
+      while (true) {
+        final SocketChannel client;
+        try {
+          client = server.accept();
+        } catch (final ClosedChannelException e) {
+          // shutdown
+          break;
+        }
+        pool.execute(() -> this.serve(client));
+      }
+    } finally {
+      pool.shutdownNow();
+      // the socket file of another server is left alone
+      if (unix && bound) {
+        Files.deleteIfExists(((UnixDomainSocketAddress) this.address).getPath());
+      }
+      synchronized (this.sources) {
+        for (final var open : this.sources.values()) {
+          open.source.close();
+        }
+        this.sources.clear();
+      }
+    }
+  }
+
+  private synchronized void shutdown() throws IOException {
+    if (this.server != null) {
+      this.server.close();
+    }
+  }
+
+  // answer the requests of one client until it quits or disconnects
+  private void serve(final SocketChannel client) {
+    try (client;
+        final var in =
+            new BufferedReader(Channels.newReader(client, StandardCharsets.UTF_8));
+        final var out =
+            new BufferedWriter(Channels.newWriter(client, StandardCharsets.UTF_8))) {
+      String line;
+      while ((line = in.readLine()) != null) {
+        final var request = line.trim().split("\\s+");
+        switch (request[0]) {
+          case "" -> {
+            continue;
+          }
+          case "quit" -> {
+            return;
+          }
+          case "shutdown" -> {
+            out.write("{\"ok\":true}\n");
+            out.flush();
+            this.shutdown();
+            return;
+          }
+          case "stats" -> this.stats(out);
+          case "inspect" -> this.inspect(request, out);
+          default -> {
+            out.write("{\"ok\":false,\"error\":");
+            ClassModelJson.string("Unknown request: " + request[0], out);
+            out.write("}");
+          }
+        }
+        out.write('\n');
+        out.flush();
+      }
+    } catch (final IOException e) {
+      // the client went away
+    }
+  }
+
+  // render one class, the answer is written as a whole so a failure cannot leave half of it
+  private void inspect(final String[] request, final Writer out) throws IOException {
+    final var start = System.nanoTime();
+    final var answer = new StringBuilder();
+    var ok = false;
+    try {
+      if (request.length < 2) {
+        throw new IllegalArgumentException("Missing class name");
+      }
+      final var className = request[1];
+      final var model = this.model(className, request);
+      final var format = Inspector.option(request, "format", "java");
+      if (format.equals("json")) {
+        answer.append(",\"model\":");
+        ClassModelJson.write(model, answer);
+        // one line per answer
+        answer.setLength(answer.length() - 1);
+      } else if (format.equals("java")) {
+        answer.append(",\"text\":");
+        final var text = new StringBuilder();
+        new Inspector(model).render(text);
+        ClassModelJson.string(text, answer);
+      } else {
+        throw new IllegalArgumentException("Unknown format: " + format);
+      }
+      ok = true;
+    } catch (final ClassNotFoundException e) {
+      answer.setLength(0);
+      answer.append(",\"error\":");
+      ClassModelJson.string("Class not found: " + e.getMessage(), answer);
+    } catch (final IOException | RuntimeException | LinkageError e) {
+      // a corrupt class file or a bug must not cost the client its answer
+      answer.setLength(0);
+      answer.append(",\"error\":");
+      ClassModelJson.string(e.toString(), answer);
+    }
+
+    final var micros = (System.nanoTime() - start) / 1000;
+    this.record(micros, ok);
+    out.write(ok ? "{\"ok\":true,\"micros\":" : "{\"ok\":false,\"micros\":");
+    out.write(Long.toString(micros));
+    out.append(answer).append('}');
+  }
+
+  private ClassModel model(final String className, final String[] request)
+      throws ClassNotFoundException, IOException {
+    final var open = this.acquire(Inspector.option(request, "source", ""));
+    try {
+      final var generics = Inspector.isGenerics(request);
+      if (!Inspector.isClassFileBackend(request)) {
+        return Inspector.model(open.source.load(className), generics);
+      }
+      return open.backends
+          .computeIfAbsent(generics, key -> new ClassFileBackend(open.source, generics))
+          .model(className);
+    } finally {
+      this.release(open);
+    }
+  }
+
+  // the open source of that name, opened if needed; it stays open until it is released
+  private OpenSource acquire(final String name) throws IOException {
+    synchronized (this.sources) {
+      final var open = this.sources.get(name);
+      if (open != null) {
+        ++open.users;
+        return open;
+      }
+    }
+
+    // opening scans the source, other requests go on meanwhile
+    final var source = name.isEmpty() ? ClassSource.classPath() : ClassSource.open(name);
+    synchronized (this.sources) {
+      var open = this.sources.get(name);
+      if (open == null) {
+        open = new OpenSource(source);
+        this.sources.put(name, open);
+      } else {
+        // another request opened it first
+        source.close();
+      }
+      ++open.users;
+
+      // close the least recently used sources once nobody uses them anymore
+      final var iterator = this.sources.values().iterator();
+      while (this.sources.size() > InspectorServer.MAX_SOURCES) {
+        final var eldest = iterator.next();
+        iterator.remove();
+        eldest.evicted = true;
+        if (eldest.users == 0) {
+          eldest.source.close();
+        }
+      }
+      return open;
+    }
+  }
+
+  private void release(final OpenSource open) throws IOException {
+    synchronized (this.sources) {
+      --open.users;
+      if (open.evicted && open.users == 0) {
+        open.source.close();
+      }
+    }
+  }
+
+  private void record(final long micros, final boolean ok) {
+    this.requests.incrementAndGet();
+    if (!ok) {
+      this.errors.incrementAndGet();
+    }
+    this.totalMicros.addAndGet(micros);
+    this.maxMicros.accumulateAndGet(micros, Math::max);
+    this.latencies.incrementAndGet(64 - Long.numberOfLeadingZeros(micros));
+  }
+
+  private void stats(final Writer out) throws IOException {
+    final var requests = this.requests.get();
+    final var cache = Inspector.cache();
+    var sources = 0;
+    var backends = 0;
+    var classFiles = 0;
+    synchronized (this.sources) {
+      sources = this.sources.size();
+      for (final var open : this.sources.values()) {
+        backends += open.backends.size();
+        for (final var backend : open.backends.values()) {
+          classFiles += backend.classFiles();
+        }
+      }
+    }
+    out.write(
+        String.format(
+            Locale.ROOT,
+            "{\"ok\":true,\"requests\":%d,\"errors\":%d,\"latency\":{\"meanMicros\":%d,"
+                + "\"maxMicros\":%d,\"p50Micros\":%d,\"p90Micros\":%d,\"p99Micros\":%d},"
+                + "\"reflectionCache\":{\"size\":%d,\"hits\":%d,\"misses\":%d,"
+                + "\"evictions\":%d,\"hitRate\":%.4f},"
+                + "\"sources\":%d,\"backends\":%d,\"classFiles\":%d}",
+            requests,
+            this.errors.get(),
+            requests == 0 ? 0 : this.totalMicros.get() / requests,
+            this.maxMicros.get(),
+            this.percentile(0.5),
+            this.percentile(0.9),
+            this.percentile(0.99),
+            cache.size(),
+            cache.hits(),
+            cache.misses(),
+            cache.evictions(),
+            cache.hitRate(),
+            sources,
+            backends,
+            classFiles));
+  }
+
+  // upper bound of the latency below which the given share of the requests was answered
+  private long percentile(final double share) {
+    var total = 0L;
+    for (var b = 0; b < this.latencies.length(); ++b) {
+      total += this.latencies.get(b);
+    }
+    var count = 0L;
+    for (var b = 0; b < this.latencies.length(); ++b) {
+      count += this.latencies.get(b);
+      if (count > 0 && count >= share * total) {
+        return 1L << b;
+      }
+    }
+    return 0;
+  }
+
+  /** A source shared by the requests that use it, with its class file backends. */
+  private static final class OpenSource {
+    final ClassSource source;
+
+    // by whether they render generics
+    final Map<Boolean, ClassFileBackend> backends = new ConcurrentHashMap<>();
+
+    // requests using it right now, guarded by the map of sources
+    int users;
+
+    // no longer in the map of sources, closed once the last request is done
+    boolean evicted;
+
+    OpenSource(final ClassSource source) {
+      this.source = source;
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package second;
+
+import java.util.Arrays;
+
+/**
+ * Offen adressierte Hashmenge für primitive {@code long}-Werte mit linearer Sondierung. Jeder
+ * Eintrag belegt genau einen Platz im Tabellen-Array, es werden keine Wrapper-Objekte erzeugt.
+ *
+ * <p>Negative Werte sind nicht erlaubt, da {@code -1} freie Plätze markiert.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+final class LongHashSet {
+  private static final long EMPTY = -1L;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private long[] table;
+  private int mask;
+  private int size;
+  private int threshold;
+
+  LongHashSet(final int expectedSize) {
+    var capacity = 16;
+    while (capacity < LongHashSet.MAX_CAPACITY && capacity - (capacity >>> 2) < expectedSize) {
+      capacity <<= 1;
+    }
+    this.allocate(capacity);
+  }
+
+  // fügt den Wert hinzu, true falls er vorher noch nicht enthalten war
+  boolean add(final long value) {
+    if (value < 0) {
+      throw new IllegalArgumentException("Negative Werte sind nicht erlaubt: " + value);
+    }
+
+    var i = LongHashSet.hash(value) & this.mask;
+    while (true) {
+      final var current = this.table[i];
+      if (current == LongHashSet.EMPTY) {
+        break;
+      }
+      if (current == value) {
+        return false;
+      }
+      i = (i + 1) & this.mask;
+    }
+
+    this.table[i] = value;
+    if (++this.size > this.threshold) {
+      this.grow();
+    }
+    return true;
+  }
+
+  boolean contains(final long value) {
+    var i = LongHashSet.hash(value) & this.mask;
+    while (true) {
+      final var current = this.table[i];
+      if (current == LongHashSet.EMPTY) {
+        return false;
+      }
+      if (current == value) {
+        return true;
+      }
+      i = (i + 1) & this.mask;
+    }
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  // Größe des Tabellen-Arrays, also der tatsächliche Speicherbedarf in Einträgen
+  int capacity() {
+    return this.table.length;
+  }
+
+  private void allocate(final int capacity) {
+    this.table = new long[capacity];
+    Arrays.fill(this.table, LongHashSet.EMPTY);
+    this.mask = capacity - 1;
+    this.threshold = capacity == LongHashSet.MAX_CAPACITY
+        ? capacity - 1
+        : capacity - (capacity >>> 2);
+  }
+
+  private void grow() {
+    if (this.table.length == LongHashSet.MAX_CAPACITY) {
+      throw new IllegalStateException("LongHashSet ist voll");
+    }
+
+    final var old = this.table;
+    this.allocate(old.length << 1);
+    for (final var value : old) {
+      if (value == LongHashSet.EMPTY) {
+        continue;
+      }
+      var i = LongHashSet.hash(value) & this.mask;
+      while (this.table[i] != LongHashSet.EMPTY) {
+        i = (i + 1) & this.mask;
+      }
+      this.table[i] = value;
+    }
+  }
+
+  // Bits gut durchmischen, damit benachbarte Zustände nicht in Ketten landen
+  private static int hash(final long value) {
+    var h = value * 0x9E3779B97F4A7C15L;
+    h ^= h >>> 32;
+    h *= 0xC2B2AE3D27D4EB4FL;
+    return (int) (h ^ (h >>> 29));
+  }
+}
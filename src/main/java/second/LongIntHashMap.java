@@ -0,0 +1,117 @@
+package second;
+
+import java.util.Arrays;
+
+/**
+ * Offen adressierte Hashtabelle von nicht-negativen {@code long}-Schlüsseln auf {@code int}-Werte,
+ * mit linearer Sondierung und ohne Wrapper-Objekte. Schlüssel und Werte liegen in zwei parallelen
+ * Arrays.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+final class LongIntHashMap {
+  static final int ABSENT = -1;
+
+  private static final long EMPTY = -1L;
+  private static final int MAX_CAPACITY = 1 << 30;
+
+  private long[] keys;
+  private int[] values;
+  private int mask;
+  private int size;
+  private int threshold;
+
+  LongIntHashMap(final int expectedSize) {
+    var capacity = 16;
+    while (capacity < LongIntHashMap.MAX_CAPACITY && capacity - (capacity >>> 2) < expectedSize) {
+      capacity <<= 1;
+    }
+    this.allocate(capacity);
+  }
+
+  // trägt key -> value ein, falls key noch fehlt; liefert sonst den schon vorhandenen Wert
+  int putIfAbsent(final long key, final int value) {
+    if (key < 0) {
+      throw new IllegalArgumentException("Negative Schlüssel sind nicht erlaubt: " + key);
+    }
+
+    var i = LongIntHashMap.hash(key) & this.mask;
+    while (true) {
+      final var current = this.keys[i];
+      if (current == LongIntHashMap.EMPTY) {
+        break;
+      }
+      if (current == key) {
+        return this.values[i];
+      }
+      i = (i + 1) & this.mask;
+    }
+
+    this.keys[i] = key;
+    this.values[i] = value;
+    if (++this.size > this.threshold) {
+      this.grow();
+    }
+    return LongIntHashMap.ABSENT;
+  }
+
+  // Wert zu key oder ABSENT
+  int get(final long key) {
+    var i = LongIntHashMap.hash(key) & this.mask;
+    while (true) {
+      final var current = this.keys[i];
+      if (current == LongIntHashMap.EMPTY) {
+        return LongIntHashMap.ABSENT;
+      }
+      if (current == key) {
+        return this.values[i];
+      }
+      i = (i + 1) & this.mask;
+    }
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  private void allocate(final int capacity) {
+    this.keys = new long[capacity];
+    this.values = new int[capacity];
+    Arrays.fill(this.keys, LongIntHashMap.EMPTY);
+    this.mask = capacity - 1;
+    this.threshold = capacity == LongIntHashMap.MAX_CAPACITY
+        ? capacity - 1
+        : capacity - (capacity >>> 2);
+  }
+
+  private void grow() {
+    if (this.keys.length == LongIntHashMap.MAX_CAPACITY) {
+      throw new IllegalStateException("LongIntHashMap ist voll");
+    }
+
+    final var oldKeys = this.keys;
+    final var oldValues = this.values;
+    this.allocate(oldKeys.length << 1);
+    for (var j = 0; j < oldKeys.length; ++j) {
+      final var key = oldKeys[j];
+      if (key == LongIntHashMap.EMPTY) {
+        continue;
+      }
+      var i = LongIntHashMap.hash(key) & this.mask;
+      while (this.keys[i] != LongIntHashMap.EMPTY) {
+        i = (i + 1) & this.mask;
+      }
+      this.keys[i] = key;
+      this.values[i] = oldValues[j];
+    }
+  }
+
+  // dieselbe Durchmischung wie in LongHashSet
+  private static int hash(final long value) {
+    var h = value * 0x9E3779B97F4A7C15L;
+    h ^= h >>> 32;
+    h *= 0xC2B2AE3D27D4EB4FL;
+    return (int) (h ^ (h >>> 29));
+  }
+}
@@ -0,0 +1,59 @@
+package second;
+
+import java.util.Arrays;
+
+/**
+ * Wachsende Liste primitiver {@code long}-Werte. Wird von den Breitensuchen gleichzeitig als
+ * Warteschlange (über einen Lese-Index) und als Ergebnisliste verwendet.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+final class LongList {
+  private long[] values;
+  private int size;
+
+  LongList(final int initialCapacity) {
+    this.values = new long[Math.max(16, initialCapacity)];
+  }
+
+  void add(final long value) {
+    if (this.size == this.values.length) {
+      this.ensureCapacity(this.size + 1);
+    }
+    this.values[this.size++] = value;
+  }
+
+  void addAll(final LongList other) {
+    this.ensureCapacity((long) this.size + other.size);
+    System.arraycopy(other.values, 0, this.values, this.size, other.size);
+    this.size += other.size;
+  }
+
+  long get(final int index) {
+    return this.values[index];
+  }
+
+  int size() {
+    return this.size;
+  }
+
+  void clear() {
+    this.size = 0;
+  }
+
+  long[] toArray() {
+    return Arrays.copyOf(this.values, this.size);
+  }
+
+  private void ensureCapacity(final long required) {
+    if (required <= this.values.length) {
+      return;
+    }
+    if (required > Integer.MAX_VALUE - 8) {
+      throw new IllegalStateException("LongList ist voll");
+    }
+    final var grown = Math.min(Integer.MAX_VALUE - 8, Math.max(required, (long) this.size << 1));
+    this.values = Arrays.copyOf(this.values, (int) grown);
+  }
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+package second;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Sorts the members of a class in {@link Inspector} order with a primitive sort of one {@code
+ * long} per member instead of a comparator call for every comparison. The key holds what the
+ * comparators look at first, read once per member, and the member's index:
+ *
+ * <pre>
+ * 0 | not static (1) | modifiers (16) | first name chars (5 x 7) | index (11)
+ * </pre>
+ *
+ * <p>Name characters from 1 to 126 go in as they are, the end of the name as 0. The first other
+ * character goes in as 0 or 127 and ends the prefix, so two keys that differ always order their
+ * members like {@link String#compareTo(String)}. Constructors have no name, their parameter count
+ * takes its place.
+ *
+ * <p>Members whose keys agree in everything but the index, mostly overloads and names with a
+ * common prefix like {@code getValue} and {@code getValueAt}, are then put in order by the
+ * comparator. Equal keys keep their index order, so the result is the same as a stable sort with
+ * the comparator. Classes with more members than the index holds are sorted with the comparator
+ * alone.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+final class MemberOrder {
+
+  private static final int INDEX_BITS = 11;
+  private static final int CHAR_BITS = 7;
+  private static final int CHARS = 5;
+  private static final int MODIFIER_BITS = 16;
+  private static final int NAME_SHIFT = MemberOrder.INDEX_BITS;
+  private static final int MODIFIER_SHIFT =
+      MemberOrder.NAME_SHIFT + MemberOrder.CHARS * MemberOrder.CHAR_BITS;
+  private static final int STATIC_SHIFT = MemberOrder.MODIFIER_SHIFT + MemberOrder.MODIFIER_BITS;
+  private static final long INDEX_MASK = (1L << MemberOrder.INDEX_BITS) - 1;
+  private static final int LAST_CHAR = (1 << MemberOrder.CHAR_BITS) - 1;
+
+  private MemberOrder() {}
+
+  // fields and methods: static first, then modifiers, then name
+  static <T extends Member> List<T> sorted(final T[] members, final Comparator<? super T> order) {
+    return MemberOrder.sorted(members, order, false);
+  }
+
+  // constructors: modifiers, then parameter count
+  static List<Constructor<?>> sortedConstructors(
+      final Constructor<?>[] constructors, final Comparator<? super Constructor<?>> order) {
+    return MemberOrder.sorted(constructors, order, true);
+  }
+
+  private static <T extends Member> List<T> sorted(
+      final T[] members, final Comparator<? super T> order, final boolean constructors) {
+    final var n = members.length;
+    final var sorted = members.clone();
+    if (n > 1 << MemberOrder.INDEX_BITS) {
+      Arrays.sort(sorted, order);
+      return Arrays.asList(sorted);
+    }
+
+    final var keys = new long[n];
+    for (var i = 0; i < n; ++i) {
+      final var member = members[i];
+      // access flags are 16 bits in the class file
+      final var modifiers = member.getModifiers();
+      final var notStatic = !constructors && !Modifier.isStatic(modifiers) ? 1L : 0L;
+      final var name =
+          constructors
+              ? ((Constructor<?>) member).getParameterCount()
+              : MemberOrder.prefix(member.getName());
+      keys[i] =
+          notStatic << MemberOrder.STATIC_SHIFT
+              | (long) modifiers << MemberOrder.MODIFIER_SHIFT
+              | name << MemberOrder.NAME_SHIFT
+              | i;
+    }
+    Arrays.sort(keys);
+
+    for (var i = 0; i < n; ++i) {
+      sorted[i] = members[(int) (keys[i] & MemberOrder.INDEX_MASK)];
+    }
+    // runs the key cannot tell apart
+    for (var start = 0; start < n; ) {
+      final var key = keys[start] & ~MemberOrder.INDEX_MASK;
+      var end = start + 1;
+      while (end < n && (keys[end] & ~MemberOrder.INDEX_MASK) == key) {
+        ++end;
+      }
+      if (end - start > 1) {
+        Arrays.sort(sorted, start, end, order);
+      }
+      start = end;
+    }
+    return Arrays.asList(sorted);
+  }
+
+  // the first characters of a name, 7 bits each, see the class comment
+  private static long prefix(final String name) {
+    var prefix = 0L;
+    var ended = false;
+    for (var i = 0; i < MemberOrder.CHARS; ++i) {
+      var c = 0;
+      if (!ended && i < name.length()) {
+        c = name.charAt(i);
+        if (c == 0 || c >= MemberOrder.LAST_CHAR) {
+          c = c == 0 ? 0 : MemberOrder.LAST_CHAR;
+          ended = true;
+        }
+      }
+      prefix = prefix << MemberOrder.CHAR_BITS | c;
+    }
+    return prefix;
+  }
+}
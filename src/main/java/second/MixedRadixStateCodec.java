@@ -0,0 +1,77 @@
+package second;
+
+/**
+ * Nummeriert Füllzustände lückenlos in gemischter Basis: Behälter {@code i} ist eine Ziffer zur
+ * Basis {@code Kapazität + 1}. Da beim Umfüllen nichts verschüttet wird, ist die Summe aller
+ * Füllstände konstant und der letzte Behälter ergibt sich aus den übrigen. Er wird deshalb nicht
+ * mitcodiert, der Index läuft nur über die ersten {@code n - 1} Behälter.
+ *
+ * <p>Weil der letzte Füllstand durch die vorderen festgelegt ist, bleibt die Ordnung der Indizes
+ * gleich der lexikographischen Ordnung der vollständigen Tupel.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+final class MixedRadixStateCodec implements StateCodec {
+  private final int[] radices;
+  private final long[] weights;
+  private final int total;
+  private final long size;
+
+  MixedRadixStateCodec(final int[] capacities, final int total) {
+    this.radices = new int[capacities.length - 1];
+    this.total = total;
+
+    var size = 1L;
+    try {
+      for (var i = 0; i < this.radices.length; ++i) {
+        if (capacities[i] < 0) {
+          throw new IllegalArgumentException("Negative Kapazität: " + capacities[i]);
+        }
+        this.radices[i] = capacities[i] + 1;
+        size = Math.multiplyExact(size, this.radices[i]);
+      }
+    } catch (ArithmeticException e) {
+      throw new IllegalArgumentException("Zustandsraum ist größer als 2^63", e);
+    }
+    this.size = size;
+
+    // Stellenwert von Behälter i ist das Produkt der Basen aller Behälter dahinter
+    this.weights = new long[capacities.length];
+    var weight = 1L;
+    for (var i = this.radices.length - 1; i >= 0; --i) {
+      this.weights[i] = weight;
+      weight *= this.radices[i];
+    }
+  }
+
+  // Anzahl aller möglichen Indizes, also die Größe des Zustands-Quaders
+  long size() {
+    return this.size;
+  }
+
+  @Override
+  public long encode(final int[] state) {
+    var index = 0L;
+    for (var i = 0; i < this.radices.length; ++i) {
+      index = index * this.radices[i] + state[i];
+    }
+    return index;
+  }
+
+  @Override
+  public void decode(long index, final int[] state) {
+    var rest = this.total;
+    for (var i = this.radices.length - 1; i >= 0; --i) {
+      state[i] = (int) (index % this.radices[i]);
+      index /= this.radices[i];
+      rest -= state[i];
+    }
+    state[this.radices.length] = rest;
+  }
+
+  @Override
+  public long weight(final int container) {
+    return this.weights[container];
+  }
+}
\ No newline at end of file
@@ -1,17 +1,36 @@
 package second;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.datatransfer.DataFlavor;
 import java.awt.dnd.DnDConstants;
 import java.awt.dnd.DropTarget;
 import java.awt.dnd.DropTargetDropEvent;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
+import java.awt.event.MouseWheelEvent;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
 
 /**
  * Benutzen Sie das Eventaufzeichnungsprogramm um Ihre Kenntnisse über Events und
@@ -24,6 +43,7 @@ import java.util.List;
  * <li>Verschiedene Farben</li>
  * <li>Verschiedene Strichstärken</li>
  * <li>Drag & Drop von Bildern</li>
+ * <li>Rückgängig / Wiederherstellen, Speichern und Öffnen</li>
  * </ul>
  *
  * @author Frank Mayer 215965, Antonia Friese 215937, René Ott 215471
@@ -39,6 +59,12 @@ public class MyPaint extends JFrame {
         .getLocation();
     // gap between windows
     private static final int gap = 8;
+    // smallest distance in screen pixels between two recorded points of a stroke
+    private static final int minDistance = 2;
+    // file extension of saved drawings
+    private static final String extension = "mypaint";
+    // decodes dropped images in the background
+    private static final ImageImporter importer = new ImageImporter(2);
     // window instances
     public static MyPaint app;
     public static MyPaint.Tools tools;
@@ -51,6 +77,8 @@ public class MyPaint extends JFrame {
     private Color color = Color.BLACK;
     private int lineThickness = 5;
     private StrokeType strokeType = StrokeType.LINE;
+    // retained drawing surface, survives expose and resize
+    private final Canvas canvas = new Canvas();
 
     public MyPaint() {
         // Set up the JFrame
@@ -63,16 +91,32 @@ public class MyPaint extends JFrame {
             MyPaint.screenSize.height - ( MyPaint.gap << 1 )
         );
         this.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        this.setContentPane(this.canvas);
 
         // Add mouse listeners
-        this.addMouseListener(new MouseAdapter() {
+        this.canvas.addMouseListener(new MouseAdapter() {
             public void mousePressed(MouseEvent e) {
+                // the other buttons pan the canvas
+                if (!SwingUtilities.isLeftMouseButton(e)) {
+                    return;
+                }
+
                 // Set previous coordinates when mouse is pressed
                 MyPaint.this.prevX = e.getX();
                 MyPaint.this.prevY = e.getY();
+                MyPaint.this.canvas.beginStroke(e.getX(),
+                    e.getY(),
+                    MyPaint.this.color,
+                    MyPaint.this.lineThickness,
+                    MyPaint.this.strokeType
+                );
             }
 
             public void mouseReleased(MouseEvent e) {
+                if (MyPaint.this.prevX >= 0) {
+                    MyPaint.this.canvas.endStroke();
+                }
+
                 // Reset previous coordinates when mouse is released
                 MyPaint.this.prevX = -1;
                 MyPaint.this.prevY = -1;
@@ -80,32 +124,29 @@ public class MyPaint extends JFrame {
         });
 
         // track mouse movement
-        this.addMouseMotionListener(new MouseMotionAdapter() {
+        this.canvas.addMouseMotionListener(new MouseMotionAdapter() {
             public void mouseDragged(MouseEvent e) {
+                if (!SwingUtilities.isLeftMouseButton(e) || MyPaint.this.prevX < 0) {
+                    return;
+                }
                 MyPaint.this.currX = e.getX();
                 MyPaint.this.currY = e.getY();
 
-                var delta = Math.sqrt(Math.pow(MyPaint.this.prevX - e.getX(),
-                    2
-                ) + Math.pow(MyPaint.this.prevY - e.getY(), 2));
-                if (delta < 8) {
+                var dx = MyPaint.this.currX - MyPaint.this.prevX;
+                var dy = MyPaint.this.currY - MyPaint.this.prevY;
+                if (dx * dx + dy * dy < MyPaint.minDistance * MyPaint.minDistance) {
                     return;
                 }
 
-                // Get Graphics object and perform drawing
-                var g = MyPaint.this.getGraphics();
-                if (g instanceof Graphics2D g2d) {
-                    g2d.setStroke(MyPaint.this.getStroke());
-                }
-                g.setColor(MyPaint.this.color);
-                g.drawLine(MyPaint.this.prevX, MyPaint.this.prevY, MyPaint.this.currX, MyPaint.this.currY);
+                // record the point, the canvas draws the new points once per frame
+                MyPaint.this.canvas.continueStroke(MyPaint.this.currX, MyPaint.this.currY);
 
                 MyPaint.this.prevX = MyPaint.this.currX;
                 MyPaint.this.prevY = MyPaint.this.currY;
             }
         });
 
-        this.setDropTarget(new DropTarget() {
+        this.canvas.setDropTarget(new DropTarget() {
             @Override
             public synchronized void drop(DropTargetDropEvent dtde) {
                 try {
@@ -115,27 +156,87 @@ public class MyPaint extends JFrame {
                     // get the dropped object
                     var dropped = dtde.getTransferable().getTransferData(DataFlavor.javaFileListFlavor);
 
-                    // if it's a file
-                    if (dropped instanceof List list && list.get(0) instanceof File file) {
-                        // read the image
-                        Image image = ImageIO.read(file);
-
-                        // scale the image to fit the window
-                        image = image.getScaledInstance(MyPaint.this.getWidth(),
-                            MyPaint.this.getHeight(),
-                            Image.SCALE_SMOOTH
-                        );
-
-                        // draw the image
-                        var g = MyPaint.this.getGraphics();
-                        g.drawImage(image, 0, 0, null);
+                    // if it's a list of files
+                    if (dropped instanceof List<?> list) {
+                        MyPaint.this.importImages(list);
                     }
+                    dtde.dropComplete(dropped instanceof List<?>);
                 }
-                catch (Exception ignore) {
-                    // ignore
+                catch (Exception e) {
+                    dtde.dropComplete(false);
+                    JOptionPane.showMessageDialog(MyPaint.this, "Cannot drop: " + e.getMessage());
                 }
             }
         });
+
+        // keyboard shortcuts
+        var inputMap = this.getRootPane().getInputMap(JComponent.WHEN_IN_FOCUSED_WINDOW);
+        var actionMap = this.getRootPane().getActionMap();
+        var shortcut = Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx();
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, shortcut), "undo");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Y, shortcut), "redo");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_Z, shortcut | InputEvent.SHIFT_DOWN_MASK), "redo");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_S, shortcut), "save");
+        inputMap.put(KeyStroke.getKeyStroke(KeyEvent.VK_O, shortcut), "open");
+        actionMap.put("undo", MyPaint.action(this::undo));
+        actionMap.put("redo", MyPaint.action(this::redo));
+        actionMap.put("save", MyPaint.action(this::save));
+        actionMap.put("open", MyPaint.action(this::open));
+    }
+
+    private static Action action(Runnable runnable) {
+        return new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                runnable.run();
+            }
+        };
+    }
+
+    // share the visible area among the dropped images, they are decoded in the background
+    private void importImages(List<?> files) {
+        var paths = files.stream()
+            .filter(File.class::isInstance)
+            .map(file -> ( (File) file ).toPath())
+            .toList();
+        if (paths.isEmpty()) {
+            return;
+        }
+
+        // one image fills the window, more are laid out in a grid
+        var area = this.canvas.getVisibleArea();
+        var columns = (int) Math.ceil(Math.sqrt(paths.size()));
+        var rows = ( paths.size() + columns - 1 ) / columns;
+        var cellWidth = area.width / columns;
+        var cellHeight = area.height / rows;
+        for (var i = 0; i < paths.size(); ++i) {
+            var cell = new Rectangle2D.Double(area.x + i % columns * cellWidth,
+                area.y + i / columns * cellHeight,
+                cellWidth,
+                cellHeight
+            );
+            // the cell is fixed now, even if the view moves until the image is decoded
+            var path = paths.get(i);
+            MyPaint.importer.load(path, (int) Math.ceil(cellWidth), (int) Math.ceil(cellHeight))
+                .whenComplete((image, error) -> SwingUtilities.invokeLater(() -> {
+                    if (error != null) {
+                        this.showImportError(path, error);
+                    }
+                    else {
+                        this.canvas.drawImage(image, cell);
+                    }
+                }));
+        }
+    }
+
+    // tell why a dropped file was not imported, the future wraps the actual error
+    private void showImportError(Path path, Throwable error) {
+        var cause = error;
+        while (( cause instanceof CompletionException || cause instanceof UncheckedIOException )
+            && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        JOptionPane.showMessageDialog(this, "Cannot import " + path.getFileName() + ": " + cause.getMessage());
     }
 
     public static void main(String[] args) {
@@ -154,10 +255,6 @@ public class MyPaint extends JFrame {
 
             MyPaint.tools.setVisible(true);
             MyPaint.app.setVisible(true);
-
-            SwingUtilities.invokeLater(() -> {
-                MyPaint.app.drawGrid();
-            });
         });
     }
 
@@ -189,62 +286,64 @@ public class MyPaint extends JFrame {
         this.strokeType = stroke;
     }
 
-    private Stroke getStroke() {
-        return switch (this.strokeType) {
-            case DOTTED_LINE -> new BasicStroke(this.lineThickness,
-                BasicStroke.CAP_BUTT,
-                BasicStroke.JOIN_BEVEL,
-                0,
-                new float[] { 16 },
-                8
-            );
-            default -> new BasicStroke(this.lineThickness);
-        };
+    public void clear() {
+        this.canvas.clear();
     }
 
-    public void clear() {
-        this.repaint();
+    // take back the last stroke, image or clear
+    public void undo() {
+        this.canvas.undo();
+    }
 
-        var g = this.getGraphics();
-        if (g == null) {
+    public void redo() {
+        this.canvas.redo();
+    }
+
+    // save the drawing as a MyPaint document
+    public void save() {
+        var chooser = MyPaint.createFileChooser();
+        if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) {
             return;
         }
-
-        if (g instanceof Graphics2D g2d) {
-            SwingUtilities.invokeLater(() -> {
-                this.drawGrid(g2d);
-            });
+        var file = chooser.getSelectedFile();
+        if (!file.getName().contains(".")) {
+            file = new File(file.getPath() + "." + MyPaint.extension);
+        }
+        try (var out = new BufferedOutputStream(new FileOutputStream(file))) {
+            this.canvas.save(out);
+        }
+        catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Cannot save " + file + ": " + e.getMessage());
         }
     }
 
-    // draw a grid
-    private void drawGrid(Graphics2D g2d) {
-        g2d.setColor(Color.LIGHT_GRAY);
-        g2d.setStroke(new BasicStroke(1));
-
-        int width = this.getWidth();
-        int height = this.getHeight();
-
-        for (var i = 0; i < width; i += 32) {
-            g2d.drawLine(i, 0, i, height);
+    // replace the drawing by a MyPaint document
+    public void open() {
+        var chooser = MyPaint.createFileChooser();
+        if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) {
+            return;
         }
-
-        for (var i = 0; i < height; i += 32) {
-            g2d.drawLine(0, i, width, i);
+        var file = chooser.getSelectedFile();
+        try (var in = new BufferedInputStream(new FileInputStream(file))) {
+            this.canvas.load(in);
+        }
+        catch (IOException | RuntimeException e) {
+            JOptionPane.showMessageDialog(this, "Cannot open " + file + ": " + e.getMessage());
         }
     }
 
-    private void drawGrid() {
-        var g = this.getGraphics();
-        if (g instanceof Graphics2D g2d) {
-            this.drawGrid(g2d);
-        }
+    private static JFileChooser createFileChooser() {
+        var chooser = new JFileChooser();
+        chooser.setFileFilter(new FileNameExtensionFilter("MyPaint", MyPaint.extension));
+        return chooser;
     }
 
     enum StrokeType {
         LINE("Line"), DOTTED_LINE("Dotted Line");
 
         private final String name;
+        // strokes by thickness and start of the dashes, each is created once
+        private final Map<Long, Stroke> strokes = new HashMap<>();
 
         StrokeType(String name) {
             this.name = name;
@@ -254,6 +353,288 @@ public class MyPaint extends JFrame {
         public String toString() {
             return this.name;
         }
+
+        // the stroke for a line of this type, dashes start that far into the line
+        Stroke getStroke(float thickness, float length) {
+            // dashes start at quarter pixels, so there are at most 128 dotted strokes per thickness
+            var phase = this == StrokeType.DOTTED_LINE ? Math.round(( 8 + length % 32 ) * 4) % 128 : 0;
+            var key = (long) Float.floatToIntBits(thickness) << 32 | phase;
+            return this.strokes.computeIfAbsent(key, k -> this.createStroke(thickness, phase / 4f));
+        }
+
+        private Stroke createStroke(float thickness, float phase) {
+            return switch (this) {
+                case DOTTED_LINE -> new BasicStroke(thickness,
+                    BasicStroke.CAP_BUTT,
+                    BasicStroke.JOIN_BEVEL,
+                    0,
+                    new float[] { 16 },
+                    phase
+                );
+                default -> new BasicStroke(thickness);
+            };
+        }
+    }
+
+    /**
+     * The visible part of a {@link TiledCanvas} that is far larger than the window. Strokes
+     * are recorded in a {@link StrokeLog} and drawn into the tiles, {@link #paintComponent(Graphics)}
+     * only paints the tiles in the damaged area, so an expose or resize does not lose the
+     * drawing and a stroke segment only repaints the few pixels around it. After an undo or
+     * a load the affected tiles are rendered from the log again when they become visible.
+     * <p>
+     * While a stroke is drawn, the points of the mouse events are only recorded; once per
+     * frame the new segments are drawn as one path and repainted together, so a mouse that
+     * reports a thousand times a second costs no more drawing than a slow one.
+     * <p>
+     * Drag with the right mouse button or turn the mouse wheel (with shift for sideways) to
+     * pan, turn the mouse wheel with ctrl to zoom.
+     */
+    @SuppressWarnings("serial")
+    private static class Canvas extends JPanel {
+        // width and height of the drawing
+        private static final int size = 1 << 14;
+        // tiles kept in memory, 256 tiles of 256x256 pixels take 64 MiB
+        private static final int residentTiles = 256;
+        private static final double minZoom = 1.0 / 8;
+        private static final double maxZoom = 8;
+        // pixels on the screen per wheel notch
+        private static final int wheelStep = 64;
+        // time between two frames while drawing, about 60 per second
+        private static final int frameMillis = 16;
+        private final TiledCanvas tiles = new TiledCanvas(Canvas.size, Canvas.size, Canvas.residentTiles);
+        // canvas coordinates of the top left corner of the view
+        private double offsetX;
+        private double offsetY;
+        // screen pixels per canvas pixel
+        private double zoom = 1;
+        // last mouse position while panning
+        private Point panStart;
+        // everything drawn, the tiles are rendered from it
+        private StrokeLog log = new StrokeLog();
+        // draws the points recorded since the last frame in one go while a stroke is drawn
+        private final Timer frames = new Timer(Canvas.frameMillis, e -> this.drawPending(false));
+        // images that finished loading while a stroke was drawn, they are added after it
+        private final List<DroppedImage> heldImages = new ArrayList<>();
+
+        Canvas() {
+            this.setOpaque(true);
+            this.setBackground(Color.GRAY);
+            this.tiles.setSource(new TiledCanvas.Source() {
+                @Override
+                public boolean isEmpty(Rectangle area) {
+                    return Canvas.this.log.isEmpty(area);
+                }
+
+                @Override
+                public void render(Graphics2D g2d, Rectangle area) {
+                    Canvas.this.log.render(g2d, area);
+                }
+            });
+
+            var pan = new MouseAdapter() {
+                @Override
+                public void mousePressed(MouseEvent e) {
+                    if (!SwingUtilities.isLeftMouseButton(e)) {
+                        Canvas.this.panStart = e.getPoint();
+                    }
+                }
+
+                @Override
+                public void mouseReleased(MouseEvent e) {
+                    Canvas.this.panStart = null;
+                }
+
+                @Override
+                public void mouseDragged(MouseEvent e) {
+                    if (Canvas.this.panStart != null) {
+                        Canvas.this.panBy(( Canvas.this.panStart.x - e.getX() ) / Canvas.this.zoom,
+                            ( Canvas.this.panStart.y - e.getY() ) / Canvas.this.zoom
+                        );
+                        Canvas.this.panStart = e.getPoint();
+                    }
+                }
+
+                @Override
+                public void mouseWheelMoved(MouseWheelEvent e) {
+                    var rotation = e.getPreciseWheelRotation();
+                    if (e.isControlDown()) {
+                        Canvas.this.zoomAt(e.getPoint(), Math.pow(1.25, -rotation));
+                    }
+                    else if (e.isShiftDown()) {
+                        Canvas.this.panBy(rotation * Canvas.wheelStep / Canvas.this.zoom, 0);
+                    }
+                    else {
+                        Canvas.this.panBy(0, rotation * Canvas.wheelStep / Canvas.this.zoom);
+                    }
+                }
+            };
+            this.addMouseListener(pan);
+            this.addMouseMotionListener(pan);
+            this.addMouseWheelListener(pan);
+        }
+
+        // start a stroke at a point of the component
+        void beginStroke(int x, int y, Color color, int thickness, StrokeType type) {
+            this.log.beginStroke((float) this.toCanvasX(x),
+                (float) this.toCanvasY(y),
+                color,
+                thickness,
+                type
+            );
+            this.frames.start();
+        }
+
+        // continue the stroke to a point of the component, it is drawn with the next frame
+        void continueStroke(int x, int y) {
+            this.log.continueStroke((float) this.toCanvasX(x), (float) this.toCanvasY(y));
+        }
+
+        void endStroke() {
+            this.frames.stop();
+            this.drawPending(true);
+            this.log.endStroke();
+            for (var held : this.heldImages) {
+                this.drawImage(held.image(), held.area());
+            }
+            this.heldImages.clear();
+        }
+
+        // draw the segments recorded since the last frame as one path and repaint their area,
+        // however many mouse events they came from
+        private void drawPending(boolean finished) {
+            var bounds = this.log.takePending(finished);
+            if (bounds != null) {
+                this.tiles.draw(bounds, this.log::renderPending);
+                this.repaintCanvas(bounds);
+            }
+        }
+
+        // the visible part of the canvas, in canvas coordinates
+        Rectangle2D.Double getVisibleArea() {
+            return new Rectangle2D.Double(this.offsetX,
+                this.offsetY,
+                this.getWidth() / this.zoom,
+                this.getHeight() / this.zoom
+            );
+        }
+
+        // draw an image over an area given in canvas coordinates, an image that arrives while a
+        // stroke is drawn waits for the stroke to end, the stroke has to stay the last entry
+        void drawImage(BufferedImage image, Rectangle2D area) {
+            if (this.frames.isRunning()) {
+                this.heldImages.add(new DroppedImage(image, area));
+                return;
+            }
+            var bounds = this.log.addImage(image,
+                (float) area.getX(),
+                (float) area.getY(),
+                (float) area.getWidth(),
+                (float) area.getHeight()
+            );
+            this.tiles.invalidate(bounds);
+            this.repaintCanvas(bounds);
+        }
+
+        // hide everything, can be undone
+        void clear() {
+            this.log.clear();
+            this.tiles.invalidate();
+            this.repaint();
+        }
+
+        void undo() {
+            this.invalidate(this.log.undo());
+        }
+
+        void redo() {
+            this.invalidate(this.log.redo());
+        }
+
+        void save(OutputStream out) throws IOException {
+            this.log.write(out);
+        }
+
+        // replace the drawing, only the visible tiles are rendered right away
+        void load(InputStream in) throws IOException {
+            this.log = StrokeLog.read(in);
+            this.tiles.invalidate();
+            this.repaint();
+        }
+
+        // render an area given in canvas coordinates from the log again, null for everything
+        private void invalidate(Rectangle bounds) {
+            if (bounds == null) {
+                this.tiles.invalidate();
+                this.repaint();
+            }
+            else {
+                this.tiles.invalidate(bounds);
+                this.repaintCanvas(bounds);
+            }
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            var g2d = (Graphics2D) g.create();
+
+            // the area beyond the edge of the canvas
+            g2d.setColor(this.getBackground());
+            var clip = g2d.getClipBounds();
+            if (clip != null) {
+                g2d.fill(clip);
+            }
+
+            // only the tiles in the clip are painted
+            g2d.scale(this.zoom, this.zoom);
+            g2d.translate(-this.offsetX, -this.offsetY);
+            this.tiles.paint(g2d);
+            g2d.dispose();
+        }
+
+        private double toCanvasX(int x) {
+            return this.offsetX + x / this.zoom;
+        }
+
+        private double toCanvasY(int y) {
+            return this.offsetY + y / this.zoom;
+        }
+
+        // repaint an area given in canvas coordinates
+        private void repaintCanvas(Rectangle bounds) {
+            var x = (int) Math.floor(( bounds.x - this.offsetX ) * this.zoom);
+            var y = (int) Math.floor(( bounds.y - this.offsetY ) * this.zoom);
+            this.repaint(x,
+                y,
+                (int) Math.ceil(bounds.width * this.zoom) + 2,
+                (int) Math.ceil(bounds.height * this.zoom) + 2
+            );
+        }
+
+        // move the view by a distance in canvas pixels, it stays on the canvas
+        private void panBy(double dx, double dy) {
+            this.offsetX = this.clampOffset(this.offsetX + dx, this.getWidth());
+            this.offsetY = this.clampOffset(this.offsetY + dy, this.getHeight());
+            this.repaint();
+        }
+
+        // zoom in or out, the canvas point under the mouse stays where it is
+        private void zoomAt(Point point, double factor) {
+            var x = this.toCanvasX(point.x);
+            var y = this.toCanvasY(point.y);
+            this.zoom = Math.max(Canvas.minZoom, Math.min(Canvas.maxZoom, this.zoom * factor));
+            this.offsetX = this.clampOffset(x - point.x / this.zoom, this.getWidth());
+            this.offsetY = this.clampOffset(y - point.y / this.zoom, this.getHeight());
+            this.repaint();
+        }
+
+        private double clampOffset(double offset, int viewSize) {
+            return Math.max(0, Math.min(offset, Canvas.size - viewSize / this.zoom));
+        }
+
+        // a decoded image and where it goes, in canvas coordinates
+        private record DroppedImage(BufferedImage image, Rectangle2D area) {
+        }
     }
 
     /**
@@ -307,6 +688,26 @@ public class MyPaint extends JFrame {
             btn.addActionListener(e -> MyPaint.app.clear());
             this.add(btn);
 
+            // add undo and redo buttons
+            JButton undo = new JButton("Undo \u21B6"); // ↶
+            undo.setBackground(Color.WHITE);
+            undo.addActionListener(e -> MyPaint.app.undo());
+            this.add(undo);
+            JButton redo = new JButton("Redo \u21B7"); // ↷
+            redo.setBackground(Color.WHITE);
+            redo.addActionListener(e -> MyPaint.app.redo());
+            this.add(redo);
+
+            // add save and open buttons
+            JButton save = new JButton("Save");
+            save.setBackground(Color.WHITE);
+            save.addActionListener(e -> MyPaint.app.save());
+            this.add(save);
+            JButton open = new JButton("Open");
+            open.setBackground(Color.WHITE);
+            open.addActionListener(e -> MyPaint.app.open());
+            this.add(open);
+
             // add stroke size slider
             JSlider slider = new JSlider(2, 10, MyPaint.app.getLineThickness());
             slider.setMajorTickSpacing(2);
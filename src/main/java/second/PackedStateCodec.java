@@ -0,0 +1,66 @@
+package second;
+
+/**
+ * Packt einen Füllzustand in ein einzelnes {@code long}. Jeder Behälter bekommt genau so viele
+ * Bits, wie für seine Kapazität nötig sind. Behälter 1 liegt in den höchstwertigen Bits, deshalb
+ * entspricht die natürliche Ordnung der Codes der lexikographischen Ordnung der Tupel.
+ *
+ * <p>Da beim Umfüllen nichts verschüttet wird, ergibt sich der letzte Behälter aus der
+ * Gesamtmenge und den übrigen Behältern. Er wird nicht mitgespeichert, das spart seine Bits und
+ * ändert an der Ordnung nichts.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+final class PackedStateCodec implements StateCodec {
+  private final int[] shifts;
+  private final long[] masks;
+  private final int total;
+
+  PackedStateCodec(final int[] capacities, final int total) {
+    this.shifts = new int[capacities.length - 1];
+    this.masks = new long[capacities.length - 1];
+    this.total = total;
+
+    var shift = 0;
+    for (var i = this.shifts.length - 1; i >= 0; --i) {
+      if (capacities[i] < 0) {
+        throw new IllegalArgumentException("Negative Kapazität: " + capacities[i]);
+      }
+      final var bits = Integer.SIZE - Integer.numberOfLeadingZeros(capacities[i]);
+      this.shifts[i] = shift;
+      this.masks[i] = (1L << bits) - 1;
+      shift += bits;
+    }
+
+    // das Vorzeichenbit bleibt frei, damit alle Codes positiv sind
+    if (shift > Long.SIZE - 1) {
+      throw new IllegalArgumentException(
+          String.format("Zustand braucht %d Bits, mehr als %d passen nicht", shift, Long.SIZE - 1));
+    }
+  }
+
+  @Override
+  public long encode(final int[] state) {
+    var code = 0L;
+    for (var i = 0; i < this.shifts.length; ++i) {
+      code |= (long) state[i] << this.shifts[i];
+    }
+    return code;
+  }
+
+  @Override
+  public void decode(final long code, final int[] state) {
+    var rest = this.total;
+    for (var i = 0; i < this.shifts.length; ++i) {
+      state[i] = (int) ((code >>> this.shifts[i]) & this.masks[i]);
+      rest -= state[i];
+    }
+    state[this.shifts.length] = rest;
+  }
+
+  @Override
+  public long weight(final int container) {
+    return container < this.shifts.length ? 1L << this.shifts[container] : 0;
+  }
+}
@@ -0,0 +1,76 @@
+package second;
+
+/**
+ * Expandiert Zustände direkt auf ihrem Code. Für jeden Umfüll-Vorgang ist vorab berechnet, um
+ * wie viel sich der Code pro umgefülltem Liter ändert; ein Nachfolger ist dann nur noch
+ * {@code code + menge * delta}, ohne Kopie des Zustands und ohne erneutes Codieren.
+ *
+ * <p>Umfüll-Vorgänge, die nichts bewirken (Quelle leer oder Ziel voll), werden übersprungen,
+ * bevor überhaupt ein Nachfolger entsteht. Der Zustand wird pro Expansion einmal in einen
+ * wiederverwendeten Puffer decodiert. Ein Kernel gehört daher immer nur einem Thread.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+final class PourKernel {
+  private final StateCodec codec;
+  private final int[] capacities;
+  private final int[] transitions;
+  private final long[] deltas;
+  private final int[] state;
+  private long expanded;
+  private long skipped;
+
+  PourKernel(final StateCodec codec, final int[] capacities, final int[] transitions) {
+    this.codec = codec;
+    this.capacities = capacities;
+    this.transitions = transitions;
+    this.deltas = new long[transitions.length / 2];
+    for (var t = 0; t < this.deltas.length; ++t) {
+      this.deltas[t] =
+          codec.weight(transitions[t * 2 + 1]) - codec.weight(transitions[t * 2]);
+    }
+    this.state = new int[capacities.length];
+  }
+
+  /**
+   * Schreibt die Codes aller echten Nachfolger von code nach successors.
+   *
+   * @param pours falls nicht {@code null}, bekommt zu jedem Nachfolger den Umfüll-Vorgang
+   * @return die Anzahl der Nachfolger
+   */
+  int expand(final long code, final long[] successors, final int[] pours) {
+    final var state = this.state;
+    final var transitions = this.transitions;
+    this.codec.decode(code, state);
+    ++this.expanded;
+
+    var count = 0;
+    for (var t = 0; t < this.deltas.length; ++t) {
+      final var from = transitions[t * 2];
+      final var to = transitions[t * 2 + 1];
+      final var amount = Math.min(state[from], this.capacities[to] - state[to]);
+      if (amount == 0) {
+        ++this.skipped;
+        continue;
+      }
+
+      successors[count] = code + amount * this.deltas[t];
+      if (pours != null) {
+        pours[count] = t;
+      }
+      ++count;
+    }
+    return count;
+  }
+
+  // Anzahl der bisher expandierten Zustände
+  long expanded() {
+    return this.expanded;
+  }
+
+  // Anzahl der übersprungenen Umfüll-Vorgänge ohne Wirkung
+  long skipped() {
+    return this.skipped;
+  }
+}
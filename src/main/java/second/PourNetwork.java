@@ -0,0 +1,363 @@
+package second;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Ein Netz aus {@code n} Behältern mit festen Kapazitäten, einem Anfangszustand und einer Liste
+ * erlaubter Umfüll-Vorgänge (gerichtete Kanten von einem Behälter in einen anderen). Umgefüllt wird
+ * immer, bis der ausgießende Behälter leer oder der sich füllende voll ist.
+ *
+ * <p>Die Kanten werden beim Erzeugen in eine flache Tabelle {@code (von, nach, von, nach, ...)}
+ * übersetzt, die von allen Suchverfahren direkt durchlaufen wird. Die Suchverfahren unterscheiden
+ * sich nur in der Speicherung der besuchten Zustände, sie liefern alle dieselben Zustände.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+public final class PourNetwork {
+  // ab dieser Größe wird ein Teil der Ebene in der parallelen Suche weiter aufgeteilt
+  private static final int PARALLEL_THRESHOLD = 4096;
+
+  private final int[] capacities;
+  private final int[] initial;
+  private final int[] transitions;
+  private final int total;
+
+  /**
+   * @param capacities Kapazität jedes Behälters
+   * @param initial Füllstand jedes Behälters zu Beginn
+   * @param pours erlaubte Umfüll-Vorgänge als Paare {@code {von, nach}}, Behälter ab 0 gezählt
+   */
+  public PourNetwork(final int[] capacities, final int[] initial, final int[][] pours) {
+    if (capacities.length == 0 || capacities.length != initial.length) {
+      throw new IllegalArgumentException("Kapazitäten und Anfangszustand passen nicht zusammen");
+    }
+
+    var total = 0L;
+    for (var i = 0; i < capacities.length; ++i) {
+      if (capacities[i] < 0) {
+        throw new IllegalArgumentException("Negative Kapazität: " + capacities[i]);
+      }
+      if (initial[i] < 0 || initial[i] > capacities[i]) {
+        throw new IllegalArgumentException(
+            String.format("Behälter %d kann nicht %d Liter enthalten", i + 1, initial[i]));
+      }
+      total += initial[i];
+    }
+    if (total > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Gesamtmenge ist zu groß: " + total);
+    }
+
+    this.transitions = new int[pours.length * 2];
+    for (var i = 0; i < pours.length; ++i) {
+      final var pour = pours[i];
+      if (pour.length != 2
+          || pour[0] < 0 || pour[0] >= capacities.length
+          || pour[1] < 0 || pour[1] >= capacities.length
+          || pour[0] == pour[1]) {
+        throw new IllegalArgumentException("Ungültiger Umfüll-Vorgang: " + Arrays.toString(pour));
+      }
+      this.transitions[i * 2] = pour[0];
+      this.transitions[i * 2 + 1] = pour[1];
+    }
+
+    this.capacities = capacities.clone();
+    this.initial = initial.clone();
+    this.total = (int) total;
+  }
+
+  /**
+   * Das Netz aus der Aufgabe: fünf Behälter, Behälter 1 ist voll, umgefüllt werden kann
+   * 1 -> 2; 1 -> 4; 2 -> 3; 3 -> 5; 4 -> 2; 5 -> 4.
+   */
+  public static PourNetwork umfuelllisten(final int[] capacities) {
+    return new PourNetwork(
+        capacities,
+        new int[] {capacities[0], 0, 0, 0, 0},
+        new int[][] {{0, 1}, {0, 3}, {1, 2}, {2, 4}, {3, 1}, {4, 3}});
+  }
+
+  // Anzahl der Behälter
+  public int containers() {
+    return this.capacities.length;
+  }
+
+  // Anzahl der erlaubten Umfüll-Vorgänge
+  public int pours() {
+    return this.transitions.length / 2;
+  }
+
+  // Gesamtmenge, die beim Umfüllen immer erhalten bleibt
+  public int total() {
+    return this.total;
+  }
+
+  // Kapazität eines Behälters
+  public int capacity(final int container) {
+    return this.capacities[container];
+  }
+
+  // Behälter, aus dem beim Umfüll-Vorgang pour ausgegossen wird
+  public int from(final int pour) {
+    return this.transitions[pour * 2];
+  }
+
+  // Behälter, der beim Umfüll-Vorgang pour gefüllt wird
+  public int to(final int pour) {
+    return this.transitions[pour * 2 + 1];
+  }
+
+  // Kopie des Anfangszustands
+  public int[] initial() {
+    return this.initial.clone();
+  }
+
+  // führt den Umfüll-Vorgang pour auf state aus und liefert die umgefüllte Menge
+  public int pour(final int[] state, final int pour) {
+    final var from = this.from(pour);
+    final var to = this.to(pour);
+    final var amount = Math.min(state[from], this.capacities[to] - state[to]);
+    state[from] -= amount;
+    state[to] += amount;
+    return amount;
+  }
+
+  PackedStateCodec packedCodec() {
+    return new PackedStateCodec(this.capacities, this.total);
+  }
+
+  MixedRadixStateCodec mixedRadixCodec() {
+    return new MixedRadixStateCodec(this.capacities, this.total);
+  }
+
+  // neuer Kernel für einen Thread, der auf Codes dieses Codecs arbeitet
+  PourKernel kernel(final StateCodec codec) {
+    return new PourKernel(codec, this.capacities, this.transitions);
+  }
+
+  // Breitensuche mit einem TreeSet aus int[], das einfachste aber speicherhungrigste Verfahren
+  SortedSet<int[]> reachableTree(final SearchStats stats) {
+    final var allocated = SearchStats.allocatedBytes();
+    final var states = new TreeSet<>((Comparator<int[]>) Arrays::compare);
+
+    final var queue = new LinkedList<int[]>();
+    queue.add(this.initial.clone());
+    states.add(queue.peek());
+
+    final var transitions = this.transitions;
+    var expanded = 0L;
+    var skipped = 0L;
+    while (!queue.isEmpty()) {
+      final var currentState = queue.poll();
+      ++expanded;
+
+      for (var t = 0; t < transitions.length; t += 2) {
+        final var from = transitions[t];
+        final var to = transitions[t + 1];
+
+        // Wie viel kann umgefüllt werden? Bei nichts entsteht auch kein neuer Zustand
+        final var amount = Math.min(currentState[from], this.capacities[to] - currentState[to]);
+        if (amount == 0) {
+          ++skipped;
+          continue;
+        }
+
+        // Umfüllen
+        final var nextState = currentState.clone();
+        nextState[from] -= amount;
+        nextState[to] += amount;
+
+        // Zustand noch nicht bekannt?
+        if (states.add(nextState)) {
+          queue.add(nextState);
+        }
+      }
+    }
+
+    stats.add(expanded, skipped, allocated < 0 ? -1 : SearchStats.allocatedBytes() - allocated);
+    return states;
+  }
+
+  // Breitensuche über gepackte Zustände, liefert alle erreichbaren Codes aufsteigend sortiert
+  long[] reachablePacked(final PackedStateCodec codec, final SearchStats stats) {
+    final var allocated = SearchStats.allocatedBytes();
+    final var kernel = this.kernel(codec);
+    final var visited = new LongHashSet(1024);
+
+    // die Liste ist Warteschlange und Ergebnis zugleich, der Index head zeigt auf den nächsten
+    // noch nicht expandierten Zustand
+    final var queue = new LongList(1024);
+    final var initial = codec.encode(this.initial);
+    visited.add(initial);
+    queue.add(initial);
+
+    final var successors = new long[this.pours()];
+    for (var head = 0; head < queue.size(); ++head) {
+      final var count = kernel.expand(queue.get(head), successors, null);
+      for (var i = 0; i < count; ++i) {
+        if (visited.add(successors[i])) {
+          queue.add(successors[i]);
+        }
+      }
+    }
+
+    final var result = queue.toArray();
+    Arrays.sort(result);
+    stats.add(kernel, allocated);
+    return result;
+  }
+
+  // Breitensuche Ebene für Ebene, besuchte Zustände werden in einer Bitmap markiert
+  StateBitmap reachableBitmap(
+      final MixedRadixStateCodec codec, final boolean offHeap, final SearchStats stats) {
+    final var allocated = SearchStats.allocatedBytes();
+    final var kernel = this.kernel(codec);
+    final var visited = StateBitmap.allocate(codec.size(), offHeap);
+
+    // nur die aktuelle und die nächste Ebene werden gehalten, alles andere steht in der Bitmap
+    var level = new LongList(1024);
+    var next = new LongList(1024);
+    final var initial = codec.encode(this.initial);
+    visited.set(initial);
+    level.add(initial);
+
+    final var successors = new long[this.pours()];
+    while (level.size() > 0) {
+      for (var i = 0; i < level.size(); ++i) {
+        final var count = kernel.expand(level.get(i), successors, null);
+        for (var j = 0; j < count; ++j) {
+          if (visited.set(successors[j])) {
+            next.add(successors[j]);
+          }
+        }
+      }
+
+      final var done = level;
+      level = next;
+      next = done;
+      next.clear();
+    }
+
+    stats.add(kernel, allocated);
+    return visited;
+  }
+
+  // Breitensuche Ebene für Ebene, jede Ebene wird im ForkJoinPool parallel expandiert
+  long[] reachableParallel(
+      final PackedStateCodec codec, final int workers, final SearchStats stats) {
+    final var allocated = SearchStats.allocatedBytes();
+    final var visited = new StripedLongHashSet(workers);
+    final var all = new LongList(1024);
+
+    var level = new LongList(1);
+    final var initial = codec.encode(this.initial);
+    visited.add(initial);
+    level.add(initial);
+
+    final var pool = new ForkJoinPool(workers);
+    try {
+      while (level.size() > 0) {
+        all.addAll(level);
+        level = pool.invoke(
+            new ExpandTask(this, codec, visited, stats, level, 0, level.size()));
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    // die Reihenfolge innerhalb einer Ebene hängt von den Threads ab, erst die Sortierung macht
+    // das Ergebnis eindeutig
+    final var result = all.toArray();
+    Arrays.sort(result);
+
+    // die Worker haben ihre Allokationen selbst gemeldet, hier kommt der aufrufende Thread dazu
+    stats.add(0, 0, allocated < 0 ? -1 : SearchStats.allocatedBytes() - allocated);
+    return result;
+  }
+
+  // zwei Netze sind gleich, wenn Kapazitäten, Anfangszustand und Umfüll-Vorgänge gleich sind
+  @Override
+  public boolean equals(final Object o) {
+    if (this == o) {
+      return true;
+    }
+    return o instanceof PourNetwork other
+        && Arrays.equals(this.capacities, other.capacities)
+        && Arrays.equals(this.initial, other.initial)
+        && Arrays.equals(this.transitions, other.transitions);
+  }
+
+  @Override
+  public int hashCode() {
+    var hash = Arrays.hashCode(this.capacities);
+    hash = 31 * hash + Arrays.hashCode(this.initial);
+    return 31 * hash + Arrays.hashCode(this.transitions);
+  }
+
+  // expandiert einen Ausschnitt einer Ebene und liefert die dabei neu gefundenen Zustände;
+  // ForkJoinTask ist nur formal Serializable, die Tasks werden nie serialisiert
+  @SuppressWarnings("serial")
+  private static final class ExpandTask extends RecursiveTask<LongList> {
+    private final PourNetwork network;
+    private final PackedStateCodec codec;
+    private final StripedLongHashSet visited;
+    private final SearchStats stats;
+    private final LongList level;
+    private final int start;
+    private final int end;
+
+    ExpandTask(
+        final PourNetwork network,
+        final PackedStateCodec codec,
+        final StripedLongHashSet visited,
+        final SearchStats stats,
+        final LongList level,
+        final int start,
+        final int end) {
+      this.network = network;
+      this.codec = codec;
+      this.visited = visited;
+      this.stats = stats;
+      this.level = level;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected LongList compute() {
+      if (this.end - this.start > PourNetwork.PARALLEL_THRESHOLD) {
+        final var middle = (this.start + this.end) >>> 1;
+        final var left = new ExpandTask(this.network, this.codec, this.visited, this.stats,
+            this.level, this.start, middle);
+        final var right = new ExpandTask(this.network, this.codec, this.visited, this.stats,
+            this.level, middle, this.end);
+        left.fork();
+        final var rightResult = right.compute();
+        final var result = left.join();
+        result.addAll(rightResult);
+        return result;
+      }
+
+      final var allocated = SearchStats.allocatedBytes();
+      final var kernel = this.network.kernel(this.codec);
+      final var next = new LongList(this.end - this.start);
+      final var successors = new long[this.network.pours()];
+      for (var i = this.start; i < this.end; ++i) {
+        final var count = kernel.expand(this.level.get(i), successors, null);
+        for (var j = 0; j < count; ++j) {
+          if (this.visited.add(successors[j])) {
+            next.add(successors[j]);
+          }
+        }
+      }
+      this.stats.add(kernel, allocated);
+      return next;
+    }
+  }
+}
\ No newline at end of file
@@ -0,0 +1,258 @@
+package second;
+
+import java.util.Arrays;
+
+/**
+ * Kürzeste Umfüllfolgen in einem {@link PourNetwork}. Eine Umfüllfolge ist ein Array von
+ * Umfüll-Vorgängen (Index in die Liste der erlaubten Vorgänge des Netzes), die nacheinander
+ * ausgeführt vom Anfangszustand zum Ziel führen.
+ *
+ * <p>{@link #search(PourNetwork)} durchsucht einmal den ganzen Zustandsraum und merkt sich zu
+ * jedem Zustand nur den Index seines Vorgängers und den Umfüll-Vorgang dorthin, beides in
+ * primitiven Arrays. Danach lässt sich die Folge für beliebig viele Ziele rückwärts ablesen.
+ *
+ * <p>{@link #shortestPath(PourNetwork, int[])} sucht für ein einzelnes Ziel gleichzeitig vom
+ * Anfang vorwärts und vom Ziel rückwärts, bis sich beide Suchen treffen. Bei großen
+ * Zustandsräumen wird dabei meist nur ein kleiner Teil davon besucht.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+public final class PourPaths {
+  private final PourNetwork network;
+  private final PackedStateCodec codec;
+  private final Tree tree;
+
+  private PourPaths(final PourNetwork network, final PackedStateCodec codec, final Tree tree) {
+    this.network = network;
+    this.codec = codec;
+    this.tree = tree;
+  }
+
+  /** Breitensuche über den ganzen Zustandsraum mit Vorgänger-Index. */
+  public static PourPaths search(final PourNetwork network) {
+    PourPaths.checkPours(network);
+    final var codec = network.packedCodec();
+    final var tree = new Tree();
+    tree.add(codec.encode(network.initial()), -1, -1);
+
+    final var kernel = network.kernel(codec);
+    final var successors = new long[network.pours()];
+    final var pours = new int[network.pours()];
+    for (var head = 0; head < tree.size(); ++head) {
+      final var count = kernel.expand(tree.code(head), successors, pours);
+      for (var i = 0; i < count; ++i) {
+        tree.add(successors[i], head, pours[i]);
+      }
+    }
+
+    return new PourPaths(network, codec, tree);
+  }
+
+  /**
+   * Kürzeste Umfüllfolge vom Anfangszustand zu target, mit bidirektionaler Suche.
+   *
+   * @return die Umfüll-Vorgänge oder {@code null}, falls target nicht erreichbar ist
+   */
+  public static int[] shortestPath(final PourNetwork network, final int[] target) {
+    PourPaths.checkPours(network);
+    if (!PourPaths.isValid(network, target)) {
+      return null;
+    }
+
+    final var codec = network.packedCodec();
+    final var start = codec.encode(network.initial());
+    final var goal = codec.encode(target);
+    if (start == goal) {
+      return new int[0];
+    }
+
+    // im Rückwärtsbaum zeigt der Vorgänger in Richtung Ziel, der Umfüll-Vorgang führt dorthin
+    final var forward = new Tree();
+    final var backward = new Tree();
+    forward.add(start, -1, -1);
+    backward.add(goal, -1, -1);
+
+    final var kernel = network.kernel(codec);
+    final var current = new int[network.containers()];
+    final var successors = new long[network.pours()];
+    final var pours = new int[network.pours()];
+    while (forward.levelSize() > 0 && backward.levelSize() > 0) {
+      // immer die Seite mit der kleineren Ebene weiter expandieren
+      final var isForward = forward.levelSize() <= backward.levelSize();
+      final var side = isForward ? forward : backward;
+      final var other = isForward ? backward : forward;
+
+      final var end = side.size();
+      for (var i = side.levelStart; i < end; ++i) {
+        if (isForward) {
+          final var count = kernel.expand(side.code(i), successors, pours);
+          for (var j = 0; j < count; ++j) {
+            if (side.add(successors[j], i, pours[j]) && other.index(successors[j]) >= 0) {
+              return PourPaths.join(forward, backward, successors[j]);
+            }
+          }
+          continue;
+        }
+
+        codec.decode(side.code(i), current);
+
+        for (var pour = 0; pour < network.pours(); ++pour) {
+          final var from = network.from(pour);
+          final var to = network.to(pour);
+
+          // nur wenn danach from leer oder to voll ist, kann state durch diesen Vorgang
+          // entstanden sein; vorher waren amount Liter mehr in from und weniger in to
+          if (current[from] != 0 && current[to] != network.capacity(to)) {
+            continue;
+          }
+          final var max = Math.min(current[to], network.capacity(from) - current[from]);
+          for (var amount = 1; amount <= max; ++amount) {
+            current[from] += amount;
+            current[to] -= amount;
+            final var code = codec.encode(current);
+            current[from] -= amount;
+            current[to] += amount;
+
+            if (side.add(code, i, pour) && other.index(code) >= 0) {
+              return PourPaths.join(forward, backward, code);
+            }
+          }
+        }
+      }
+      side.levelStart = end;
+    }
+
+    return null;
+  }
+
+  // Anzahl der erreichbaren Zustände
+  public int size() {
+    return this.tree.size();
+  }
+
+  /**
+   * Kürzeste Umfüllfolge vom Anfangszustand zu target.
+   *
+   * @return die Umfüll-Vorgänge oder {@code null}, falls target nicht erreichbar ist
+   */
+  public int[] path(final int[] target) {
+    if (!PourPaths.isValid(this.network, target)) {
+      return null;
+    }
+
+    final var index = this.tree.index(this.codec.encode(target));
+    if (index < 0) {
+      return null;
+    }
+    return this.tree.pathTo(index);
+  }
+
+  // die Umfüll-Vorgänge werden als short gespeichert
+  private static void checkPours(final PourNetwork network) {
+    if (network.pours() > Short.MAX_VALUE) {
+      throw new IllegalArgumentException("Zu viele Umfüll-Vorgänge: " + network.pours());
+    }
+  }
+
+  // passt target überhaupt in das Netz? Sonst ließe es sich auch nicht codieren
+  private static boolean isValid(final PourNetwork network, final int[] target) {
+    if (target.length != network.containers()) {
+      throw new IllegalArgumentException(
+          String.format("Ziel hat %d statt %d Behälter", target.length, network.containers()));
+    }
+
+    var sum = 0L;
+    for (var i = 0; i < target.length; ++i) {
+      if (target[i] < 0 || target[i] > network.capacity(i)) {
+        return false;
+      }
+      sum += target[i];
+    }
+    return sum == network.total();
+  }
+
+  // Folge vom Anfang bis meeting aus dem Vorwärtsbaum, danach weiter bis zum Ziel
+  private static int[] join(final Tree forward, final Tree backward, final long meeting) {
+    final var head = forward.pathTo(forward.index(meeting));
+
+    final var tail = new int[backward.depth(backward.index(meeting))];
+    var n = 0;
+    for (var i = backward.index(meeting); backward.parent(i) >= 0; i = backward.parent(i)) {
+      tail[n++] = backward.pour(i);
+    }
+
+    final var path = Arrays.copyOf(head, head.length + tail.length);
+    System.arraycopy(tail, 0, path, head.length, tail.length);
+    return path;
+  }
+
+  // Suchbaum in Breitensuch-Reihenfolge: Codes, Vorgänger-Index und Umfüll-Vorgang
+  private static final class Tree {
+    private final LongList codes = new LongList(1024);
+    private final LongIntHashMap index = new LongIntHashMap(1024);
+    private int[] parents = new int[1024];
+    private short[] pours = new short[1024];
+    // erster Zustand der noch nicht expandierten Ebene
+    private int levelStart;
+
+    // true, falls code neu ist
+    boolean add(final long code, final int parent, final int pour) {
+      final var n = this.codes.size();
+      if (this.index.putIfAbsent(code, n) != LongIntHashMap.ABSENT) {
+        return false;
+      }
+
+      if (n == this.parents.length) {
+        this.parents = Arrays.copyOf(this.parents, n << 1);
+        this.pours = Arrays.copyOf(this.pours, n << 1);
+      }
+      this.codes.add(code);
+      this.parents[n] = parent;
+      this.pours[n] = (short) pour;
+      return true;
+    }
+
+    int size() {
+      return this.codes.size();
+    }
+
+    int levelSize() {
+      return this.codes.size() - this.levelStart;
+    }
+
+    long code(final int i) {
+      return this.codes.get(i);
+    }
+
+    int index(final long code) {
+      return this.index.get(code);
+    }
+
+    int parent(final int i) {
+      return this.parents[i];
+    }
+
+    int pour(final int i) {
+      return this.pours[i];
+    }
+
+    int depth(final int i) {
+      var depth = 0;
+      for (var j = i; this.parents[j] >= 0; j = this.parents[j]) {
+        ++depth;
+      }
+      return depth;
+    }
+
+    // Umfüll-Vorgänge von der Wurzel bis zum Zustand i
+    int[] pathTo(final int i) {
+      final var path = new int[this.depth(i)];
+      var n = path.length;
+      for (var j = i; this.parents[j] >= 0; j = this.parents[j]) {
+        path[--n] = this.pours[j];
+      }
+      return path;
+    }
+  }
+}
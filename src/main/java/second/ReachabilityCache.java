@@ -0,0 +1,86 @@
+package second;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Begrenzter LRU-Cache für {@link ReachableStates}, Schlüssel ist das {@link PourNetwork} (also
+ * Kapazitäten, Anfangszustand und Umfüll-Vorgänge). Ist der Cache voll, fliegt der am längsten
+ * nicht mehr benutzte Eintrag raus.
+ *
+ * <p>Die Suche selbst läuft außerhalb der Sperre, damit ein langsamer Fehlschlag andere Threads
+ * nicht aufhält. Fragen zwei Threads gleichzeitig nach demselben Netz, wird es im Zweifel doppelt
+ * berechnet, aber nur einmal gespeichert.
+ *
+ * <p>Treffer, Fehlschläge und Verdrängungen werden für die Überwachung mitgezählt.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+public final class ReachabilityCache {
+  private final Map<PourNetwork, ReachableStates> entries;
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  public ReachabilityCache(final int maxEntries) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("Cache braucht mindestens einen Eintrag: " + maxEntries);
+    }
+
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<PourNetwork, ReachableStates> eldest) {
+        if (this.size() > maxEntries) {
+          ReachabilityCache.this.evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+  }
+
+  public ReachableStates get(final PourNetwork network) {
+    synchronized (this.entries) {
+      final var cached = this.entries.get(network);
+      if (cached != null) {
+        this.hits.incrementAndGet();
+        return cached;
+      }
+    }
+
+    this.misses.incrementAndGet();
+    final var computed = ReachableStates.of(network);
+
+    synchronized (this.entries) {
+      final var cached = this.entries.putIfAbsent(network, computed);
+      return cached != null ? cached : computed;
+    }
+  }
+
+  public long hits() {
+    return this.hits.get();
+  }
+
+  public long misses() {
+    return this.misses.get();
+  }
+
+  public long evictions() {
+    return this.evictions.get();
+  }
+
+  public int size() {
+    synchronized (this.entries) {
+      return this.entries.size();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "ReachabilityCache[size=%d, hits=%d, misses=%d, evictions=%d]",
+        this.size(), this.hits(), this.misses(), this.evictions());
+  }
+}
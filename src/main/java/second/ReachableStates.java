@@ -0,0 +1,66 @@
+package second;
+
+import java.util.Arrays;
+
+/**
+ * Unveränderliche, kompakte Menge aller erreichbaren Zustände eines {@link PourNetwork}. Die
+ * Zustände liegen gepackt und aufsteigend sortiert in einem einzigen {@code long[]}, also mit 8
+ * Byte pro Zustand. Abfragen per Index und {@link #contains(int[])} per binärer Suche.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+public final class ReachableStates {
+  private final PourNetwork network;
+  private final PackedStateCodec codec;
+  private final long[] codes;
+
+  private ReachableStates(
+      final PourNetwork network, final PackedStateCodec codec, final long[] codes) {
+    this.network = network;
+    this.codec = codec;
+    this.codes = codes;
+  }
+
+  /** Sucht alle erreichbaren Zustände, ohne Cache. */
+  public static ReachableStates of(final PourNetwork network) {
+    final var codec = network.packedCodec();
+    return new ReachableStates(network, codec, network.reachablePacked(codec, new SearchStats()));
+  }
+
+  public PourNetwork network() {
+    return this.network;
+  }
+
+  public int size() {
+    return this.codes.length;
+  }
+
+  // i-ter Zustand in sortierter Reihenfolge
+  public int[] get(final int i) {
+    final var state = new int[this.network.containers()];
+    this.get(i, state);
+    return state;
+  }
+
+  // i-ter Zustand in sortierter Reihenfolge, in ein vorhandenes Array geschrieben
+  public void get(final int i, final int[] state) {
+    this.codec.decode(this.codes[i], state);
+  }
+
+  public boolean contains(final int[] state) {
+    if (state.length != this.network.containers()) {
+      return false;
+    }
+    // der letzte Behälter steckt nicht im Code, daher muss die Gesamtmenge stimmen
+    var sum = 0L;
+    for (var i = 0; i < state.length; ++i) {
+      if (state[i] < 0 || state[i] > this.network.capacity(i)) {
+        return false;
+      }
+      sum += state[i];
+    }
+    return sum == this.network.total()
+        && Arrays.binarySearch(this.codes, this.codec.encode(state)) >= 0;
+  }
+}
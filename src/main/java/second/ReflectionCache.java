@@ -0,0 +1,211 @@
+package second;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Type;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Shared cache of what {@link Inspector} reads via reflection: the {@link ClassModel} of every
+ * inspected class and the simple name and import set of every referenced type. Types like {@code
+ * java.lang.String} or {@code java.util.List} show up in almost every class, so in a batch their
+ * imports are computed once instead of once per member. Generic types like {@code List<String>}
+ * are rendered once as well.
+ *
+ * <p>Each table keeps at most {@code maxEntries} entries and drops the least recently used one
+ * when full. Classes are only referenced weakly and the cached values hold no reference back to
+ * them, so a class loader whose classes were inspected can still be unloaded; entries of collected
+ * classes are dropped on the next access. Generic types are keyed by the types themselves, which
+ * reflection creates anew for every {@code Method} copy but compares by value, so they are held
+ * strongly until they are the least recently used.
+ *
+ * <p>Values are computed outside the lock; two threads asking for the same class at the same time
+ * may both compute it, but only one result is kept. Hits, misses and evictions are counted.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+public final class ReflectionCache {
+
+  private final Table<ClassModel> models;
+
+  // models with generic types
+  private final Table<ClassModel> genericModels;
+
+  private final Table<ClassModel.Type> types;
+
+  private final Table<ClassModel.Type> genericTypes;
+
+  public ReflectionCache(final int maxEntries) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException("Cache needs at least one entry: " + maxEntries);
+    }
+    this.models = new Table<>(maxEntries, true);
+    this.genericModels = new Table<>(maxEntries, true);
+    this.types = new Table<>(maxEntries, true);
+    this.genericTypes = new Table<>(maxEntries, false);
+  }
+
+  // the model of an inspected class
+  ClassModel model(final Class<?> clazz, final boolean generics) {
+    return generics
+        ? this.genericModels.get(clazz, c -> Inspector.reflect((Class<?>) c, this, true))
+        : this.models.get(clazz, c -> Inspector.reflect((Class<?>) c, this, false));
+  }
+
+  // simple name and imports of a referenced type
+  ClassModel.Type type(final Class<?> type) {
+    return this.types.get(type, t -> Inspector.type((Class<?>) t));
+  }
+
+  // rendered generic type and its imports
+  ClassModel.Type type(final Type type) {
+    if (type instanceof Class) {
+      return this.type((Class<?>) type);
+    }
+    return this.genericTypes.get(type, t -> Inspector.type(t, this));
+  }
+
+  public long hits() {
+    return this.models.hits.get()
+        + this.genericModels.hits.get()
+        + this.types.hits.get()
+        + this.genericTypes.hits.get();
+  }
+
+  public long misses() {
+    return this.models.misses.get()
+        + this.genericModels.misses.get()
+        + this.types.misses.get()
+        + this.genericTypes.misses.get();
+  }
+
+  public long evictions() {
+    return this.models.evictions.get()
+        + this.genericModels.evictions.get()
+        + this.types.evictions.get()
+        + this.genericTypes.evictions.get();
+  }
+
+  // share of lookups that were answered from the cache, 0 without any lookup
+  public double hitRate() {
+    final var hits = this.hits();
+    final var total = hits + this.misses();
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  public int size() {
+    return this.models.size()
+        + this.genericModels.size()
+        + this.types.size()
+        + this.genericTypes.size();
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "ReflectionCache[models=%s, genericModels=%s, types=%s, genericTypes=%s, hitRate=%.1f%%]",
+        this.models,
+        this.genericModels,
+        this.types,
+        this.genericTypes,
+        this.hitRate() * 100);
+  }
+
+  // LRU map with weak class keys or strong keys compared by equals()
+  private static final class Table<V> {
+    private final Map<Object, V> entries;
+    private final boolean weak;
+    private final ReferenceQueue<Class<?>> collected = new ReferenceQueue<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    Table(final int maxEntries, final boolean weak) {
+      this.weak = weak;
+      this.entries =
+          new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<Object, V> eldest) {
+              if (this.size() > maxEntries) {
+                Table.this.evictions.incrementAndGet();
+                return true;
+              }
+              return false;
+            }
+          };
+    }
+
+    V get(final Type key, final Function<Type, V> compute) {
+      synchronized (this.entries) {
+        this.expunge();
+        final var cached = this.entries.get(this.weak ? new Key((Class<?>) key, null) : key);
+        if (cached != null) {
+          this.hits.incrementAndGet();
+          return cached;
+        }
+      }
+
+      this.misses.incrementAndGet();
+      final var computed = compute.apply(key);
+
+      synchronized (this.entries) {
+        final var cached =
+            this.entries.putIfAbsent(
+                this.weak ? new Key((Class<?>) key, this.collected) : key, computed);
+        return cached != null ? cached : computed;
+      }
+    }
+
+    int size() {
+      synchronized (this.entries) {
+        this.expunge();
+        return this.entries.size();
+      }
+    }
+
+    // drop the entries of classes that were garbage collected
+    private void expunge() {
+      for (var key = this.collected.poll(); key != null; key = this.collected.poll()) {
+        this.entries.remove(key);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "[size=%d, hits=%d, misses=%d, evictions=%d]",
+          this.size(), this.hits.get(), this.misses.get(), this.evictions.get());
+    }
+  }
+
+  // compares the classes by identity, a collected key only equals itself
+  private static final class Key extends WeakReference<Class<?>> {
+    private final int hash;
+
+    Key(final Class<?> clazz, final ReferenceQueue<Class<?>> queue) {
+      super(clazz, queue);
+      this.hash = System.identityHashCode(clazz);
+    }
+
+    @Override
+    public int hashCode() {
+      return this.hash;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      final var clazz = this.get();
+      return clazz != null && clazz == ((Key) o).get();
+    }
+  }
+}
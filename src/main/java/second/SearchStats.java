@@ -0,0 +1,71 @@
+package second;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Kennzahlen einer Suche: expandierte Zustände, übersprungene Umfüll-Vorgänge ohne Wirkung und
+ * die dabei auf dem Heap allokierten Bytes. Die Allokationen werden pro Thread über
+ * {@link com.sun.management.ThreadMXBean} gemessen, falls die JVM das unterstützt.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+final class SearchStats {
+  private long expanded;
+  private long skipped;
+  private long allocated;
+  private boolean measured = true;
+
+  // bisher vom aktuellen Thread allokierte Bytes, -1 falls nicht messbar
+  static long allocatedBytes() {
+    if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+        && bean.isThreadAllocatedMemorySupported()
+        && bean.isThreadAllocatedMemoryEnabled()) {
+      return bean.getCurrentThreadAllocatedBytes();
+    }
+    return -1;
+  }
+
+  synchronized void add(final long expanded, final long skipped, final long allocatedSince) {
+    this.expanded += expanded;
+    this.skipped += skipped;
+    if (allocatedSince < 0) {
+      this.measured = false;
+    }
+    this.allocated += allocatedSince;
+  }
+
+  // Zähler eines Kernels übernehmen, dazu die Allokationen seit start (aus allocatedBytes())
+  void add(final PourKernel kernel, final long start) {
+    this.add(
+        kernel.expanded(),
+        kernel.skipped(),
+        start < 0 ? -1 : SearchStats.allocatedBytes() - start);
+  }
+
+  synchronized long expanded() {
+    return this.expanded;
+  }
+
+  synchronized long skipped() {
+    return this.skipped;
+  }
+
+  // allokierte Bytes, -1 falls nicht messbar
+  synchronized long allocated() {
+    return this.measured ? this.allocated : -1;
+  }
+
+  @Override
+  public synchronized String toString() {
+    final var perState = this.expanded == 0 ? 0 : (double) this.allocated / this.expanded;
+    return this.measured
+        ? String.format(
+            "%d Zustände expandiert, %d Umfüll-Vorgänge ohne Wirkung übersprungen, "
+                + "%d Byte allokiert (%.1f Byte pro Zustand)",
+            this.expanded, this.skipped, this.allocated, perState)
+        : String.format(
+            "%d Zustände expandiert, %d Umfüll-Vorgänge ohne Wirkung übersprungen",
+            this.expanded, this.skipped);
+  }
+}
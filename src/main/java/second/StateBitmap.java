@@ -0,0 +1,139 @@
+package second;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Bitmenge fester Größe über den Indizes {@code 0 .. size - 1}. Wird als Besucht-Menge benutzt,
+ * wenn der ganze Zustandsraum von vornherein bekannt ist und in den Speicher passt.
+ *
+ * <p>Es gibt eine Variante auf dem Heap ({@code long[]}) und eine außerhalb des Heaps in direkten
+ * {@link ByteBuffer}n, die in Blöcken zu 1 GiB angelegt werden und so auch Bitmengen jenseits der
+ * maximalen Array-Länge erlauben.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+abstract class StateBitmap {
+  // größtes long[], das die JVM sicher anlegen kann
+  private static final long MAX_HEAP_WORDS = Integer.MAX_VALUE - 8;
+
+  private long count;
+
+  static StateBitmap allocate(final long size, final boolean offHeap) {
+    final var words = (size + 63) >>> 6;
+    if (!offHeap && words <= StateBitmap.MAX_HEAP_WORDS) {
+      return new Heap(words);
+    }
+    return new Direct(words);
+  }
+
+  // passt eine Heap-Bitmap dieser Größe bequem in den verfügbaren Heap?
+  static boolean fitsOnHeap(final long size) {
+    final var words = (size + 63) >>> 6;
+    return words <= StateBitmap.MAX_HEAP_WORDS && words * 8 < Runtime.getRuntime().maxMemory() / 2;
+  }
+
+  // setzt das Bit, true falls es vorher noch nicht gesetzt war
+  final boolean set(final long index) {
+    final var word = index >>> 6;
+    final var bit = 1L << index;
+    final var old = this.word(word);
+    if ((old & bit) != 0) {
+      return false;
+    }
+    this.word(word, old | bit);
+    ++this.count;
+    return true;
+  }
+
+  final long count() {
+    return this.count;
+  }
+
+  // Index des nächsten gesetzten Bits ab from, -1 falls es keines mehr gibt
+  final long nextSetBit(final long from) {
+    var word = from >>> 6;
+    final var words = this.words();
+    if (word >= words) {
+      return -1;
+    }
+
+    var bits = this.word(word) & (-1L << from);
+    while (bits == 0) {
+      if (++word == words) {
+        return -1;
+      }
+      bits = this.word(word);
+    }
+    return (word << 6) + Long.numberOfTrailingZeros(bits);
+  }
+
+  abstract long words();
+
+  abstract long word(long index);
+
+  abstract void word(long index, long value);
+
+  private static final class Heap extends StateBitmap {
+    private final long[] words;
+
+    Heap(final long words) {
+      this.words = new long[(int) words];
+    }
+
+    @Override
+    long words() {
+      return this.words.length;
+    }
+
+    @Override
+    long word(final long index) {
+      return this.words[(int) index];
+    }
+
+    @Override
+    void word(final long index, final long value) {
+      this.words[(int) index] = value;
+    }
+  }
+
+  private static final class Direct extends StateBitmap {
+    // 2^27 longs = 1 GiB pro Block
+    private static final int BLOCK_SHIFT = 27;
+    private static final int BLOCK_MASK = (1 << Direct.BLOCK_SHIFT) - 1;
+
+    private final LongBuffer[] blocks;
+    private final long words;
+
+    Direct(final long words) {
+      this.words = words;
+      final var blockCount = (int) ((words + Direct.BLOCK_MASK) >>> Direct.BLOCK_SHIFT);
+      this.blocks = new LongBuffer[blockCount];
+      for (var i = 0; i < blockCount; ++i) {
+        final var length = (int) Math.min(1L << Direct.BLOCK_SHIFT,
+            words - ((long) i << Direct.BLOCK_SHIFT));
+        // allocateDirect liefert genullten Speicher
+        this.blocks[i] = ByteBuffer.allocateDirect(length * Long.BYTES)
+            .order(ByteOrder.nativeOrder())
+            .asLongBuffer();
+      }
+    }
+
+    @Override
+    long words() {
+      return this.words;
+    }
+
+    @Override
+    long word(final long index) {
+      return this.blocks[(int) (index >>> Direct.BLOCK_SHIFT)].get((int) index & Direct.BLOCK_MASK);
+    }
+
+    @Override
+    void word(final long index, final long value) {
+      this.blocks[(int) (index >>> Direct.BLOCK_SHIFT)].put((int) index & Direct.BLOCK_MASK, value);
+    }
+  }
+}
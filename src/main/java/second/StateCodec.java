@@ -0,0 +1,22 @@
+package second;
+
+/**
+ * Bildet Füllzustände umkehrbar auf nicht-negative {@code long}-Codes ab. Die natürliche Ordnung
+ * der Codes entspricht dabei immer der lexikographischen Ordnung der Tupel, so dass sortierte
+ * Codes direkt die sortierte Ausgabe ergeben.
+ *
+ * <p>Beide Codierungen sind Stellenwertsysteme: der Code ist die Summe aus Füllstand mal
+ * {@link #weight(int)} über alle Behälter. Ein Umfüll-Vorgang lässt sich deshalb direkt auf dem
+ * Code ausführen, ohne den Nachfolger neu zu codieren.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+interface StateCodec {
+  long encode(int[] state);
+
+  void decode(long code, int[] state);
+
+  // Stellenwert eines Behälters im Code, 0 für einen Behälter der nicht mitcodiert wird
+  long weight(int container);
+}
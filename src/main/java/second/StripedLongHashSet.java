@@ -0,0 +1,40 @@
+package second;
+
+/**
+ * Thread-sichere Hashmenge für nicht-negative {@code long}-Werte. Die Werte werden anhand ihres
+ * Hashes auf mehrere {@link LongHashSet}-Streifen verteilt, die jeweils einzeln gesperrt werden.
+ * Bei genügend Streifen kommen sich parallele Threads kaum in die Quere.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+final class StripedLongHashSet {
+  private final LongHashSet[] stripes;
+  private final int shift;
+
+  StripedLongHashSet(final int concurrency) {
+    var count = 1;
+    while (count < concurrency * 4) {
+      count <<= 1;
+    }
+    this.stripes = new LongHashSet[count];
+    for (var i = 0; i < count; ++i) {
+      this.stripes[i] = new LongHashSet(1024);
+    }
+    this.shift = Integer.SIZE - Integer.numberOfTrailingZeros(count);
+  }
+
+  // fügt den Wert hinzu, true falls er vorher noch nicht enthalten war
+  boolean add(final long value) {
+    final var stripe = this.stripes[this.stripe(value)];
+    synchronized (stripe) {
+      return stripe.add(value);
+    }
+  }
+
+  // obere Bits eines eigenen Hashes, unabhängig von der Sondierung innerhalb eines Streifens
+  private int stripe(final long value) {
+    final var h = (int) (value ^ (value >>> 32)) * 0x9E3779B9;
+    return h >>> this.shift;
+  }
+}
@@ -0,0 +1,695 @@
+package second;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Everything that was drawn on a canvas, in order: strokes, dropped images and clears.
+ * <p>
+ * The points of all strokes are kept in two float arrays, each stroke only knows where its
+ * points start, how many there are, its color, thickness and {@link MyPaint.StrokeType}.
+ * Coordinates are canvas pixels, so the log can be rendered at any zoom or resolution by
+ * transforming the graphics. A stroke is drawn as a smooth curve through its points, so a
+ * fast movement with few points still looks round.
+ * <p>
+ * Undone entries stay in the log until something new is added, so they can be redone. A
+ * clear is an entry as well and hides everything before it, so it can be undone too.
+ * <p>
+ * A grid of cells of {@link #cellSize} pixels lists the entries that reach into each cell,
+ * so {@link #render(Graphics2D, Rectangle)} only looks at the entries in the rendered area
+ * and of those only draws the segments that reach into it.
+ * <p>
+ * The document format is a magic number followed by a deflated stream of the visible
+ * entries:
+ * <pre>
+ * "MYP" 1                  magic and version
+ * count                    int
+ * per stroke               0 (byte), stroke type (byte), color (int, ARGB),
+ *                          thickness (float), point count (int), x and y (floats)
+ * per image                1 (byte), x, y, width, height (floats), PNG length (int), PNG
+ * </pre>
+ *
+ * @author Frank Mayer 215965, Antonia Friese 215937, René Ott 215471
+ * @version 1.1
+ */
+class StrokeLog {
+    // edge length of a cell of the spatial index, the same as a tile
+    static final int cellSize = TiledCanvas.tileSize;
+    private static final int magic = 'M' << 24 | 'Y' << 16 | 'P' << 8 | 1;
+    private static final byte stroke = 0;
+    private static final byte image = 1;
+    private static final byte clear = 2;
+    // shortest segment in pixels that is drawn as a curve
+    private static final float minCurve = 4;
+    // most segments of a dotted stroke drawn as one path
+    private static final int dashRun = 64;
+    // most points of a stroke in a document, far more than a mouse can record
+    private static final int maxPoints = 1 << 24;
+
+    // per entry
+    private byte[] kinds = new byte[64];
+    private byte[] types = new byte[64];
+    private int[] colors = new int[64];
+    private float[] thicknesses = new float[64];
+    private int[] firstPoints = new int[64];
+    private int[] pointCounts = new int[64];
+    // min x, min y, max x, max y of everything the entry paints
+    private float[] bounds = new float[64 * 4];
+    private BufferedImage[] images = new BufferedImage[64];
+    // points of all entries, an image has its top left and bottom right corner
+    private float[] xs = new float[1024];
+    private float[] ys = new float[1024];
+    private int points;
+    // recorded entries, including undone ones
+    private int count;
+    // entries that are not undone
+    private int size;
+    // first entry after the last clear that is not undone
+    private int base;
+    // entries per cell, in the order they were added
+    private final Map<Long, int[]> cells = new HashMap<>();
+    // last query that found an entry, so every entry is found once per query
+    private int[] seen = new int[64];
+    private int query;
+    // the stroke being drawn, -1 if there is none
+    private int active = -1;
+    // segments of the active stroke taken by takePending, from point to point, and the
+    // length of the stroke before them
+    private int pendingFrom;
+    private int pendingTo;
+    private double pendingLength;
+    // length of the active stroke up to pendingTo
+    private double drawnLength;
+    // control points of a segment and its extent, see controlPoints and extent
+    private final float[] controls = new float[4];
+    private final float[] extent = new float[4];
+    // the color drawn last, most strokes have the same color
+    private Color color = Color.BLACK;
+
+    // number of entries that are not undone
+    int size() {
+        return this.size;
+    }
+
+    boolean canUndo() {
+        return this.size > 0;
+    }
+
+    boolean canRedo() {
+        return this.size < this.count;
+    }
+
+    // start a new stroke, undone entries cannot be redone anymore
+    void beginStroke(float x, float y, Color color, float thickness, MyPaint.StrokeType type) {
+        var entry = this.addEntry(StrokeLog.stroke);
+        this.types[entry] = (byte) type.ordinal();
+        this.colors[entry] = color.getRGB();
+        this.thicknesses[entry] = thickness;
+        this.addPoint(entry, x, y);
+        this.active = entry;
+        this.pendingFrom = this.firstPoints[entry];
+        this.pendingTo = this.pendingFrom;
+        this.drawnLength = 0;
+    }
+
+    // add a point to the stroke begun last, it is drawn once taken by takePending
+    void continueStroke(float x, float y) {
+        if (this.active == this.size - 1) {
+            this.addPoint(this.active, x, y);
+        }
+    }
+
+    /**
+     * Take the segments of the stroke begun last that were not drawn yet and return their
+     * area, {@link #renderPending(Graphics2D)} draws them. The curve through a point depends
+     * on the point after it, so the last segment is only taken once the stroke is finished.
+     * Returns null if there is nothing to draw.
+     */
+    Rectangle takePending(boolean finished) {
+        if (this.active != this.size - 1) {
+            return null;
+        }
+        var last = this.firstPoints[this.active] + this.pointCounts[this.active] - 1;
+        var to = finished ? last : last - 1;
+        if (to <= this.pendingTo) {
+            return null;
+        }
+        this.pendingFrom = this.pendingTo;
+        this.pendingTo = to;
+        this.pendingLength = this.drawnLength;
+        var minX = Float.MAX_VALUE;
+        var minY = Float.MAX_VALUE;
+        var maxX = -Float.MAX_VALUE;
+        var maxY = -Float.MAX_VALUE;
+        for (var point = this.pendingFrom; point < to; ++point) {
+            this.extent(this.active, point);
+            minX = Math.min(minX, this.extent[0]);
+            minY = Math.min(minY, this.extent[1]);
+            maxX = Math.max(maxX, this.extent[2]);
+            maxY = Math.max(maxY, this.extent[3]);
+            this.drawnLength += this.segmentLength(this.active, point);
+        }
+        return StrokeLog.rectangle(minX, minY, maxX, maxY);
+    }
+
+    // draw the segments taken last by takePending, they continue the dashes of the stroke
+    void renderPending(Graphics2D g2d) {
+        this.renderSegments(g2d, this.active, this.pendingFrom, this.pendingTo, this.pendingLength);
+    }
+
+    // a stroke needs two points to draw anything, a single click is dropped
+    void endStroke() {
+        this.active = -1;
+        var entry = this.size - 1;
+        if (entry >= 0 && this.kinds[entry] == StrokeLog.stroke && this.pointCounts[entry] < 2) {
+            this.size = entry;
+            this.truncate();
+        }
+    }
+
+    // add an image covering an area and return that area
+    Rectangle addImage(BufferedImage image, float x, float y, float width, float height) {
+        var entry = this.addEntry(StrokeLog.image);
+        this.images[entry] = image;
+        this.addPoint(entry, x, y);
+        this.addPoint(entry, x + width, y + height);
+        return this.bounds(entry);
+    }
+
+    // hide everything drawn so far
+    void clear() {
+        this.addEntry(StrokeLog.clear);
+        this.base = this.size;
+    }
+
+    // take back the last entry and return the area that changed, null for everything
+    Rectangle undo() {
+        if (!this.canUndo()) {
+            return new Rectangle();
+        }
+        var entry = --this.size;
+        this.base = this.findBase();
+        return this.kinds[entry] == StrokeLog.clear ? null : this.bounds(entry);
+    }
+
+    // bring back the last undone entry and return the area that changed, null for everything
+    Rectangle redo() {
+        if (!this.canRedo()) {
+            return new Rectangle();
+        }
+        var entry = this.size++;
+        this.base = this.findBase();
+        return this.kinds[entry] == StrokeLog.clear ? null : this.bounds(entry);
+    }
+
+    // true if no visible entry reaches into the area
+    boolean isEmpty(Rectangle area) {
+        return this.query(area).length == 0;
+    }
+
+    /**
+     * Draw the visible entries that reach into the area, given in canvas coordinates, in the
+     * order they were added. The graphics may be transformed to render at any resolution.
+     */
+    void render(Graphics2D g2d, Rectangle area) {
+        for (var entry : this.query(area)) {
+            switch (this.kinds[entry]) {
+                case StrokeLog.stroke -> this.renderStroke(g2d, entry, area);
+                case StrokeLog.image -> {
+                    var first = this.firstPoints[entry];
+                    g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                        RenderingHints.VALUE_INTERPOLATION_BILINEAR
+                    );
+                    g2d.drawImage(this.images[entry],
+                        Math.round(this.xs[first]),
+                        Math.round(this.ys[first]),
+                        Math.round(this.xs[first + 1] - this.xs[first]),
+                        Math.round(this.ys[first + 1] - this.ys[first]),
+                        null
+                    );
+                }
+                default -> {
+                }
+            }
+        }
+    }
+
+    // write the visible entries in the document format
+    void write(OutputStream out) throws IOException {
+        var data = new DataOutputStream(out);
+        data.writeInt(StrokeLog.magic);
+        var deflater = new DeflaterOutputStream(data);
+        var entries = new DataOutputStream(new BufferedOutputStream(deflater));
+        entries.writeInt(this.size - this.base);
+        for (var entry = this.base; entry < this.size; ++entry) {
+            var first = this.firstPoints[entry];
+            entries.writeByte(this.kinds[entry]);
+            if (this.kinds[entry] == StrokeLog.stroke) {
+                entries.writeByte(this.types[entry]);
+                entries.writeInt(this.colors[entry]);
+                entries.writeFloat(this.thicknesses[entry]);
+                entries.writeInt(this.pointCounts[entry]);
+                for (var point = first; point < first + this.pointCounts[entry]; ++point) {
+                    entries.writeFloat(this.xs[point]);
+                    entries.writeFloat(this.ys[point]);
+                }
+            }
+            else {
+                entries.writeFloat(this.xs[first]);
+                entries.writeFloat(this.ys[first]);
+                entries.writeFloat(this.xs[first + 1] - this.xs[first]);
+                entries.writeFloat(this.ys[first + 1] - this.ys[first]);
+                var png = new ByteArrayOutputStream();
+                ImageIO.write(this.images[entry], "png", png);
+                entries.writeInt(png.size());
+                png.writeTo(entries);
+            }
+        }
+        entries.flush();
+        deflater.finish();
+        data.flush();
+    }
+
+    // read a document written by write(), anything else throws an IOException
+    static StrokeLog read(InputStream in) throws IOException {
+        var data = new DataInputStream(in);
+        if (data.readInt() != StrokeLog.magic) {
+            throw new IOException("Not a MyPaint document");
+        }
+        var entries = new DataInputStream(new BufferedInputStream(new InflaterInputStream(data)));
+        var log = new StrokeLog();
+        var count = entries.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid entry count: " + count);
+        }
+        for (var i = 0; i < count; ++i) {
+            var kind = entries.readByte();
+            if (kind == StrokeLog.stroke) {
+                var type = entries.readByte();
+                if (type < 0 || type >= MyPaint.StrokeType.values().length) {
+                    throw new IOException("Unknown stroke type: " + type);
+                }
+                var color = new Color(entries.readInt(), true);
+                var thickness = entries.readFloat();
+                var points = entries.readInt();
+                if (points < 1 || points > StrokeLog.maxPoints) {
+                    throw new IOException("Invalid point count: " + points);
+                }
+                log.beginStroke(entries.readFloat(),
+                    entries.readFloat(),
+                    color,
+                    thickness,
+                    MyPaint.StrokeType.values()[type]
+                );
+                for (var point = 1; point < points; ++point) {
+                    var entry = log.size - 1;
+                    log.addPoint(entry, entries.readFloat(), entries.readFloat());
+                }
+                log.endStroke();
+            }
+            else if (kind == StrokeLog.image) {
+                var x = entries.readFloat();
+                var y = entries.readFloat();
+                var width = entries.readFloat();
+                var height = entries.readFloat();
+                var length = entries.readInt();
+                if (length < 0) {
+                    throw new IOException("Invalid image length: " + length);
+                }
+                // only as many bytes as there are, a wrong length must not allocate it all
+                var png = entries.readNBytes(length);
+                if (png.length < length) {
+                    throw new EOFException();
+                }
+                BufferedImage image;
+                try {
+                    image = ImageIO.read(new ByteArrayInputStream(png));
+                }
+                catch (RuntimeException e) {
+                    throw new IOException("Broken image", e);
+                }
+                if (image == null) {
+                    throw new IOException("Broken image");
+                }
+                log.addImage(image, x, y, width, height);
+            }
+            else {
+                throw new IOException("Unknown entry: " + kind);
+            }
+        }
+        return log;
+    }
+
+    private int addEntry(byte kind) {
+        this.truncate();
+        if (this.count == this.kinds.length) {
+            var capacity = this.count << 1;
+            this.kinds = Arrays.copyOf(this.kinds, capacity);
+            this.types = Arrays.copyOf(this.types, capacity);
+            this.colors = Arrays.copyOf(this.colors, capacity);
+            this.thicknesses = Arrays.copyOf(this.thicknesses, capacity);
+            this.firstPoints = Arrays.copyOf(this.firstPoints, capacity);
+            this.pointCounts = Arrays.copyOf(this.pointCounts, capacity);
+            this.bounds = Arrays.copyOf(this.bounds, capacity * 4);
+            this.images = Arrays.copyOf(this.images, capacity);
+            this.seen = Arrays.copyOf(this.seen, capacity);
+        }
+        var entry = this.count++;
+        this.size = this.count;
+        this.kinds[entry] = kind;
+        this.images[entry] = null;
+        this.firstPoints[entry] = this.points;
+        this.pointCounts[entry] = 0;
+        this.seen[entry] = 0;
+        // nothing until the first point, a clear never gets one
+        this.bounds[entry * 4] = 0;
+        this.bounds[entry * 4 + 1] = 0;
+        this.bounds[entry * 4 + 2] = -1;
+        this.bounds[entry * 4 + 3] = -1;
+        return entry;
+    }
+
+    private void addPoint(int entry, float x, float y) {
+        if (this.points == this.xs.length) {
+            this.xs = Arrays.copyOf(this.xs, this.points << 1);
+            this.ys = Arrays.copyOf(this.ys, this.points << 1);
+        }
+        this.xs[this.points] = x;
+        this.ys[this.points] = y;
+        ++this.points;
+
+        // grow the bounds and list the entry in the cells of its new part
+        var margin = this.kinds[entry] == StrokeLog.stroke ? this.margin(entry) : 0;
+        var b = entry * 4;
+        if (this.pointCounts[entry]++ == 0) {
+            this.bounds[b] = x - margin;
+            this.bounds[b + 1] = y - margin;
+            this.bounds[b + 2] = x + margin;
+            this.bounds[b + 3] = y + margin;
+            this.index(entry, x - margin, y - margin, x + margin, y + margin);
+            return;
+        }
+        // an image covers the whole rectangle between its corners
+        if (this.kinds[entry] != StrokeLog.stroke) {
+            this.grow(entry, x, y, x, y);
+            this.index(entry,
+                this.bounds[b],
+                this.bounds[b + 1],
+                this.bounds[b + 2],
+                this.bounds[b + 3]
+            );
+            return;
+        }
+
+        // the new point bends the segment before the new one
+        var last = this.points - 1;
+        for (var point = Math.max(last - 2, this.firstPoints[entry]); point < last; ++point) {
+            this.extent(entry, point);
+            this.grow(entry, this.extent[0], this.extent[1], this.extent[2], this.extent[3]);
+            this.index(entry, this.extent[0], this.extent[1], this.extent[2], this.extent[3]);
+        }
+    }
+
+    private void grow(int entry, float minX, float minY, float maxX, float maxY) {
+        var b = entry * 4;
+        this.bounds[b] = Math.min(this.bounds[b], minX);
+        this.bounds[b + 1] = Math.min(this.bounds[b + 1], minY);
+        this.bounds[b + 2] = Math.max(this.bounds[b + 2], maxX);
+        this.bounds[b + 3] = Math.max(this.bounds[b + 3], maxY);
+    }
+
+    // strokes are Catmull-Rom splines through their points: the segment from p1 to p2 is the
+    // Bézier curve with the control points p1 + (p2 - p0) / 6 and p2 - (p3 - p1) / 6, where p0
+    // and p3 are the points around it, the first and the last point stand in for missing ones
+    private void controlPoints(int entry, int point) {
+        var first = this.firstPoints[entry];
+        var last = first + this.pointCounts[entry] - 1;
+        var before = Math.max(point - 1, first);
+        var after = Math.min(point + 2, last);
+        this.controls[0] = this.xs[point] + ( this.xs[point + 1] - this.xs[before] ) / 6;
+        this.controls[1] = this.ys[point] + ( this.ys[point + 1] - this.ys[before] ) / 6;
+        this.controls[2] = this.xs[point + 1] - ( this.xs[after] - this.xs[point] ) / 6;
+        this.controls[3] = this.ys[point + 1] - ( this.ys[after] - this.ys[point] ) / 6;
+    }
+
+    // length of a segment, the mean of its chord and its control polygon is close enough for
+    // the short segments of a stroke
+    private double segmentLength(int entry, int point) {
+        var x = this.xs[point];
+        var y = this.ys[point];
+        var nextX = this.xs[point + 1];
+        var nextY = this.ys[point + 1];
+        var chord = Math.hypot(nextX - x, nextY - y);
+        if (!this.isCurved(point)) {
+            return chord;
+        }
+        this.controlPoints(entry, point);
+        var c = this.controls;
+        var polygon = Math.hypot(c[0] - x, c[1] - y)
+            + Math.hypot(c[2] - c[0], c[3] - c[1])
+            + Math.hypot(nextX - c[2], nextY - c[3]);
+        return ( chord + polygon ) / 2;
+    }
+
+    // a curve through a few pixels looks like a line but takes far longer to draw
+    private boolean isCurved(int point) {
+        var dx = this.xs[point + 1] - this.xs[point];
+        var dy = this.ys[point + 1] - this.ys[point];
+        return dx * dx + dy * dy >= StrokeLog.minCurve * StrokeLog.minCurve;
+    }
+
+    // min x, min y, max x, max y of what a segment paints, the curve stays inside its
+    // control points
+    private void extent(int entry, int point) {
+        this.controlPoints(entry, point);
+        var margin = this.margin(entry);
+        var c = this.controls;
+        this.extent[0] = Math.min(Math.min(this.xs[point], this.xs[point + 1]), Math.min(c[0], c[2]))
+            - margin;
+        this.extent[1] = Math.min(Math.min(this.ys[point], this.ys[point + 1]), Math.min(c[1], c[3]))
+            - margin;
+        this.extent[2] = Math.max(Math.max(this.xs[point], this.xs[point + 1]), Math.max(c[0], c[2]))
+            + margin;
+        this.extent[3] = Math.max(Math.max(this.ys[point], this.ys[point + 1]), Math.max(c[1], c[3]))
+            + margin;
+    }
+
+    // square caps reach up to thickness / sqrt(2) past the end points
+    private float margin(int entry) {
+        return this.thicknesses[entry] * 0.75f + 2;
+    }
+
+    // list an entry in all cells of an area, it is always the latest entry in these cells
+    private void index(int entry, float minX, float minY, float maxX, float maxY) {
+        for (var cy = StrokeLog.cell(minY); cy <= StrokeLog.cell(maxY); ++cy) {
+            for (var cx = StrokeLog.cell(minX); cx <= StrokeLog.cell(maxX); ++cx) {
+                var key = StrokeLog.key(cx, cy);
+                var cell = this.cells.get(key);
+                if (cell == null) {
+                    cell = new int[5];
+                    this.cells.put(key, cell);
+                }
+                // cell[0] is the number of entries
+                if (cell[0] > 0 && cell[cell[0]] == entry) {
+                    continue;
+                }
+                if (cell[0] + 1 == cell.length) {
+                    cell = Arrays.copyOf(cell, cell.length << 1);
+                    this.cells.put(key, cell);
+                }
+                cell[++cell[0]] = entry;
+            }
+        }
+    }
+
+    // drop undone entries for good before something new is added
+    private void truncate() {
+        for (var entry = this.count - 1; entry >= this.size; --entry) {
+            var b = entry * 4;
+            var lastCy = StrokeLog.cell(this.bounds[b + 3]);
+            var lastCx = StrokeLog.cell(this.bounds[b + 2]);
+            for (var cy = StrokeLog.cell(this.bounds[b + 1]); cy <= lastCy; ++cy) {
+                for (var cx = StrokeLog.cell(this.bounds[b]); cx <= lastCx; ++cx) {
+                    var cell = this.cells.get(StrokeLog.key(cx, cy));
+                    while (cell != null && cell[0] > 0 && cell[cell[0]] >= this.size) {
+                        --cell[0];
+                    }
+                }
+            }
+            this.images[entry] = null;
+        }
+        if (this.count > this.size) {
+            this.points = this.size == 0
+                ? 0
+                : this.firstPoints[this.size - 1] + this.pointCounts[this.size - 1];
+            this.count = this.size;
+        }
+    }
+
+    private int findBase() {
+        for (var entry = this.size - 1; entry >= 0; --entry) {
+            if (this.kinds[entry] == StrokeLog.clear) {
+                return entry + 1;
+            }
+        }
+        return 0;
+    }
+
+    // the visible entries that reach into an area, in the order they were added
+    private int[] query(Rectangle area) {
+        if (++this.query == 0) {
+            Arrays.fill(this.seen, 0);
+            this.query = 1;
+        }
+        var found = new int[16];
+        var n = 0;
+        for (var cy = StrokeLog.cell(area.y); cy <= StrokeLog.cell(area.y + area.height - 1); ++cy) {
+            for (var cx = StrokeLog.cell(area.x); cx <= StrokeLog.cell(area.x + area.width - 1); ++cx) {
+                var cell = this.cells.get(StrokeLog.key(cx, cy));
+                if (cell == null) {
+                    continue;
+                }
+                for (var i = 1; i <= cell[0]; ++i) {
+                    var entry = cell[i];
+                    if (entry < this.base || entry >= this.size || this.seen[entry] == this.query) {
+                        continue;
+                    }
+                    this.seen[entry] = this.query;
+                    var b = entry * 4;
+                    if (this.bounds[b] >= area.x + area.width
+                        || this.bounds[b + 1] >= area.y + area.height
+                        || this.bounds[b + 2] <= area.x
+                        || this.bounds[b + 3] <= area.y) {
+                        continue;
+                    }
+                    if (n == found.length) {
+                        found = Arrays.copyOf(found, n << 1);
+                    }
+                    found[n++] = entry;
+                }
+            }
+        }
+        found = Arrays.copyOf(found, n);
+        Arrays.sort(found);
+        return found;
+    }
+
+    // draw the runs of segments of a stroke that reach into the area
+    private void renderStroke(Graphics2D g2d, int entry, Rectangle area) {
+        var first = this.firstPoints[entry];
+        var last = first + this.pointCounts[entry] - 1;
+        var dotted = this.types[entry] == MyPaint.StrokeType.DOTTED_LINE.ordinal();
+        var length = 0.0;
+        var runStart = -1;
+        var runLength = 0.0;
+        for (var point = first; point < last; ++point) {
+            this.extent(entry, point);
+            var visible = this.extent[0] < area.x + area.width
+                && this.extent[1] < area.y + area.height
+                && this.extent[2] > area.x
+                && this.extent[3] > area.y;
+            if (visible && runStart < 0) {
+                runStart = point;
+                runLength = length;
+            }
+            else if (!visible && runStart >= 0) {
+                this.renderSegments(g2d, entry, runStart, point, runLength);
+                runStart = -1;
+            }
+            // only dashes depend on the length before a run
+            if (dotted) {
+                length += this.segmentLength(entry, point);
+            }
+        }
+        if (runStart >= 0) {
+            this.renderSegments(g2d, entry, runStart, last, runLength);
+        }
+    }
+
+    // draw the segments between two points of a stroke as smooth paths
+    private void renderSegments(Graphics2D g2d, int entry, int from, int to, double lengthBefore) {
+        if (this.types[entry] != MyPaint.StrokeType.DOTTED_LINE.ordinal()) {
+            this.renderPath(g2d, entry, from, to, lengthBefore);
+            return;
+        }
+        // the dashes drift on long paths of short segments, so they are restarted every
+        // dashRun segments from the length before, just like the frames of a stroke being drawn
+        for (var start = from; start < to; start += StrokeLog.dashRun) {
+            var end = Math.min(start + StrokeLog.dashRun, to);
+            this.renderPath(g2d, entry, start, end, lengthBefore);
+            for (var point = start; point < end; ++point) {
+                lengthBefore += this.segmentLength(entry, point);
+            }
+        }
+    }
+
+    private void renderPath(Graphics2D g2d, int entry, int from, int to, double lengthBefore) {
+        var path = new Path2D.Float(Path2D.WIND_NON_ZERO, to - from + 1);
+        path.moveTo(this.xs[from], this.ys[from]);
+        var c = this.controls;
+        for (var point = from; point < to; ++point) {
+            if (this.isCurved(point)) {
+                this.controlPoints(entry, point);
+                path.curveTo(c[0], c[1], c[2], c[3], this.xs[point + 1], this.ys[point + 1]);
+            }
+            else {
+                path.lineTo(this.xs[point + 1], this.ys[point + 1]);
+            }
+        }
+        var type = MyPaint.StrokeType.values()[this.types[entry]];
+        g2d.setStroke(type.getStroke(this.thicknesses[entry], (float) lengthBefore));
+        if (this.color.getRGB() != this.colors[entry]) {
+            this.color = new Color(this.colors[entry], true);
+        }
+        g2d.setColor(this.color);
+        g2d.draw(path);
+    }
+
+    private Rectangle bounds(int entry) {
+        var b = entry * 4;
+        return StrokeLog.rectangle(this.bounds[b],
+            this.bounds[b + 1],
+            this.bounds[b + 2],
+            this.bounds[b + 3]
+        );
+    }
+
+    // the smallest integer rectangle around an area
+    private static Rectangle rectangle(float minX, float minY, float maxX, float maxY) {
+        var x = (int) Math.floor(minX);
+        var y = (int) Math.floor(minY);
+        return new Rectangle(x, y, (int) Math.ceil(maxX) - x, (int) Math.ceil(maxY) - y);
+    }
+
+    private static int cell(float coordinate) {
+        return (int) Math.floor(coordinate / StrokeLog.cellSize);
+    }
+
+    private static int cell(int coordinate) {
+        return Math.floorDiv(coordinate, StrokeLog.cellSize);
+    }
+
+    private static long key(int cx, int cy) {
+        return (long) cx << 32 | cy & 0xFFFFFFFFL;
+    }
+}
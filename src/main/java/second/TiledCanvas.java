@@ -0,0 +1,337 @@
+package second;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * A drawing surface much larger than the screen, split into square tiles.
+ * <p>
+ * A tile only gets its own pixels when something is drawn on it, until then it is
+ * represented by one background tile (white with the grid) shared by all untouched tiles.
+ * At most {@code maxResident} tiles are kept in memory, the least recently used ones are
+ * spilled to a memory-mapped scratch file and read back when they are needed again. A
+ * tile that was not changed since it was read back is not written again.
+ * <p>
+ * The tiles can also be filled from a {@link Source} like a {@link StrokeLog}: after
+ * {@link #invalidate(Rectangle)} a tile is rendered again from the source the next time it
+ * is needed, and only if the source has anything in it.
+ * <p>
+ * Only the tiles that intersect the drawn or painted area are touched, so panning and
+ * zooming cost as much as the visible part of the canvas, not the whole canvas.
+ * <p>
+ * Not thread-safe, all calls are expected on the event dispatch thread.
+ *
+ * @author Frank Mayer 215965, Antonia Friese 215937, René Ott 215471
+ * @version 1.1
+ */
+class TiledCanvas {
+    // edge length of a tile, a multiple of the grid size so every tile has the same grid
+    static final int tileSize = 256;
+    // distance between grid lines
+    static final int gridSize = 32;
+    private static final int tileBytes = TiledCanvas.tileSize * TiledCanvas.tileSize * 4;
+    // tiles per mapped region of the scratch file
+    private static final int tilesPerChunk = 64;
+
+    private final int width;
+    private final int height;
+    private final int columns;
+    private final int rows;
+    private final int maxResident;
+    // shared by all tiles that were never drawn on
+    private final BufferedImage background;
+    // tiles in memory by index, least recently used first
+    private final LinkedHashMap<Integer, BufferedImage> resident;
+    // tiles changed since they were created or read back
+    private final boolean[] dirty;
+    // slot in the scratch file per tile, -1 for none
+    private final int[] slots;
+    // tiles to be rendered from the source before they are used
+    private final boolean[] stale;
+    private Source source;
+    // slots of cleared tiles, used again before the file grows
+    private int[] freeSlots = new int[16];
+    private int freeSlotCount;
+    private int nextSlot;
+    // lazily created scratch file, mapped in chunks of tilesPerChunk tiles
+    private FileChannel scratch;
+    private MappedByteBuffer[] chunks = new MappedByteBuffer[0];
+    // pixels of one tile on their way to or from the scratch file
+    private final int[] pixels = new int[TiledCanvas.tileSize * TiledCanvas.tileSize];
+
+    TiledCanvas(int width, int height, int maxResident) {
+        if (width < 1 || height < 1 || maxResident < 1) {
+            throw new IllegalArgumentException(
+                "Invalid canvas: " + width + "x" + height + ", " + maxResident + " tiles");
+        }
+        this.width = width;
+        this.height = height;
+        this.columns = ( width + TiledCanvas.tileSize - 1 ) / TiledCanvas.tileSize;
+        this.rows = ( height + TiledCanvas.tileSize - 1 ) / TiledCanvas.tileSize;
+        this.maxResident = maxResident;
+        this.background = TiledCanvas.createBackground();
+        this.dirty = new boolean[this.columns * this.rows];
+        this.slots = new int[this.columns * this.rows];
+        Arrays.fill(this.slots, -1);
+        this.stale = new boolean[this.columns * this.rows];
+        this.resident = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+                if (this.size() <= TiledCanvas.this.maxResident) {
+                    return false;
+                }
+                TiledCanvas.this.spill(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    int getWidth() {
+        return this.width;
+    }
+
+    int getHeight() {
+        return this.height;
+    }
+
+    // number of tiles that have their own pixels, in memory or in the scratch file
+    int getAllocatedTiles() {
+        var allocated = this.resident.size();
+        for (var index = 0; index < this.slots.length; ++index) {
+            if (this.slots[index] >= 0 && !this.resident.containsKey(index)) {
+                ++allocated;
+            }
+        }
+        return allocated;
+    }
+
+    /**
+     * Let the painter draw on every tile that intersects the bounds, given in canvas
+     * coordinates. The painter draws in canvas coordinates as well and is called once per
+     * tile, with the graphics clipped to that tile.
+     */
+    void draw(Rectangle bounds, Consumer<Graphics2D> painter) {
+        var area = bounds.intersection(new Rectangle(0, 0, this.width, this.height));
+        if (area.isEmpty()) {
+            return;
+        }
+        var lastRow = ( area.y + area.height - 1 ) / TiledCanvas.tileSize;
+        var lastColumn = ( area.x + area.width - 1 ) / TiledCanvas.tileSize;
+        for (var row = area.y / TiledCanvas.tileSize; row <= lastRow; ++row) {
+            for (var column = area.x / TiledCanvas.tileSize; column <= lastColumn; ++column) {
+                var index = row * this.columns + column;
+                var tile = this.tile(index, true);
+                this.dirty[index] = true;
+
+                var g2d = tile.createGraphics();
+                g2d.translate(-column * TiledCanvas.tileSize, -row * TiledCanvas.tileSize);
+                painter.accept(g2d);
+                g2d.dispose();
+            }
+        }
+    }
+
+    /**
+     * Paint the tiles that intersect the clip of the graphics, whose user space are canvas
+     * coordinates. Untouched tiles are painted from the shared background tile.
+     */
+    void paint(Graphics2D g2d) {
+        var clip = g2d.getClipBounds();
+        var area = clip == null
+            ? new Rectangle(0, 0, this.width, this.height)
+            : clip.intersection(new Rectangle(0, 0, this.width, this.height));
+        if (area.isEmpty()) {
+            return;
+        }
+        var lastRow = ( area.y + area.height - 1 ) / TiledCanvas.tileSize;
+        var lastColumn = ( area.x + area.width - 1 ) / TiledCanvas.tileSize;
+        for (var row = area.y / TiledCanvas.tileSize; row <= lastRow; ++row) {
+            for (var column = area.x / TiledCanvas.tileSize; column <= lastColumn; ++column) {
+                var tile = this.tile(row * this.columns + column, false);
+                g2d.drawImage(tile, column * TiledCanvas.tileSize, row * TiledCanvas.tileSize, null);
+            }
+        }
+    }
+
+    // render all tiles from this source again, when they are needed
+    void setSource(Source source) {
+        this.source = source;
+        this.invalidate();
+    }
+
+    // forget what was drawn on all tiles, they are rendered from the source again
+    void invalidate() {
+        this.invalidate(new Rectangle(0, 0, this.width, this.height));
+    }
+
+    // forget what was drawn on the tiles that intersect an area, given in canvas coordinates
+    void invalidate(Rectangle bounds) {
+        var area = bounds.intersection(new Rectangle(0, 0, this.width, this.height));
+        if (area.isEmpty()) {
+            return;
+        }
+        var lastRow = ( area.y + area.height - 1 ) / TiledCanvas.tileSize;
+        var lastColumn = ( area.x + area.width - 1 ) / TiledCanvas.tileSize;
+        for (var row = area.y / TiledCanvas.tileSize; row <= lastRow; ++row) {
+            for (var column = area.x / TiledCanvas.tileSize; column <= lastColumn; ++column) {
+                var index = row * this.columns + column;
+                this.resident.remove(index);
+                this.dirty[index] = false;
+                if (this.slots[index] >= 0) {
+                    this.freeSlot(this.slots[index]);
+                    this.slots[index] = -1;
+                }
+                this.stale[index] = this.source != null;
+            }
+        }
+    }
+
+    // the pixels of a tile, with its own pixels only if it is going to be drawn on
+    private BufferedImage tile(int index, boolean writable) {
+        var tile = this.resident.get(index);
+        if (tile != null) {
+            return tile;
+        }
+        if (this.slots[index] < 0) {
+            var area = new Rectangle(index % this.columns * TiledCanvas.tileSize,
+                index / this.columns * TiledCanvas.tileSize,
+                TiledCanvas.tileSize,
+                TiledCanvas.tileSize
+            );
+            var render = this.stale[index] && !this.source.isEmpty(area);
+            this.stale[index] = false;
+            if (!writable && !render) {
+                return this.background;
+            }
+            tile = TiledCanvas.createTile();
+            this.background.copyData(tile.getRaster());
+            if (render) {
+                var g2d = tile.createGraphics();
+                g2d.translate(-area.x, -area.y);
+                g2d.clip(area);
+                this.source.render(g2d, area);
+                g2d.dispose();
+            }
+            // not in the scratch file yet
+            this.dirty[index] = true;
+            this.resident.put(index, tile);
+            return tile;
+        }
+        else {
+            tile = TiledCanvas.createTile();
+            this.read(this.slots[index], tile);
+        }
+        this.dirty[index] = false;
+        this.resident.put(index, tile);
+        return tile;
+    }
+
+    // move a tile out of memory, unchanged tiles are already in the scratch file
+    private void spill(int index, BufferedImage tile) {
+        if (this.slots[index] >= 0 && !this.dirty[index]) {
+            return;
+        }
+        if (this.slots[index] < 0) {
+            this.slots[index] = this.allocateSlot();
+        }
+        tile.getRaster().getDataElements(0, 0, TiledCanvas.tileSize, TiledCanvas.tileSize, this.pixels);
+        this.buffer(this.slots[index]).asIntBuffer().put(this.pixels);
+        this.dirty[index] = false;
+    }
+
+    private void read(int slot, BufferedImage tile) {
+        this.buffer(slot).asIntBuffer().get(this.pixels);
+        tile.getRaster().setDataElements(0, 0, TiledCanvas.tileSize, TiledCanvas.tileSize, this.pixels);
+    }
+
+    // the bytes of a slot in the scratch file
+    private MappedByteBuffer buffer(int slot) {
+        var chunk = this.chunks[slot / TiledCanvas.tilesPerChunk];
+        var offset = slot % TiledCanvas.tilesPerChunk * TiledCanvas.tileBytes;
+        return chunk.slice(offset, TiledCanvas.tileBytes);
+    }
+
+    private int allocateSlot() {
+        if (this.freeSlotCount > 0) {
+            return this.freeSlots[--this.freeSlotCount];
+        }
+        var slot = this.nextSlot++;
+        var chunk = slot / TiledCanvas.tilesPerChunk;
+        if (chunk == this.chunks.length) {
+            this.chunks = Arrays.copyOf(this.chunks, chunk + 1);
+            this.chunks[chunk] = this.map(chunk);
+        }
+        return slot;
+    }
+
+    private void freeSlot(int slot) {
+        if (this.freeSlotCount == this.freeSlots.length) {
+            this.freeSlots = Arrays.copyOf(this.freeSlots, this.freeSlotCount << 1);
+        }
+        this.freeSlots[this.freeSlotCount++] = slot;
+    }
+
+    // map the next part of the scratch file, the file is created on the first spill
+    private MappedByteBuffer map(int chunk) {
+        try {
+            if (this.scratch == null) {
+                var file = Files.createTempFile("mypaint", ".tiles");
+                file.toFile().deleteOnExit();
+                this.scratch = FileChannel.open(file,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE,
+                    StandardOpenOption.DELETE_ON_CLOSE
+                );
+            }
+            var size = (long) TiledCanvas.tilesPerChunk * TiledCanvas.tileBytes;
+            return this.scratch.map(FileChannel.MapMode.READ_WRITE, chunk * size, size);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Cannot spill tiles", e);
+        }
+    }
+
+    private static BufferedImage createTile() {
+        return new BufferedImage(TiledCanvas.tileSize, TiledCanvas.tileSize, BufferedImage.TYPE_INT_RGB);
+    }
+
+    // white with the grid, the same for every tile
+    private static BufferedImage createBackground() {
+        var tile = TiledCanvas.createTile();
+        var g2d = tile.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, TiledCanvas.tileSize, TiledCanvas.tileSize);
+        g2d.setColor(Color.LIGHT_GRAY);
+        g2d.setStroke(new BasicStroke(1));
+        for (var i = 0; i < TiledCanvas.tileSize; i += TiledCanvas.gridSize) {
+            g2d.drawLine(i, 0, i, TiledCanvas.tileSize);
+            g2d.drawLine(0, i, TiledCanvas.tileSize, i);
+        }
+        g2d.dispose();
+        return tile;
+    }
+
+    /**
+     * Renders the content of an area of the canvas.
+     */
+    interface Source {
+        // true if there is nothing to render in the area
+        boolean isEmpty(Rectangle area);
+
+        // render everything in the area, the graphics use canvas coordinates
+        void render(Graphics2D g2d, Rectangle area);
+    }
+}
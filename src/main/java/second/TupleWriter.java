@@ -0,0 +1,161 @@
+package second;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Schreibt Zustände schnell und gepuffert, ohne Format-Strings und ohne bei jeder Zeile auf
+ * {@code System.out} zu synchronisieren. Die Zahlen werden von Hand in einen wiederverwendeten
+ * Byte-Puffer formatiert, der nur geschrieben wird, wenn er voll ist.
+ *
+ * <p>Im Textformat entsteht exakt derselbe Text wie mit {@code printf("( %d ... )%n")}. Im
+ * Binärformat wird jeder Zustand als Datensatz fester Breite aus {@code n} Little-Endian
+ * {@code int}s geschrieben, ohne Kopf und ohne Schlusszeile.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+final class TupleWriter implements AutoCloseable {
+  private static final int BUFFER_SIZE = 1 << 16;
+  private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes();
+
+  private final WritableByteChannel channel;
+  private final ByteBuffer buffer =
+      ByteBuffer.allocateDirect(TupleWriter.BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+  private final boolean binary;
+  private final Charset charset;
+  // der Stream, falls nicht in eine eigene Datei geschrieben wird; er wird nie geschlossen
+  private final PrintStream stream;
+
+  private TupleWriter(
+      final WritableByteChannel channel,
+      final boolean binary,
+      final Charset charset,
+      final PrintStream stream) {
+    this.channel = channel;
+    this.binary = binary;
+    this.charset = charset;
+    this.stream = stream;
+  }
+
+  // schreibt auf einen Stream wie System.out, mit dessen Zeichensatz
+  static TupleWriter of(final PrintStream out, final boolean binary) {
+    // bereits gepufferte Ausgaben des Streams müssen vor unseren stehen
+    out.flush();
+    return new TupleWriter(Channels.newChannel(out), binary, out.charset(), out);
+  }
+
+  // schreibt direkt über einen FileChannel in eine Datei, die dabei neu angelegt wird
+  static TupleWriter of(final Path file, final boolean binary) throws IOException {
+    return new TupleWriter(
+        FileChannel.open(
+            file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING),
+        binary,
+        StandardCharsets.UTF_8,
+        null);
+  }
+
+  // einen Zustand als Zeile "( a b c d e )" bzw. als Datensatz schreiben
+  void write(final int[] state) throws IOException {
+    // Platz wird für jede Zahl einzeln geschaffen, so darf eine Zeile auch länger als der
+    // Puffer sein
+    if (this.binary) {
+      for (final var value : state) {
+        this.ensure(4);
+        this.buffer.putInt(value);
+      }
+      return;
+    }
+
+    this.ensure(1);
+    this.buffer.put((byte) '(');
+    for (final var value : state) {
+      // Leerzeichen, Vorzeichen und bis zu zehn Ziffern
+      this.ensure(12);
+      this.buffer.put((byte) ' ');
+      this.putInt(value);
+    }
+    this.ensure(2 + TupleWriter.LINE_SEPARATOR.length);
+    this.buffer.put((byte) ' ').put((byte) ')').put(TupleWriter.LINE_SEPARATOR);
+  }
+
+  // freien Text schreiben, im Binärformat wird er weggelassen
+  void text(final String text) throws IOException {
+    if (this.binary) {
+      return;
+    }
+    final var bytes = text.getBytes(this.charset);
+    for (var offset = 0; offset < bytes.length; ) {
+      this.ensure(1);
+      final var length = Math.min(this.buffer.remaining(), bytes.length - offset);
+      this.buffer.put(bytes, offset, length);
+      offset += length;
+    }
+  }
+
+  void flush() throws IOException {
+    this.buffer.flip();
+    while (this.buffer.hasRemaining()) {
+      this.channel.write(this.buffer);
+    }
+    this.buffer.clear();
+  }
+
+  @Override
+  public void close() throws IOException {
+    this.flush();
+    if (this.stream != null) {
+      this.stream.flush();
+    } else {
+      this.channel.close();
+    }
+  }
+
+  private void ensure(final int bytes) throws IOException {
+    if (this.buffer.remaining() < bytes) {
+      this.flush();
+    }
+  }
+
+  // Dezimaldarstellung ohne Zwischen-String, Ziffern werden von hinten nach vorne geschrieben
+  private void putInt(final int value) {
+    if (value == Integer.MIN_VALUE) {
+      this.buffer.put(Integer.toString(value).getBytes());
+      return;
+    }
+
+    var rest = value;
+    if (rest < 0) {
+      this.buffer.put((byte) '-');
+      rest = -rest;
+    }
+
+    final var digits = TupleWriter.digits(rest);
+    final var start = this.buffer.position();
+    for (var i = start + digits - 1; i >= start; --i) {
+      this.buffer.put(i, (byte) ('0' + rest % 10));
+      rest /= 10;
+    }
+    this.buffer.position(start + digits);
+  }
+
+  private static int digits(final int value) {
+    var digits = 1;
+    for (var limit = 10L; value >= limit && digits < 10; limit *= 10) {
+      ++digits;
+    }
+    return digits;
+  }
+}
@@ -1,5 +1,7 @@
 package second;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
@@ -20,10 +22,72 @@ import java.util.*;
  *
  * <p>Am Ende wird die Anzahl der gelisteten Fünftupel ausgegeben.
  *
+ * <p>Mit {@code --mode=packed} wird jeder Zustand in ein einzelnes {@code long} gepackt und in
+ * einer primitiven Hashmenge gespeichert. Das braucht nur einen Bruchteil des Speichers der
+ * {@code TreeSet<int[]>}-Variante ({@code --mode=tree}, Standard) und sortiert erst ganz am Ende.
+ *
+ * <p>Mit {@code --mode=bitmap} wird der komplette Zustandsraum als Bitmap angelegt, indiziert in
+ * gemischter Basis über die Behälter 1 bis 4 (Behälter 5 folgt aus der konstanten Gesamtmenge A).
+ * Die sortierte Ausgabe ergibt sich dann einfach durch Durchlaufen der Bitmap. Mit
+ * {@code --bitmap=heap} oder {@code --bitmap=direct} lässt sich erzwingen, ob die Bitmap auf dem
+ * Heap oder außerhalb liegt, standardmäßig ({@code auto}) wird nach verfügbarem Heap entschieden.
+ *
+ * <p>Mit {@code --mode=parallel} wird die Breitensuche Ebene für Ebene auf mehrere Threads
+ * verteilt ({@code --workers=N}, Standard ist die Anzahl der Prozessoren). Die Ausgabe ist
+ * identisch zu den anderen Modi.
+ *
+ * <p>Mit {@code --mode=external} liegen besuchte Zustände und Warteschlange nur auf der Platte
+ * (siehe {@link ExternalPourSearch}), im Heap wird nur ein Puffer der mit {@code --memory=64m}
+ * angegebenen Größe belegt. Die Zwischendateien landen unter {@code --tmp=VERZEICHNIS}.
+ *
+ * <p>Andere Behälter-Netze lassen sich mit {@code --containers=N} (Anzahl der Behälter) und
+ * {@code --pours=1-2,1-4,...} (erlaubte Umfüll-Vorgänge, Behälter ab 1 gezählt) beschreiben. Die
+ * eigentliche Suche steckt in {@link PourNetwork}.
+ *
+ * <p>Mit {@code --stats} werden am Ende auf {@code System.err} die Anzahl der expandierten
+ * Zustände, der übersprungenen wirkungslosen Umfüll-Vorgänge und der während der Suche
+ * allokierten Bytes pro Zustand ausgegeben (siehe {@link SearchStats}).
+ *
+ * <p>Die Ausgabe läuft gepuffert über {@link TupleWriter}. Mit {@code --out=DATEI} landen die
+ * Tupel statt auf der Konsole in einer Datei, mit {@code --format=binary} als Datensätze aus
+ * Little-Endian {@code int}s (ohne Schlusszeile) statt als Text. Gehen die Datensätze auf die
+ * Konsole, landen Eingabeaufforderungen und die Kapazitäten auf {@code System.err}.
+ *
+ * <p>Mit {@code --target=a,b,c,d,e} wird statt der Liste die kürzeste Umfüllfolge zu diesem
+ * Zustand ausgegeben, mehrere Ziele werden durch {@code ;} getrennt (siehe {@link PourPaths}).
+ *
+ * <p>Ohne Konsole lässt sich die Suche über {@link #reachable(int[])} bzw.
+ * {@link #reachable(PourNetwork)} aufrufen. Die Ergebnisse landen in einem gemeinsamen
+ * {@link ReachabilityCache}, wiederholte Aufrufe mit demselben Netz werden nicht neu berechnet.
+ *
  * @author Frank Mayer, Antonia Friese, René Ott
  * @version 1.0 - 04.05.2023
  */
 public class Umfuelllisten {
+  // erlaubte Umfüll-Vorgänge aus der Aufgabe
+  private static final String POURS = "1-2,1-4,2-3,3-5,4-2,5-4";
+
+  private static final List<String> MODES =
+      List.of("tree", "packed", "bitmap", "parallel", "external");
+
+  // Ergebnisse der Bibliotheks-Aufrufe, für Dienste die immer wieder dieselben Netze anfragen
+  private static final ReachabilityCache cache = new ReachabilityCache(32);
+
+  /** Alle erreichbaren Zustände für das Netz aus der Aufgabe, aus dem Cache falls vorhanden. */
+  public static ReachableStates reachable(final int[] capacities) {
+    return Umfuelllisten.reachable(PourNetwork.umfuelllisten(capacities));
+  }
+
+  /** Alle erreichbaren Zustände für ein beliebiges Netz, aus dem Cache falls vorhanden. */
+  public static ReachableStates reachable(final PourNetwork network) {
+    return Umfuelllisten.cache.get(network);
+  }
+
+  // der gemeinsame Cache, z.B. um Treffer und Fehlschläge zu überwachen
+  public static ReachabilityCache cache() {
+    return Umfuelllisten.cache;
+  }
+
   private static String getErrorMessage() {
     final var r = new Random();
     final var errCode = r.nextInt(10000);
@@ -31,13 +95,82 @@ public class Umfuelllisten {
     return String.format("Error %s%d: Allgemeiner Fehler :D", errChar, errCode);
   }
 
+  // Wert einer Option der Form --name=wert, sonst der Standardwert
+  private static String option(final String[] args, final String name, final String fallback) {
+    final var prefix = "--" + name + '=';
+    for (final var arg : args) {
+      if (arg.startsWith(prefix)) {
+        return arg.substring(prefix.length());
+      }
+    }
+    return fallback;
+  }
+
+  // ist die Option --name ohne Wert angegeben?
+  private static boolean flag(final String[] args, final String name) {
+    return Arrays.asList(args).contains("--" + name);
+  }
+
+  // Umfüll-Vorgänge der Form "1-2,1-4" in Paare mit ab 0 gezählten Behältern übersetzen
+  private static int[][] parsePours(final String pours) {
+    final var parts = pours.split(",");
+    final var result = new int[parts.length][];
+    for (var i = 0; i < parts.length; ++i) {
+      final var pair = parts[i].trim().split("-");
+      if (pair.length != 2) {
+        throw new IllegalArgumentException("Ungültiger Umfüll-Vorgang: " + parts[i]);
+      }
+      result[i] = new int[] {Integer.parseInt(pair[0]) - 1, Integer.parseInt(pair[1]) - 1};
+    }
+    return result;
+  }
+
+  // Zustand im Format "( a b c d e )"
+  private static String format(final int[] state) {
+    final var sb = new StringBuilder("(");
+    for (final var value : state) {
+      sb.append(' ').append(value);
+    }
+    return sb.append(" )").toString();
+  }
+
+  // Bezeichnung der Tupel in der Schlusszeile
+  private static String tupleName(final int containers) {
+    return containers == 5 ? "Fünftupel" : containers + "-Tupel";
+  }
+
   public static void main(String[] args) {
-    int[] capacities = new int[5];
+    final var mode = Umfuelllisten.option(args, "mode", "tree");
+    if (!Umfuelllisten.MODES.contains(mode)) {
+      System.err.printf("Unbekannter Modus: %s%n", mode);
+      return;
+    }
+
+    final int containers;
+    final int[][] pours;
+    try {
+      containers = Integer.parseInt(Umfuelllisten.option(args, "containers", "5"));
+      pours = Umfuelllisten.parsePours(Umfuelllisten.option(args, "pours", Umfuelllisten.POURS));
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      return;
+    }
+
+    final var format = Umfuelllisten.option(args, "format", "text");
+    if (!format.equals("text") && !format.equals("binary")) {
+      System.err.printf("Unbekanntes Format: %s%n", format);
+      return;
+    }
+    final var out = Umfuelllisten.option(args, "out", null);
+    // binäre Tupel auf der Konsole dürfen nicht mit Text vermischt werden
+    final var console = format.equals("binary") && out == null ? System.err : System.out;
+
+    int[] capacities = new int[Math.max(containers, 0)];
     try (final var scanner = new Scanner(System.in)) {
-      for (int i = 0; i < 5; ++i) {
-        System.out.printf(
+      for (int i = 0; i < capacities.length; ++i) {
+        console.printf(
             "Bitte Kapazität von Behälter %s eingeben: ",
-            Integer.toString(i + 10, 16).toUpperCase());
+            Integer.toString(i + 10, 36).toUpperCase());
         capacities[i] = scanner.nextInt();
       }
     } catch (Exception ignore) {
@@ -45,66 +178,246 @@ public class Umfuelllisten {
       return;
     }
 
-    System.out.printf(
-        "Kapazitäten sind: ( %d %d %d %d %d )%n",
-        capacities[0],
-        capacities[1],
-        capacities[2],
-        capacities[3],
-        capacities[4]);
-
-    // TreeSet um alle möglichen Zustände zu speichern
-    final var states = new TreeSet<>(
-        (Comparator<int[]>) Arrays::compare);
+    console.printf("Kapazitäten sind: %s%n", Umfuelllisten.format(capacities));
 
     // Anfangszustand: Behälter 1 voll, andere leer
-    int[] initialState = {capacities[0], 0, 0, 0, 0};
-
-    // Mittels Breitensuche alle möglichen Zustände finden
-    final var queue = new LinkedList<int[]>();
-    queue.add(initialState);
-    states.add(initialState);
-    var from = 0;
-    var to = 0;
-    while (!queue.isEmpty()) {
-      final var currentState = queue.poll();
-
-      // für alle Elemente des Tupels
-      for (var i = 0; i < 6; ++i) {
-        final var nextState = currentState.clone();
-        switch (i) {
-          case 0 -> { from = 0; to = 1; }
-          case 1 -> { from = 0; to = 3; }
-          case 2 -> { from = 1; to = 2; }
-          case 3 -> { from = 2; to = 4; }
-          case 4 -> { from = 3; to = 1; }
-          case 5 -> { from = 4; to = 3; }
-          default -> { System.err.println(Umfuelllisten.getErrorMessage()); return; }
-        }
+    final PourNetwork network;
+    try {
+      final var initial = new int[capacities.length];
+      initial[0] = capacities[0];
+      network = new PourNetwork(capacities, initial, pours);
+    } catch (RuntimeException e) {
+      System.err.println(e.getMessage());
+      return;
+    }
 
-        // Wie viel kann umgefüllt werden?
-        final var amount = Math.min(
-            currentState[from],
-            capacities[to] - currentState[to]);
+    final var targets = Umfuelllisten.option(args, "target", null);
+    if (targets != null) {
+      Umfuelllisten.runPaths(network, targets);
+      return;
+    }
 
-        // Umfüllen
-        nextState[from] -= amount;
-        nextState[to] += amount;
+    final var stats = new SearchStats();
 
-        // Zustand noch nicht bekannt?
-        if (!states.contains(nextState)) {
-          queue.add(nextState);
-          states.add(nextState);
-        }
+    try (final var writer = out == null
+        ? TupleWriter.of(System.out, format.equals("binary"))
+        : TupleWriter.of(Path.of(out), format.equals("binary"))) {
+      switch (mode) {
+        case "packed" -> Umfuelllisten.runPacked(network, writer, stats);
+        case "bitmap" -> Umfuelllisten.runBitmap(
+            network, writer, stats, Umfuelllisten.option(args, "bitmap", "auto"));
+        case "parallel" -> Umfuelllisten.runParallel(network, writer, stats, Umfuelllisten.option(
+            args, "workers", Integer.toString(Runtime.getRuntime().availableProcessors())));
+        case "external" -> Umfuelllisten.runExternal(
+            network,
+            writer,
+            stats,
+            Umfuelllisten.option(args, "memory", "64m"),
+            Umfuelllisten.option(args, "tmp", null));
+        default -> Umfuelllisten.runTree(network, writer, stats);
       }
+    } catch (IOException e) {
+      // die Ausgabe ist unvollständig, das muss auch ein aufrufendes Skript merken
+      System.err.println(e.getMessage());
+      System.exit(1);
+    }
+
+    if (Umfuelllisten.flag(args, "stats")) {
+      System.err.printf("%nStatistik: %s%n", stats);
     }
+  }
+
+  private static void runTree(
+      final PourNetwork network, final TupleWriter writer, final SearchStats stats)
+      throws IOException {
+    final var states = network.reachableTree(stats);
 
     for (final var state : states) {
-      System.out.printf(
-          "( %d %d %d %d %d )%n",
-          state[0], state[1], state[2], state[3], state[4]);
+      writer.write(state);
+    }
+
+    Umfuelllisten.summary(network, writer, states.size());
+  }
+
+  private static void runPacked(
+      final PourNetwork network, final TupleWriter writer, final SearchStats stats)
+      throws IOException {
+    final PackedStateCodec codec;
+    try {
+      codec = network.packedCodec();
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      return;
+    }
+
+    Umfuelllisten.print(network, writer, codec, network.reachablePacked(codec, stats));
+  }
+
+  private static void runBitmap(
+      final PourNetwork network,
+      final TupleWriter writer,
+      final SearchStats stats,
+      final String placement) throws IOException {
+    final MixedRadixStateCodec codec;
+    try {
+      codec = network.mixedRadixCodec();
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      return;
+    }
+
+    final var offHeap = switch (placement) {
+      case "heap" -> false;
+      case "direct" -> true;
+      default -> !StateBitmap.fitsOnHeap(codec.size());
+    };
+    final var visited = network.reachableBitmap(codec, offHeap, stats);
+
+    // die Bitmap ist bereits sortiert, einfach alle gesetzten Bits der Reihe nach ausgeben
+    final var state = new int[network.containers()];
+    for (var index = visited.nextSetBit(0); index >= 0; index = visited.nextSetBit(index + 1)) {
+      codec.decode(index, state);
+      writer.write(state);
+    }
+
+    Umfuelllisten.summary(network, writer, visited.count());
+  }
+
+  private static void runParallel(
+      final PourNetwork network,
+      final TupleWriter writer,
+      final SearchStats stats,
+      final String workers) throws IOException {
+    final PackedStateCodec codec;
+    final int workerCount;
+    try {
+      codec = network.packedCodec();
+      workerCount = Integer.parseInt(workers);
+      if (workerCount < 1) {
+        throw new IllegalArgumentException("Mindestens ein Worker nötig: " + workerCount);
+      }
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      return;
+    }
+
+    Umfuelllisten.print(
+        network, writer, codec, network.reachableParallel(codec, workerCount, stats));
+  }
+
+  private static void runExternal(
+      final PourNetwork network,
+      final TupleWriter writer,
+      final SearchStats stats,
+      final String memory,
+      final String directory) throws IOException {
+    final PackedStateCodec codec;
+    final long bytes;
+    try {
+      codec = network.packedCodec();
+      bytes = Umfuelllisten.parseSize(memory);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      return;
     }
 
-    System.out.printf("Es gibt genau %d Fünftupel", states.size());
+    try (final var search = new ExternalPourSearch(
+        network, codec, bytes, directory == null ? null : Path.of(directory))) {
+      // die Ergebnisdatei ist schon sortiert und wird direkt von der Platte ausgegeben
+      try (final var reader = new ExternalPourSearch.Reader(search.run(stats))) {
+        final var state = new int[network.containers()];
+        while (reader.hasNext()) {
+          codec.decode(reader.next(), state);
+          writer.write(state);
+        }
+      }
+      Umfuelllisten.summary(network, writer, search.count());
+    }
+  }
+
+  // Größenangabe wie 512k, 64m oder 2g in Byte
+  private static long parseSize(final String size) {
+    final var unit = Character.toLowerCase(size.charAt(size.length() - 1));
+    final var shift = switch (unit) {
+      case 'k' -> 10;
+      case 'm' -> 20;
+      case 'g' -> 30;
+      default -> 0;
+    };
+    final var number = shift == 0 ? size : size.substring(0, size.length() - 1);
+    final var bytes = Long.parseLong(number) << shift;
+    if (bytes <= 0) {
+      throw new IllegalArgumentException("Ungültige Größe: " + size);
+    }
+    return bytes;
+  }
+
+  // sortierte Codes ausgeben
+  private static void print(
+      final PourNetwork network,
+      final TupleWriter writer,
+      final StateCodec codec,
+      final long[] codes) throws IOException {
+    final var state = new int[network.containers()];
+    for (final var code : codes) {
+      codec.decode(code, state);
+      writer.write(state);
+    }
+
+    Umfuelllisten.summary(network, writer, codes.length);
+  }
+
+  // Schlusszeile mit der Anzahl der Tupel
+  private static void summary(final PourNetwork network, final TupleWriter writer, final long count)
+      throws IOException {
+    writer.text(String.format(
+        "Es gibt genau %d %s", count, Umfuelllisten.tupleName(network.containers())));
+  }
+
+  // kürzeste Umfüllfolgen zu den durch ";" getrennten Zielen ausgeben
+  private static void runPaths(final PourNetwork network, final String targets) {
+    final var parts = targets.split(";");
+    final var states = new int[parts.length][];
+    final var paths = new int[parts.length][];
+    try {
+      for (var i = 0; i < parts.length; ++i) {
+        states[i] = Arrays.stream(parts[i].split(","))
+            .map(String::trim)
+            .mapToInt(Integer::parseInt)
+            .toArray();
+      }
+
+      // ein einzelnes Ziel bidirektional, sonst einmal alles durchsuchen
+      if (states.length == 1) {
+        paths[0] = PourPaths.shortestPath(network, states[0]);
+      } else {
+        final var search = PourPaths.search(network);
+        for (var i = 0; i < states.length; ++i) {
+          paths[i] = search.path(states[i]);
+        }
+      }
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      return;
+    }
+
+    for (var i = 0; i < states.length; ++i) {
+      final var target = Umfuelllisten.format(states[i]);
+      if (paths[i] == null) {
+        System.out.printf("%s ist nicht erreichbar%n", target);
+        continue;
+      }
+
+      System.out.printf("Kürzeste Umfüllfolge nach %s: %d Schritte%n", target, paths[i].length);
+      final var state = network.initial();
+      for (final var pour : paths[i]) {
+        network.pour(state, pour);
+        System.out.printf(
+            "%d -> %d: %s%n",
+            network.from(pour) + 1,
+            network.to(pour) + 1,
+            Umfuelllisten.format(state));
+      }
+    }
   }
 }
\ No newline at end of file
@@ -0,0 +1,85 @@
+package second;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.tools.ToolProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Diffs two versions of {@link DiffSample}, a class that is on the class path as well.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+class ApiDiffTest {
+
+  private static final String OLD =
+      "package second; public class DiffSample { public int size() { return 0; } }";
+
+  private static final String NEW =
+      "package second; public class DiffSample {"
+          + " public long size() { return 0; }"
+          + " public String extra() { return null; } }";
+
+  @TempDir Path directory;
+
+  @Test
+  void sourceClassesWinOverTheClassPathWithReflection() throws Exception {
+    this.assertDiff(false);
+  }
+
+  @Test
+  void sourceClassesWinOverTheClassPathWithClassFiles() throws Exception {
+    this.assertDiff(true);
+  }
+
+  @Test
+  void classSourceLoadsItsOwnVersion() throws Exception {
+    final var old = this.compile("old", ApiDiffTest.OLD);
+    try (final var source = ClassSource.open(old.toString())) {
+      assertNotSame(DiffSample.class, source.load("second.DiffSample"));
+      final var expected = Files.readAllBytes(old.resolve("second/DiffSample.class"));
+      assertEquals(
+          new String(expected, StandardCharsets.ISO_8859_1),
+          new String(source.classFile("second.DiffSample"), StandardCharsets.ISO_8859_1));
+      // classes the source does not contain still come from the class path
+      assertEquals(ApiDiff.class, source.load("second.ApiDiff"));
+    }
+  }
+
+  private void assertDiff(final boolean classFiles) throws Exception {
+    final var old = this.compile("old", ApiDiffTest.OLD);
+    final var changed = this.compile("new", ApiDiffTest.NEW);
+    final var bytes = new ByteArrayOutputStream();
+    try (final var before = ClassSource.open(old.toString());
+        final var after = ClassSource.open(changed.toString());
+        final var out = new PrintStream(bytes, true, StandardCharsets.UTF_8)) {
+      assertEquals(1, new ApiDiff(before, after, 1, classFiles).run(out));
+    }
+    final var report = bytes.toString(StandardCharsets.UTF_8);
+    assertTrue(report.contains("~ class second.DiffSample"), report);
+    assertTrue(report.contains("return type int -> long"), report);
+    assertTrue(report.contains("+ method public java.lang.String extra()"), report);
+  }
+
+  // compile one version of a class into its own directory
+  private Path compile(final String version, final String source) throws IOException {
+    final var sources = Files.createDirectories(this.directory.resolve(version + "-src"));
+    final var file = Files.writeString(sources.resolve("DiffSample.java"), source);
+    final var classes = Files.createDirectories(this.directory.resolve(version));
+    final var result =
+        ToolProvider.getSystemJavaCompiler()
+            .run(null, null, null, "-d", classes.toString(), file.toString());
+    assertEquals(0, result, "javac failed");
+    return classes;
+  }
+}
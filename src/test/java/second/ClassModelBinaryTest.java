@@ -0,0 +1,100 @@
+package second;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Writes models of a few JDK classes and reads them back.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+class ClassModelBinaryTest {
+
+  private static final Class<?>[] CLASSES = {
+    java.util.HashMap.class,
+    java.util.Collections.class,
+    java.util.concurrent.TimeUnit.class,
+    java.lang.annotation.Retention.class,
+    java.lang.Thread.class,
+    java.util.Map.Entry.class
+  };
+
+  @Test
+  void reflectionModelsSurviveTheRoundTrip() throws IOException {
+    for (final var generics : new boolean[] {false, true}) {
+      for (final var clazz : ClassModelBinaryTest.CLASSES) {
+        final var model = Inspector.model(clazz, generics);
+        assertEquals(model, ClassModelBinaryTest.roundTrip(model), clazz.getName());
+      }
+    }
+  }
+
+  @Test
+  void classFileModelsSurviveTheRoundTrip() throws Exception {
+    final var backend = new ClassFileBackend(ClassSource.classPath(), true);
+    for (final var clazz : ClassModelBinaryTest.CLASSES) {
+      final var model = backend.model(clazz.getName());
+      final var read = ClassModelBinaryTest.roundTrip(model);
+      assertEquals(model, read, clazz.getName());
+      assertEquals(new Inspector(model).toString(), new Inspector(read).toString());
+    }
+  }
+
+  @Test
+  void otherDataIsRejected() {
+    assertThrows(
+        IOException.class,
+        () -> ClassModelBinary.read(new ByteArrayInputStream(new byte[] {'J', 'A', 'R', 1})));
+    final var truncated = ClassModelBinaryTest.bytes(Inspector.model(java.util.HashMap.class));
+    assertThrows(
+        IOException.class,
+        () -> ClassModelBinary.read(new ByteArrayInputStream(truncated, 0, truncated.length / 2)));
+  }
+
+  @Test
+  void corruptDataIsRejected() {
+    // magic, then a string count of 2^31 - 1 and of -1
+    for (final var count : new byte[][] {{-1, -1, -1, -1, 0x07}, {-1, -1, -1, -1, 0x0F}}) {
+      final var bytes =
+          new byte[] {'I', 'C', 'M', 2, count[0], count[1], count[2], count[3], count[4]};
+      assertThrows(
+          IOException.class, () -> ClassModelBinary.read(new ByteArrayInputStream(bytes)));
+    }
+
+    // one string "a", no types, then the name of the class is string 5
+    final var index = new byte[] {'I', 'C', 'M', 2, 1, 1, 'a', 0, 5, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+    assertThrows(IOException.class, () -> ClassModelBinary.read(new ByteArrayInputStream(index)));
+
+    // every single byte of a real model changed to a large number
+    final var model = ClassModelBinaryTest.bytes(Inspector.model(java.util.HashMap.class));
+    for (var i = 4; i < model.length; ++i) {
+      final var corrupt = model.clone();
+      corrupt[i] = 0x7F;
+      try {
+        ClassModelBinary.read(new ByteArrayInputStream(corrupt));
+      } catch (final IOException expected) {
+        // rejected, anything but an IOException fails the test
+      }
+    }
+  }
+
+  private static ClassModel roundTrip(final ClassModel model) throws IOException {
+    return ClassModelBinary.read(new ByteArrayInputStream(ClassModelBinaryTest.bytes(model)));
+  }
+
+  private static byte[] bytes(final ClassModel model) {
+    final var out = new ByteArrayOutputStream();
+    try {
+      ClassModelBinary.write(model, out);
+    } catch (final IOException e) {
+      throw new AssertionError(e);
+    }
+    return out.toByteArray();
+  }
+}
@@ -0,0 +1,14 @@
+package second;
+
+/**
+ * The class path version of the class that {@link ApiDiffTest} compiles in two other versions.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+public class DiffSample {
+
+  public int size() {
+    return 0;
+  }
+}
@@ -0,0 +1,46 @@
+package second;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Externe Suche mit einem Puffer von 32 Codes: die großen Ebenen zerfallen in bis zu 200 Läufe,
+ * mehr als {@link ExternalPourSearch#MERGE_WIDTH} auf einmal gemischt werden.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+class ExternalPourSearchTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void manyRunsAreMergedInPasses() throws Exception {
+    final var network = PourNetwork.umfuelllisten(new int[] {60, 37, 25, 14, 9});
+    final var codec = network.packedCodec();
+    final var expected = network.reachablePacked(codec, new SearchStats());
+
+    try (final var search =
+        new ExternalPourSearch(network, codec, 256, this.directory)) {
+      final var codes = new long[expected.length];
+      var n = 0;
+      try (final var reader = new ExternalPourSearch.Reader(search.run(new SearchStats()))) {
+        while (reader.hasNext()) {
+          codes[n++] = reader.next();
+        }
+      }
+      assertEquals(expected.length, search.count());
+      assertArrayEquals(expected, codes);
+    }
+
+    // close() räumt alle Zwischendateien weg
+    try (final var files = Files.list(this.directory)) {
+      assertEquals(0, files.count());
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package second;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Writes a {@link FingerprintIndex}, reads it back and damages it.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+class FingerprintIndexTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void entriesAreReadBack() throws IOException {
+    this.write();
+    final var index = FingerprintIndex.open(this.directory);
+    for (var i = 0; i < 3; ++i) {
+      final var entry = index.find(i * 100);
+      assertEquals(i * 10, index.contentHash(entry));
+      assertEquals(i, index.fingerprint(entry));
+      assertArrayEquals(FingerprintIndexTest.supertypes(i), index.supertypes(entry));
+    }
+    assertEquals(-1, index.find(42));
+  }
+
+  @Test
+  void damagedIndicesAreIgnored() throws IOException {
+    final var bytes = this.write();
+    final var file = this.directory.resolve(FingerprintIndex.FILE_NAME);
+
+    // truncated in the supertypes and in the entries
+    for (final var length : new int[] {bytes.length - 8, 8 + 2 * 32}) {
+      Files.write(file, Arrays.copyOf(bytes, length));
+      assertEquals(-1, FingerprintIndex.open(this.directory).find(0));
+    }
+
+    // offset and number of supertypes of the first entry out of range
+    for (final var field : new int[] {8 + 24, 8 + 28}) {
+      for (final var value : new int[] {-1, 1000}) {
+        final var damaged = bytes.clone();
+        ByteBuffer.wrap(damaged).putInt(field, value);
+        Files.write(file, damaged);
+        assertEquals(-1, FingerprintIndex.open(this.directory).find(0));
+      }
+    }
+
+    // a negative count
+    final var damaged = bytes.clone();
+    ByteBuffer.wrap(damaged).putInt(4, -1);
+    Files.write(file, damaged);
+    assertEquals(-1, FingerprintIndex.open(this.directory).find(0));
+  }
+
+  // three classes with 0, 1 and 2 supertypes
+  private byte[] write() throws IOException {
+    final var builder = new FingerprintIndex.Builder();
+    for (var i = 2; i >= 0; --i) {
+      builder.add(i * 100, i * 10, i, FingerprintIndexTest.supertypes(i));
+    }
+    builder.write(this.directory);
+    return Files.readAllBytes(this.directory.resolve(FingerprintIndex.FILE_NAME));
+  }
+
+  private static long[] supertypes(final int count) {
+    final var supertypes = new long[count];
+    Arrays.setAll(supertypes, i -> 1000 + count * 10 + i);
+    return supertypes;
+  }
+}
@@ -0,0 +1,52 @@
+package second;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Type parameter declarations with {@code --generics}, from reflection and from class files.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+class InspectorTest {
+
+  @Test
+  void genericsDeclareTypeParameters() throws Exception {
+    final var reflected = new Inspector(java.util.Collections.class, true).toString();
+    assertTrue(
+        reflected.contains(
+            "public static <T extends Object & Comparable<? super T>> T max("
+                + "Collection<? extends T> arg0);\n"),
+        reflected);
+    assertTrue(
+        reflected.contains("public static <T extends Comparable<? super T>> void sort(List<T>"),
+        reflected);
+
+    final var list = new Inspector(java.util.ArrayList.class, true).toString();
+    assertTrue(list.contains("public class ArrayList<E> implements List<E>"), list);
+    assertTrue(list.contains("public <T> T[] toArray(T[] arg0);\n"), list);
+
+    final var enumeration = new Inspector(Enum.class, true).toString();
+    assertTrue(enumeration.contains("public abstract class Enum<E extends Enum<E>>"), enumeration);
+  }
+
+  @Test
+  void classFilesDeclareTheSameTypeParameters() throws Exception {
+    final var backend = new ClassFileBackend(ClassSource.classPath(), true);
+    for (final var clazz : new Class<?>[] {java.util.Collections.class, java.util.EnumMap.class}) {
+      assertEquals(
+          new Inspector(clazz, true).toString(),
+          new Inspector(backend.model(clazz.getName())).toString());
+    }
+  }
+
+  @Test
+  void withoutGenericsNothingIsDeclared() {
+    final var text = new Inspector(java.util.Collections.class).toString();
+    assertFalse(text.contains("<"), text);
+  }
+}
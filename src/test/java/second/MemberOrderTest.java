@@ -0,0 +1,102 @@
+package second;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link MemberOrder} must give exactly the order of a stable sort with the Inspector comparators.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 2023-05-11
+ */
+class MemberOrderTest {
+
+  // names the prefix of the key cannot hold, or that only differ after it
+  @SuppressWarnings("unused")
+  public static class Names {
+    public int a;
+    public int aé;
+    public int aè;
+    public long ab;
+    public static int ab2;
+    public int é;
+    public int a_;
+    public int aÿ;
+    public int a$;
+    public int abcdef;
+    public int abcdeg;
+    public int abcde;
+
+    public Names() {}
+
+    public Names(final int a) {}
+
+    public Names(final long a) {}
+
+    protected Names(final int a, final int b) {}
+
+    public void abcdefgh() {}
+
+    public void abcdefg() {}
+
+    public void abcdefg(final int a) {}
+
+    public void abcdefg(final long a) {}
+
+    public int abcdefg(final String a) {
+      return 0;
+    }
+
+    public void été() {}
+
+    public void é() {}
+
+    public static void aé() {}
+
+    public void aĀ() {}
+  }
+
+  @Test
+  void sameOrderAsTheComparators() throws Exception {
+    final var classes =
+        new Class<?>[] {
+          Names.class,
+          String.class,
+          java.util.Collections.class,
+          java.util.HashMap.class,
+          java.util.concurrent.TimeUnit.class,
+          java.lang.annotation.ElementType.class,
+          java.lang.reflect.Modifier.class,
+          Thread.class,
+          Character.UnicodeBlock.class,
+          javax.swing.JTable.class,
+          java.awt.Component.class
+        };
+    for (final var clazz : classes) {
+      MemberOrderTest.assertOrder(clazz);
+    }
+  }
+
+  private static void assertOrder(final Class<?> clazz) {
+    final Field[] fields = clazz.getFields();
+    assertEquals(
+        Arrays.stream(fields).sorted(Inspector::fieldComparator).toList(),
+        MemberOrder.sorted(fields, Inspector::fieldComparator),
+        clazz.getName());
+    final Constructor<?>[] constructors = clazz.getDeclaredConstructors();
+    assertEquals(
+        Arrays.stream(constructors).sorted(Inspector::constructorComparator).toList(),
+        MemberOrder.sortedConstructors(constructors, Inspector::constructorComparator),
+        clazz.getName());
+    final Method[] methods = clazz.getMethods();
+    assertEquals(
+        Arrays.stream(methods).sorted(Inspector::methodComparator).toList(),
+        MemberOrder.sorted(methods, Inspector::methodComparator),
+        clazz.getName());
+  }
+}
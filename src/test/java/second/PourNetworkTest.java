@@ -0,0 +1,146 @@
+package second;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Alle Suchverfahren von {@link PourNetwork} müssen dieselben Zustände in derselben Reihenfolge
+ * liefern wie die Breitensuche mit dem {@code TreeSet}, und {@link TupleWriter} muss daraus
+ * denselben Text machen wie {@code printf}.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+class PourNetworkTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void allModesAgreeWithTree() throws Exception {
+    final var networks =
+        new PourNetwork[] {
+          PourNetwork.umfuelllisten(new int[] {5, 3, 2, 1, 1}),
+          PourNetwork.umfuelllisten(new int[] {17, 11, 7, 5, 3}),
+          PourNetwork.umfuelllisten(new int[] {60, 37, 25, 14, 9}),
+          PourNetwork.umfuelllisten(new int[] {12, 0, 4, 0, 3}),
+          // drei Krüge, jeder in jeden
+          new PourNetwork(
+              new int[] {8, 5, 3},
+              new int[] {8, 0, 0},
+              new int[][] {{0, 1}, {0, 2}, {1, 0}, {1, 2}, {2, 0}, {2, 1}})
+        };
+    for (final var network : networks) {
+      this.assertModes(network);
+    }
+  }
+
+  private void assertModes(final PourNetwork network) throws IOException {
+    final var tree = new ArrayList<>(network.reachableTree(new SearchStats()));
+    final var expected = PourNetworkTest.lines(tree);
+    final var capacities = new int[network.containers()];
+    for (var i = 0; i < capacities.length; ++i) {
+      capacities[i] = network.capacity(i);
+    }
+    final var name = Arrays.toString(capacities);
+
+    final var packed = network.packedCodec();
+    final var bitmapCodec = network.mixedRadixCodec();
+    final var modes = new ArrayList<List<int[]>>();
+    modes.add(PourNetworkTest.decode(
+        network, packed, network.reachablePacked(packed, new SearchStats())));
+    modes.add(PourNetworkTest.decode(
+        network, packed, network.reachableParallel(packed, 1, new SearchStats())));
+    modes.add(PourNetworkTest.decode(
+        network, packed, network.reachableParallel(packed, 4, new SearchStats())));
+    for (final var offHeap : new boolean[] {false, true}) {
+      final var visited = network.reachableBitmap(bitmapCodec, offHeap, new SearchStats());
+      final var states = new ArrayList<int[]>();
+      for (var index = visited.nextSetBit(0); index >= 0; index = visited.nextSetBit(index + 1)) {
+        final var state = new int[network.containers()];
+        bitmapCodec.decode(index, state);
+        states.add(state);
+      }
+      modes.add(states);
+    }
+    try (final var search = new ExternalPourSearch(network, packed, 1 << 16, this.directory)) {
+      final var states = new ArrayList<int[]>();
+      try (final var reader = new ExternalPourSearch.Reader(search.run(new SearchStats()))) {
+        while (reader.hasNext()) {
+          final var state = new int[network.containers()];
+          packed.decode(reader.next(), state);
+          states.add(state);
+        }
+      }
+      modes.add(states);
+    }
+
+    for (final var states : modes) {
+      assertEquals(expected, PourNetworkTest.lines(states), name);
+      assertEquals(PourNetworkTest.printf(tree), this.written(states, false), name);
+    }
+
+    // Binärformat: n Little-Endian ints pro Zustand
+    final var binary = Files.readAllBytes(this.file(tree, true));
+    assertEquals(tree.size() * network.containers() * 4, binary.length, name);
+    final var ints = ByteBuffer.wrap(binary).order(ByteOrder.LITTLE_ENDIAN);
+    for (final var state : tree) {
+      for (final var value : state) {
+        assertEquals(value, ints.getInt(), name);
+      }
+    }
+  }
+
+  private static List<int[]> decode(
+      final PourNetwork network, final StateCodec codec, final long[] codes) {
+    final var states = new ArrayList<int[]>();
+    for (final var code : codes) {
+      final var state = new int[network.containers()];
+      codec.decode(code, state);
+      states.add(state);
+    }
+    return states;
+  }
+
+  // vergleichbare Darstellung, die Reihenfolge zählt mit
+  private static List<String> lines(final List<int[]> states) {
+    return states.stream().map(Arrays::toString).toList();
+  }
+
+  // so hat Umfuelllisten früher ausgegeben
+  private static String printf(final List<int[]> states) {
+    final var sb = new StringBuilder();
+    for (final var state : states) {
+      sb.append('(');
+      for (final var value : state) {
+        sb.append(String.format(" %d", value));
+      }
+      sb.append(String.format(" )%n"));
+    }
+    return sb.append("Ende").toString();
+  }
+
+  private String written(final List<int[]> states, final boolean binary) throws IOException {
+    return Files.readString(this.file(states, binary));
+  }
+
+  private Path file(final List<int[]> states, final boolean binary) throws IOException {
+    final var file = Files.createTempFile(this.directory, "tuples", binary ? ".bin" : ".txt");
+    try (final var writer = TupleWriter.of(file, binary)) {
+      for (final var state : states) {
+        writer.write(state);
+      }
+      writer.text("Ende");
+    }
+    return file;
+  }
+}
@@ -0,0 +1,274 @@
+package second;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.zip.DeflaterOutputStream;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Undo and redo, the document format and the spatial index of {@link StrokeLog}, rendered
+ * headless.
+ *
+ * @author Frank Mayer 215965, Antonia Friese 215937, René Ott 215471
+ * @version 1.1
+ */
+class StrokeLogTest {
+    @Test
+    void imagesAreFoundInEveryCellTheyCover() {
+        var log = new StrokeLog();
+        log.addImage(StrokeLogTest.filled(Color.RED), 10, 10, 1000, 1000);
+        for (var cy = 0; cy < 4; ++cy) {
+            for (var cx = 0; cx < 4; ++cx) {
+                var cell = StrokeLogTest.cell(cx, cy);
+                assertFalse(log.isEmpty(cell), cell.toString());
+            }
+        }
+    }
+
+    @Test
+    void imagesAreRenderedOnEveryTile() {
+        var log = new StrokeLog();
+        log.addImage(StrokeLogTest.filled(Color.RED), 10, 10, 1000, 1000);
+        var tiles = StrokeLogTest.tiles(log, 2048, 4);
+        assertEquals(Color.RED.getRGB(), StrokeLogTest.pixel(tiles, 600, 600));
+        assertEquals(Color.RED.getRGB(), StrokeLogTest.pixel(tiles, 1000, 1000));
+        assertEquals(Color.WHITE.getRGB(), StrokeLogTest.pixel(tiles, 1020, 1020));
+    }
+
+    @Test
+    void strokesAreFoundInTheCellsTheyCross() {
+        var log = new StrokeLog();
+        StrokeLogTest.line(log, Color.BLACK, 10, 100, 700, 100);
+        for (var cx = 0; cx < 3; ++cx) {
+            assertFalse(log.isEmpty(StrokeLogTest.cell(cx, 0)), "cell " + cx);
+        }
+        assertTrue(log.isEmpty(StrokeLogTest.cell(3, 0)));
+        assertTrue(log.isEmpty(StrokeLogTest.cell(1, 1)));
+        assertTrue(log.isEmpty(new Rectangle(0, 200, 1000, 50)));
+    }
+
+    @Test
+    void singleClicksAreDropped() {
+        var log = new StrokeLog();
+        log.beginStroke(10, 10, Color.BLACK, 4, MyPaint.StrokeType.LINE);
+        log.endStroke();
+        assertEquals(0, log.size());
+        assertFalse(log.canUndo());
+        assertTrue(log.isEmpty(StrokeLogTest.cell(0, 0)));
+    }
+
+    @Test
+    void undoAndRedo() {
+        var log = new StrokeLog();
+        StrokeLogTest.line(log, Color.RED, 10, 10, 100, 10);
+        StrokeLogTest.line(log, Color.BLUE, 10, 300, 100, 300);
+        log.clear();
+        assertTrue(log.isEmpty(StrokeLogTest.cell(0, 0)));
+
+        assertNull(log.undo());
+        assertFalse(log.isEmpty(StrokeLogTest.cell(0, 0)));
+        var changed = log.undo();
+        assertTrue(changed.contains(50, 300));
+        assertTrue(log.isEmpty(StrokeLogTest.cell(0, 1)));
+        assertTrue(log.canRedo());
+
+        changed = log.redo();
+        assertTrue(changed.contains(50, 300));
+        assertFalse(log.isEmpty(StrokeLogTest.cell(0, 1)));
+        assertEquals(2, log.size());
+        assertTrue(log.canRedo());
+    }
+
+    @Test
+    void newEntriesDropWhatWasUndone() {
+        var log = new StrokeLog();
+        StrokeLogTest.line(log, Color.RED, 10, 10, 100, 10);
+        StrokeLogTest.line(log, Color.BLUE, 10, 300, 100, 300);
+        StrokeLogTest.line(log, Color.GREEN, 300, 10, 400, 10);
+        log.undo();
+        log.undo();
+        StrokeLogTest.line(log, Color.BLACK, 10, 600, 100, 600);
+
+        assertEquals(2, log.size());
+        assertFalse(log.canRedo());
+        assertTrue(log.isEmpty(StrokeLogTest.cell(0, 1)));
+        assertTrue(log.isEmpty(StrokeLogTest.cell(1, 0)));
+        assertFalse(log.isEmpty(StrokeLogTest.cell(0, 2)));
+        // the stroke drawn last is the second entry now
+        log.undo();
+        assertTrue(log.isEmpty(StrokeLogTest.cell(0, 2)));
+        assertFalse(log.isEmpty(StrokeLogTest.cell(0, 0)));
+    }
+
+    @Test
+    void documentsAreReadBackAsWritten() throws IOException {
+        var log = new StrokeLog();
+        // hidden by the clear, not written
+        StrokeLogTest.line(log, Color.GREEN, 10, 400, 500, 400);
+        log.clear();
+        for (var type : MyPaint.StrokeType.values()) {
+            var y = 20 + type.ordinal() * 40;
+            StrokeLogTest.line(log, new Color(0x80336699, true), 10, y, 500, y + 10);
+        }
+        log.addImage(StrokeLogTest.filled(Color.RED), 300, 300, 50, 50);
+        var out = new ByteArrayOutputStream();
+        log.write(out);
+
+        var read = StrokeLog.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(log.size() - 2, read.size());
+        var area = new Rectangle(0, 0, 512, 512);
+        assertArrayEquals(StrokeLogTest.render(log, area), StrokeLogTest.render(read, area));
+        assertEquals(Color.RED.getRGB(), StrokeLogTest.render(read, area)[320 * 512 + 320]);
+    }
+
+    @Test
+    void loadedStrokesAreFinished() throws IOException {
+        var log = new StrokeLog();
+        StrokeLogTest.line(log, Color.BLACK, 10, 10, 100, 10);
+        var out = new ByteArrayOutputStream();
+        log.write(out);
+
+        var read = StrokeLog.read(new ByteArrayInputStream(out.toByteArray()));
+        read.continueStroke(900, 900);
+        assertNull(read.takePending(true));
+        assertTrue(read.isEmpty(StrokeLogTest.cell(3, 3)));
+    }
+
+    @Test
+    void corruptDocumentsAreRejected() {
+        // entry count
+        StrokeLogTest.assertCorrupt(entries -> entries.writeInt(-1));
+        // point count, negative, zero and more than there are
+        for (var points : new int[] {-1, 0, Integer.MAX_VALUE}) {
+            StrokeLogTest.assertCorrupt(entries -> {
+                entries.writeInt(1);
+                entries.writeByte(0);
+                entries.writeByte(0);
+                entries.writeInt(Color.BLACK.getRGB());
+                entries.writeFloat(4);
+                entries.writeInt(points);
+                entries.writeFloat(10);
+                entries.writeFloat(10);
+            });
+        }
+        // PNG length, negative and more than there is, and no PNG at all
+        for (var length : new int[] {-1, Integer.MAX_VALUE, 4}) {
+            StrokeLogTest.assertCorrupt(entries -> {
+                entries.writeInt(1);
+                entries.writeByte(1);
+                for (var i = 0; i < 4; ++i) {
+                    entries.writeFloat(10);
+                }
+                entries.writeInt(length);
+                entries.writeInt(0x12345678);
+            });
+        }
+        // stroke type
+        StrokeLogTest.assertCorrupt(entries -> {
+            entries.writeInt(1);
+            entries.writeByte(0);
+            entries.writeByte(9);
+        });
+    }
+
+    // a document with the magic and these entries must throw an IOException
+    private static void assertCorrupt(Entries entries) {
+        var out = new ByteArrayOutputStream();
+        try {
+            var data = new DataOutputStream(out);
+            data.writeInt('M' << 24 | 'Y' << 16 | 'P' << 8 | 1);
+            var deflater = new DeflaterOutputStream(data);
+            var deflated = new DataOutputStream(deflater);
+            entries.write(deflated);
+            deflated.flush();
+            deflater.finish();
+        }
+        catch (IOException e) {
+            throw new AssertionError(e);
+        }
+        assertThrows(IOException.class, () -> StrokeLog.read(new ByteArrayInputStream(out.toByteArray())));
+    }
+
+    private interface Entries {
+        void write(DataOutputStream entries) throws IOException;
+    }
+
+    static BufferedImage filled(Color color) {
+        var image = new BufferedImage(8, 8, BufferedImage.TYPE_INT_RGB);
+        var g2d = image.createGraphics();
+        g2d.setColor(color);
+        g2d.fillRect(0, 0, 8, 8);
+        g2d.dispose();
+        return image;
+    }
+
+    // a stroke of a few points from one point to another
+    static void line(StrokeLog log, Color color, float x1, float y1, float x2, float y2) {
+        log.beginStroke(x1, y1, color, 4, MyPaint.StrokeType.LINE);
+        for (var i = 1; i <= 8; ++i) {
+            log.continueStroke(x1 + ( x2 - x1 ) * i / 8, y1 + ( y2 - y1 ) * i / 8);
+        }
+        log.endStroke();
+    }
+
+    static Rectangle cell(int cx, int cy) {
+        return new Rectangle(cx * StrokeLog.cellSize,
+            cy * StrokeLog.cellSize,
+            StrokeLog.cellSize,
+            StrokeLog.cellSize
+        );
+    }
+
+    // the pixels of an area rendered from the log on white
+    static int[] render(StrokeLog log, Rectangle area) {
+        var image = new BufferedImage(area.width, area.height, BufferedImage.TYPE_INT_ARGB);
+        var g2d = image.createGraphics();
+        g2d.setColor(Color.WHITE);
+        g2d.fillRect(0, 0, area.width, area.height);
+        g2d.translate(-area.x, -area.y);
+        log.render(g2d, area);
+        g2d.dispose();
+        return image.getRGB(0, 0, area.width, area.height, null, 0, area.width);
+    }
+
+    // a canvas filled from the log, like MyPaint's
+    static TiledCanvas tiles(StrokeLog log, int size, int maxResident) {
+        var tiles = new TiledCanvas(size, size, maxResident);
+        tiles.setSource(new TiledCanvas.Source() {
+            @Override
+            public boolean isEmpty(Rectangle area) {
+                return log.isEmpty(area);
+            }
+
+            @Override
+            public void render(Graphics2D g2d, Rectangle area) {
+                log.render(g2d, area);
+            }
+        });
+        return tiles;
+    }
+
+    // the color the canvas paints at a point
+    static int pixel(TiledCanvas tiles, int x, int y) {
+        var image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        var g2d = image.createGraphics();
+        g2d.translate(-x, -y);
+        g2d.clip(new Rectangle(x, y, 1, 1));
+        tiles.paint(g2d);
+        g2d.dispose();
+        return image.getRGB(0, 0);
+    }
+}
@@ -0,0 +1,78 @@
+package second;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.awt.Color;
+import java.awt.Rectangle;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tiles of {@link TiledCanvas} that are spilled to the scratch file, read back and cleared.
+ *
+ * @author Frank Mayer 215965, Antonia Friese 215937, René Ott 215471
+ * @version 1.1
+ */
+class TiledCanvasTest {
+    private static final Color[] colors = {
+        Color.RED, Color.GREEN, Color.BLUE, Color.YELLOW, Color.CYAN, Color.MAGENTA, Color.ORANGE
+    };
+
+    @Test
+    void untouchedTilesShareTheBackground() {
+        var tiles = new TiledCanvas(1000, 1000, 2);
+        assertEquals(Color.LIGHT_GRAY.getRGB(), StrokeLogTest.pixel(tiles, 0, 5));
+        assertEquals(Color.WHITE.getRGB(), StrokeLogTest.pixel(tiles, 300, 300));
+        assertEquals(0, tiles.getAllocatedTiles());
+    }
+
+    @Test
+    void spilledTilesAreReadBack() {
+        var tiles = new TiledCanvas(2048, 256, 2);
+        for (var column = 0; column < 7; ++column) {
+            TiledCanvasTest.fill(tiles, column, TiledCanvasTest.colors[column]);
+        }
+        assertEquals(7, tiles.getAllocatedTiles());
+        // twice, so the tiles read back are spilled again unchanged
+        for (var pass = 0; pass < 2; ++pass) {
+            for (var column = 0; column < 7; ++column) {
+                assertEquals(TiledCanvasTest.colors[column].getRGB(),
+                    StrokeLogTest.pixel(tiles, column * TiledCanvas.tileSize + 100, 100),
+                    "tile " + column
+                );
+            }
+        }
+    }
+
+    @Test
+    void clearedSlotsAreUsedAgain() {
+        var tiles = new TiledCanvas(2048, 256, 1);
+        for (var column = 0; column < 4; ++column) {
+            TiledCanvasTest.fill(tiles, column, TiledCanvasTest.colors[column]);
+        }
+        // frees the slots of tiles 1 and 2, tiles 4 and 5 take them
+        tiles.invalidate(new Rectangle(TiledCanvas.tileSize, 0, 2 * TiledCanvas.tileSize, 1));
+        for (var column = 4; column < 6; ++column) {
+            TiledCanvasTest.fill(tiles, column, TiledCanvasTest.colors[column]);
+        }
+        // spill them
+        TiledCanvasTest.fill(tiles, 6, TiledCanvasTest.colors[6]);
+        assertEquals(5, tiles.getAllocatedTiles());
+
+        for (var column = 0; column < 7; ++column) {
+            var expected = column == 1 || column == 2 ? Color.WHITE : TiledCanvasTest.colors[column];
+            assertEquals(expected.getRGB(),
+                StrokeLogTest.pixel(tiles, column * TiledCanvas.tileSize + 100, 100),
+                "tile " + column
+            );
+        }
+    }
+
+    // fill a tile of the top row with a color
+    private static void fill(TiledCanvas tiles, int column, Color color) {
+        var area = new Rectangle(column * TiledCanvas.tileSize, 0, TiledCanvas.tileSize, TiledCanvas.tileSize);
+        tiles.draw(area, g2d -> {
+            g2d.setColor(color);
+            g2d.fill(area);
+        });
+    }
+}
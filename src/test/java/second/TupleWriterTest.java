@@ -0,0 +1,52 @@
+package second;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Zeilen von {@link TupleWriter}, die länger als sein Puffer sind.
+ *
+ * @author Frank Mayer, Antonia Friese, René Ott
+ * @version 1.0 - 04.05.2023
+ */
+class TupleWriterTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void rowsLongerThanTheBuffer() throws Exception {
+    // 20000 Zahlen sind als Text und binär länger als 64 KiB
+    final var state = new int[20000];
+    for (var i = 0; i < state.length; ++i) {
+      state[i] = i % 3 == 0 ? Integer.MIN_VALUE + i : Integer.MAX_VALUE - i;
+    }
+
+    final var text = this.directory.resolve("tuples.txt");
+    try (final var writer = TupleWriter.of(text, false)) {
+      writer.write(state);
+      writer.write(new int[] {1, 2});
+    }
+    final var expected = new StringBuilder("(");
+    for (final var value : state) {
+      expected.append(' ').append(value);
+    }
+    expected.append(String.format(" )%n( 1 2 )%n"));
+    assertEquals(expected.toString(), Files.readString(text));
+
+    final var binary = this.directory.resolve("tuples.bin");
+    try (final var writer = TupleWriter.of(binary, true)) {
+      writer.write(state);
+    }
+    final var ints = ByteBuffer.wrap(Files.readAllBytes(binary)).order(ByteOrder.LITTLE_ENDIAN);
+    assertEquals(state.length * 4, ints.remaining());
+    for (final var value : state) {
+      assertEquals(value, ints.getInt());
+    }
+  }
+}